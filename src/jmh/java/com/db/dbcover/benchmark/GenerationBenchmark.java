@@ -0,0 +1,119 @@
+package com.db.dbcover.benchmark;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.service.render.SheetRenderPool;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.RowExtent;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end workbook generation with the cache disabled. Shapes that are configured instrument
+ * types go through {@code generateTemplate(String)}, synthetic ones through the definition API.
+ * Run with {@code -prof gc} for allocation per operation ({@code gc.alloc.rate.norm}); the
+ * workbook size follows from the secondary results as {@code outputBytes / workbooks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+
+    @Param({"MORTGAGE", "WIDE_500", "DEEP_50", "SHEETS_30"})
+    public String template;
+
+    @Param({"ESTIMATE"})
+    public ColumnWidthMode columnWidth;
+
+    @Param({"POI", "STREAMING"})
+    public RendererType renderer;
+
+    /**
+     * Only affects the streaming renderer; enable with {@code -p sheetCache=true} to measure
+     * workbook assembly from cached sheet parts.
+     */
+    @Param({"false"})
+    public boolean sheetCache;
+
+    /**
+     * Default data-row extent; compare with {@code -p dataRows=100,10000,ENTIRE_COLUMN}.
+     */
+    @Param({"10000"})
+    public String dataRows;
+
+    /**
+     * Only affects the streaming renderer; compare with {@code -p parallel=false,true}, ideally on
+     * {@code SHEETS_30} (30 sheets of 200 columns).
+     */
+    @Param({"false"})
+    public boolean parallel;
+
+    private SheetRenderPool sheetRenderPool;
+
+    private ExcelGeneratorService generator;
+    private ExcelTemplateDefinition definition;
+    private boolean instrumentType;
+
+    @Setup
+    public void setUp() throws IOException {
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        generatorProperties.setColumnWidth(columnWidth);
+        generatorProperties.setRenderer(renderer);
+        generatorProperties.getSheetCache().setEnabled(sheetCache);
+        generatorProperties.setDataRows(RowExtent.valueOf(dataRows));
+        generatorProperties.setParallel(parallel);
+        sheetRenderPool = new SheetRenderPool(generatorProperties);
+        generator = SyntheticTemplates.uncachedGenerator(generatorProperties, sheetRenderPool);
+        definition = SyntheticTemplates.template(template);
+        instrumentType = SyntheticTemplates.isInstrumentType(template);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sheetRenderPool.destroy();
+    }
+
+    @Benchmark
+    public byte[] generateTemplate(OutputSize outputSize) throws IOException {
+        byte[] workbook = instrumentType ? generator.generateTemplate(template) : generator.generateTemplate(definition);
+        outputSize.record(workbook.length);
+        return workbook;
+    }
+
+    /**
+     * Bytes written and workbooks generated. JMH sums event counters over threads and
+     * iterations, so the two are reported as totals and their ratio is the size per workbook.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+
+        public long outputBytes;
+        public long workbooks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputBytes = 0;
+            workbooks = 0;
+        }
+
+        void record(int bytes) {
+            outputBytes += bytes;
+            workbooks++;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.db.dbcover.benchmark;
+
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.service.sheet.SheetFormatter;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RowExtent;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Individual {@link SheetFormatter} operations applied to every column of a synthetic sheet.
+ * A fresh workbook is created per invocation because the operations mutate it. Validations and
+ * tooltips are only written when the sheet is finalized, so those scores include
+ * {@link #finalizeSheet()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SheetFormatterBenchmark {
+
+    @Param({"20", "500"})
+    public int columnCount;
+
+    @Param({"ESTIMATE", "AUTO_SIZE"})
+    public ColumnWidthMode columnWidth;
+
+    private List<ColumnSpec> columns;
+    private XSSFWorkbook workbook;
+    private Sheet sheet;
+    private SheetFormatter formatter;
+
+    @Setup(Level.Trial)
+    public void createColumns() {
+        TemplateSheet definition = SyntheticTemplates.sheet("BENCH", List.of(), columnCount);
+        columns = definition.getColumns().stream().map(ColumnSpec::of).toList();
+    }
+
+    @Setup(Level.Invocation)
+    public void createWorkbook() {
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet("BENCH");
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < columns.size(); i++) {
+            header.createCell(i).setCellValue(columns.get(i).header());
+        }
+        formatter = new SheetFormatter(workbook, workbook.createDataFormat(), 0, RowExtent.rows(10_000),
+                columnWidth, ListValidationMode.AUTO);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeWorkbook() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    public Sheet applyColumnFormat() {
+        for (int i = 0; i < columns.size(); i++) {
+            formatter.applyColumnFormat(sheet, i, columns.get(i));
+        }
+        return sheet;
+    }
+
+    @Benchmark
+    public Sheet applyColumnValidation() {
+        for (int i = 0; i < columns.size(); i++) {
+            formatter.applyColumnValidation(sheet, i, columns.get(i));
+        }
+        formatter.finalizeSheet(sheet, columns);
+        return sheet;
+    }
+
+    @Benchmark
+    public Sheet applyColumnTooltip() {
+        for (int i = 0; i < columns.size(); i++) {
+            formatter.applyColumnTooltip(sheet, i, columns.get(i));
+        }
+        formatter.finalizeSheet(sheet, columns);
+        return sheet;
+    }
+
+    /**
+     * Filter, freeze pane and column sizing only; compare {@code columnWidth} modes here.
+     */
+    @Benchmark
+    public Sheet finalizeSheet() {
+        formatter.finalizeSheet(sheet, columns);
+        return sheet;
+    }
+}
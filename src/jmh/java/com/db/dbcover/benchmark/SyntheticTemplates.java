@@ -0,0 +1,124 @@
+package com.db.dbcover.benchmark;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import com.db.dbcover.service.buffer.WorkbookBufferPool;
+import com.db.dbcover.service.cache.GenerationCoalescer;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.metrics.GenerationMetrics;
+import com.db.dbcover.service.render.SheetPartCache;
+import com.db.dbcover.service.render.SheetRenderPool;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+import com.db.dbcover.template.ExcelTemplateDefinition.RequiredStatus;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds synthetic template shapes for stress benchmarks: wide sheets with hundreds of columns,
+ * deep workbooks with dozens of sheets and catalogs with thousands of inheriting sheets.
+ */
+final class SyntheticTemplates {
+
+    private static final ColumnType[] TYPES = ColumnType.values();
+
+    private SyntheticTemplates() {
+    }
+
+    static ExcelTemplateDefinition template(String shape) {
+        return switch (shape) {
+            case "MORTGAGE" -> DefaultExcelTemplates.properties().resolvedInstrumentTemplates().get("MORTGAGE");
+            case "WIDE_500" -> definition(1, 500);
+            case "DEEP_50" -> definition(50, 20);
+            case "SHEETS_30" -> definition(30, 200);
+            default -> throw new IllegalArgumentException("Unknown template shape: " + shape);
+        };
+    }
+
+    static boolean isInstrumentType(String shape) {
+        return DefaultExcelTemplates.properties().resolvedInstrumentTemplates().containsKey(shape);
+    }
+
+    static ExcelTemplateDefinition definition(int sheetCount, int columnsPerSheet) {
+        List<TemplateSheet> sheets = new ArrayList<>();
+        for (int sheetIndex = 0; sheetIndex < sheetCount; sheetIndex++) {
+            sheets.add(sheet("SHEET_" + sheetIndex, List.of(), columnsPerSheet));
+        }
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(sheets);
+        return definition;
+    }
+
+    static TemplateSheet sheet(String name, List<String> baseSheets, int columnCount) {
+        List<Column> columns = new ArrayList<>();
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            columns.add(column(name + "_COL_" + columnIndex, TYPES[columnIndex % TYPES.length]));
+        }
+        return TemplateSheet.builder()
+                .name(name)
+                .baseSheets(baseSheets)
+                .columns(columns)
+                .build();
+    }
+
+    static Column column(String header, ColumnType type) {
+        Column column = Column.builder()
+                .header(header)
+                .type(type)
+                .required(header.hashCode() % 2 == 0 ? RequiredStatus.REQUIRED : RequiredStatus.NOT_REQUIRED)
+                .description("Synthetic column " + header)
+                .build();
+        if (type == ColumnType.LIST) {
+            column.setAllowedValues(List.of("ALPHA", "BETA", "GAMMA", "DELTA"));
+        }
+        return column;
+    }
+
+    /**
+     * Catalog of {@code sheetCount} sheets where the first ten are shared blueprints and every other
+     * sheet inherits from one of them, plus one instrument template per ten sheets.
+     */
+    static Catalog catalog(int sheetCount) {
+        List<TemplateSheet> sheets = new ArrayList<>();
+        for (int sheetIndex = 0; sheetIndex < sheetCount; sheetIndex++) {
+            List<String> bases = sheetIndex < 10 ? List.of() : List.of("SHEET_" + (sheetIndex % 10));
+            sheets.add(sheet("SHEET_" + sheetIndex, bases, 5));
+        }
+        Map<String, TemplateSettings> instruments = new LinkedHashMap<>();
+        for (int sheetIndex = 0; sheetIndex + 10 <= sheetCount; sheetIndex += 10) {
+            List<String> sheetNames = new ArrayList<>();
+            for (int offset = 0; offset < 10; offset++) {
+                sheetNames.add("SHEET_" + (sheetIndex + offset));
+            }
+            TemplateSettings settings = new TemplateSettings();
+            settings.setSheets(sheetNames);
+            instruments.put("INSTRUMENT_" + sheetIndex, settings);
+        }
+        return new Catalog(sheets, instruments);
+    }
+
+    static ExcelGeneratorService uncachedGenerator(ExcelGeneratorProperties generatorProperties,
+                                                   SheetRenderPool sheetRenderPool) {
+        generatorProperties.getCache().setEnabled(false);
+        ExcelTemplateProperties properties = DefaultExcelTemplates.properties();
+        return new ExcelGeneratorService(properties, generatorProperties,
+                new RenderedWorkbookCache(generatorProperties),
+                new GenerationCoalescer(false, new SimpleMeterRegistry()), new SheetPartCache(generatorProperties),
+                sheetRenderPool, new WorkbookBufferPool(generatorProperties.getBuffers(), new SimpleMeterRegistry()),
+                new GenerationBulkhead(generatorProperties.getBulkhead(), new SimpleMeterRegistry()),
+                new GenerationMetrics(new SimpleMeterRegistry()));
+    }
+
+    record Catalog(List<TemplateSheet> sheets, Map<String, TemplateSettings> instrumentTemplates) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.db.dbcover.benchmark;
+
+import com.db.dbcover.template.TemplateSheetResolver;
+import com.db.dbcover.template.TemplateSheetResolver.ResolvedTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TemplateSheetResolver#resolve} on synthetic catalogs with inheriting sheets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TemplateResolverBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int sheetCount;
+
+    private SyntheticTemplates.Catalog catalog;
+
+    @Setup
+    public void setUp() {
+        catalog = SyntheticTemplates.catalog(sheetCount);
+    }
+
+    @Benchmark
+    public ResolvedTemplates resolve() {
+        return TemplateSheetResolver.resolve(catalog.sheets(), catalog.instrumentTemplates());
+    }
+}
@@ -0,0 +1,51 @@
+package com.db.dbcover.benchmark;
+
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.ResolutionMode;
+import com.db.dbcover.template.TemplateSheetResolver;
+import com.db.dbcover.template.TemplateSheetResolver.ResolvedTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of a synthetic catalog per {@link ResolutionMode}: resolving it, and resolving it
+ * plus the render plan of the first requested instrument template.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TemplateStartupBenchmark {
+
+    private static final String FIRST_REQUESTED = "INSTRUMENT_0";
+
+    @Param({"1000", "5000", "20000"})
+    public int sheetCount;
+
+    @Param({"EAGER", "LAZY"})
+    public ResolutionMode mode;
+
+    private SyntheticTemplates.Catalog catalog;
+
+    @Setup
+    public void setUp() {
+        catalog = SyntheticTemplates.catalog(sheetCount);
+    }
+
+    @Benchmark
+    public ResolvedTemplates startup() {
+        return TemplateSheetResolver.resolve(catalog.sheets(), catalog.instrumentTemplates(), mode);
+    }
+
+    @Benchmark
+    public RenderPlan startupAndFirstRequest() {
+        return startup().renderPlans().get(FIRST_REQUESTED);
+    }
+}
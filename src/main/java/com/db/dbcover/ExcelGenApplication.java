@@ -1,12 +1,22 @@
 package com.db.dbcover;
 
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelJobProperties;
 import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.config.ExcelUploadProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(ExcelTemplateProperties.class)
+@EnableConfigurationProperties({
+        ExcelTemplateProperties.class,
+        ExcelGeneratorProperties.class,
+        ExcelUploadProperties.class,
+        ExcelExportProperties.class,
+        ExcelJobProperties.class
+})
 public class ExcelGenApplication {
 
     public static void main(String[] args) {
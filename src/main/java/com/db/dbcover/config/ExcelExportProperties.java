@@ -0,0 +1,31 @@
+package com.db.dbcover.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "excel.export")
+public class ExcelExportProperties {
+
+    /**
+     * Rows kept in memory per sheet; older rows are flushed to a temporary file.
+     */
+    private int rowWindow = 100;
+    private boolean compressTempFiles = true;
+    private final Jdbc jdbc = new Jdbc();
+
+    @Getter
+    @Setter
+    public static class Jdbc {
+        private int fetchSize = 1000;
+        /**
+         * Query per instrument type and sheet name; result columns are matched to headers by label.
+         */
+        private Map<String, Map<String, String>> queries = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,126 @@
+package com.db.dbcover.config;
+
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.template.RowExtent;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "excel.generator")
+public class ExcelGeneratorProperties {
+
+    private final Cache cache = new Cache();
+    private final SheetCache sheetCache = new SheetCache();
+    private final Metrics metrics = new Metrics();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final Coalescing coalescing = new Coalescing();
+    private final Batch batch = new Batch();
+    private final Buffers buffers = new Buffers();
+    private final TemplateReload templateReload = new TemplateReload();
+    private ColumnWidthMode columnWidth = ColumnWidthMode.ESTIMATE;
+    private ListValidationMode listValidation = ListValidationMode.AUTO;
+    private RendererType renderer = RendererType.POI;
+    private RowExtent dataRows = RowExtent.rows(10_000);
+    /**
+     * Renders the sheets of a workbook concurrently; only used by the {@code STREAMING} renderer.
+     */
+    private boolean parallel = false;
+    /**
+     * Worker threads used when {@code parallel} is enabled; {@code 0} means one per available core.
+     */
+    private int parallelism = 0;
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 32;
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private boolean prewarm = false;
+    }
+
+    @Getter
+    @Setter
+    public static class SheetCache {
+        private boolean enabled = true;
+        private int maxEntries = 256;
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private boolean enabled = true;
+        /**
+         * Estimated heap shared by the generations that run at the same time.
+         */
+        private DataSize maxMemory = DataSize.ofMegabytes(256);
+        /**
+         * Callers that may wait for budget; further callers are rejected immediately.
+         */
+        private int maxQueued = 64;
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+        /**
+         * Lets concurrent requests for the same instrument template share one generation.
+         */
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        /**
+         * Workbooks of one batch generated at the same time; {@code 0} means one per available core.
+         */
+        private int parallelism = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Buffers {
+        /**
+         * Serializes workbooks into pooled direct chunks instead of growing heap arrays.
+         */
+        private boolean enabled = true;
+        private DataSize chunkSize = DataSize.ofKilobytes(256);
+        /**
+         * Direct memory the pool may hold; chunks beyond it are allocated on the heap.
+         */
+        private DataSize maxPooled = DataSize.ofMegabytes(64);
+    }
+
+    @Getter
+    @Setter
+    public static class TemplateReload {
+        /**
+         * Watches the template file and applies changes without a restart.
+         */
+        private boolean enabled = false;
+        /**
+         * Template file to watch; must resolve to a file on disk, not to an entry of a jar.
+         */
+        private String location = "classpath:excel-templates.yml";
+        /**
+         * Quiet period after a change before the file is read, so bursts of writes apply once.
+         */
+        private Duration debounce = Duration.ofMillis(500);
+    }
+}
@@ -0,0 +1,37 @@
+package com.db.dbcover.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "excel.jobs")
+public class ExcelJobProperties {
+
+    /**
+     * Directory for finished artifacts; empty means a new {@code excel-jobs-<random>} directory
+     * below the system temp directory, which is deleted on shutdown.
+     */
+    private String directory = "";
+    /**
+     * Jobs generated at the same time.
+     */
+    private int parallelism = 2;
+    /**
+     * Submitted jobs that may wait for a worker; further submissions are rejected.
+     */
+    private int maxQueued = 32;
+    /**
+     * How long a finished job and its artifact are kept.
+     */
+    private Duration ttl = Duration.ofHours(1);
+    /**
+     * Total size of kept artifacts; the oldest are evicted first once it is exceeded.
+     */
+    private DataSize maxDisk = DataSize.ofGigabytes(2);
+    private Duration sweepInterval = Duration.ofMinutes(1);
+}
@@ -3,9 +3,14 @@ package com.db.dbcover.config;
 import com.db.dbcover.template.ExcelTemplateDefinition;
 import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
 import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.ResolutionMode;
+import com.db.dbcover.template.TemplateRegistry;
 import com.db.dbcover.template.TemplateSheetResolver;
-import com.db.dbcover.template.TemplateSheetResolver.ResolvedTemplates;
+import com.db.dbcover.template.TemplateSheetResolver.TemplateUpdate;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,40 +18,102 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Configured template sheets and instrument templates plus their resolution. Resolved catalogs are
+ * published through a {@link TemplateRegistry}, so request threads read the current one without
+ * locking, {@link #reload} replaces it as a whole and the last {@code retained-versions} render
+ * plans of every instrument template stay available for pinned downloads.
+ */
 @ConfigurationProperties(prefix = "excel.template")
-public class ExcelTemplateProperties {
+public class ExcelTemplateProperties implements InitializingBean {
 
     private final List<TemplateSheet> templateSheets;
     private final Map<String, TemplateSettings> instrumentTemplates;
-    private transient ResolvedTemplates resolved;
+    private final ResolutionMode resolution;
+    private final TemplateRegistry registry;
 
     public ExcelTemplateProperties(List<TemplateSheet> templateSheets, Map<String, TemplateSettings> instrumentTemplates) {
+        this(templateSheets, instrumentTemplates, null, null);
+    }
+
+    @ConstructorBinding
+    public ExcelTemplateProperties(List<TemplateSheet> templateSheets,
+                                   Map<String, TemplateSettings> instrumentTemplates,
+                                   Integer retainedVersions,
+                                   ResolutionMode resolution) {
         this.templateSheets = templateSheets != null ? templateSheets : List.of();
         this.instrumentTemplates = instrumentTemplates != null ? instrumentTemplates : Map.of();
+        this.resolution = resolution != null ? resolution : ResolutionMode.EAGER;
+        this.registry = new TemplateRegistry(retainedVersions != null
+                ? retainedVersions
+                : TemplateRegistry.DEFAULT_RETAINED_VERSIONS);
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Resolves the configuration, or in {@link ResolutionMode#LAZY} mode only validates its sheet
+     * references, so configuration errors fail startup.
+     */
     public void initialize() {
         ensureResolved();
     }
+
+    @Override
+    public void afterPropertiesSet() {
+        initialize();
+    }
+
+    public ResolutionMode getResolution() {
+        return resolution;
+    }
     
     public Map<String, ExcelTemplateDefinition> resolvedInstrumentTemplates() {
-        return ensureResolved().instrumentTemplates();
+        return ensureResolved().resolved().instrumentTemplates();
+    }
+
+    public Map<String, RenderPlan> renderPlans() {
+        return ensureResolved().resolved().renderPlans();
+    }
+
+    /**
+     * Returns the current snapshot, including the retained render plan versions.
+     */
+    public TemplateRegistry.Snapshot snapshot() {
+        return ensureResolved();
+    }
+
+    /**
+     * Resolves the configuration of {@code source} against the current snapshot, re-resolving only
+     * what changed, and publishes the result. When the new configuration does not resolve, the
+     * current snapshot is kept. Reloads are serialized; readers are never blocked.
+     */
+    public synchronized TemplateUpdate reload(ExcelTemplateProperties source) {
+        TemplateUpdate update = TemplateSheetResolver.update(ensureResolved().resolved(), source.templateSheets,
+                source.instrumentTemplates, resolution);
+        registry.publish(update.resolved());
+        return update;
     }
 
-    private ResolvedTemplates ensureResolved() {
-        if (resolved == null) {
-            resolved = TemplateSheetResolver.resolve(templateSheets, instrumentTemplates);
+    /**
+     * Concurrent first callers may each resolve the configuration, but only one result is
+     * published and all of them return it.
+     */
+    private TemplateRegistry.Snapshot ensureResolved() {
+        TemplateRegistry.Snapshot current = registry.snapshot();
+        if (current != null) {
+            return current;
         }
-        return resolved;
+        return registry.publishInitial(TemplateSheetResolver.resolve(templateSheets, instrumentTemplates, resolution));
     }
 
     public static final class Builder {
         private final List<TemplateSheet> templateSheets = new ArrayList<>();
         private final Map<String, TemplateSettings> instrumentTemplates = new LinkedHashMap<>();
+        private Integer retainedVersions;
+        private ResolutionMode resolution;
 
         public Builder templateSheets(Collection<TemplateSheet> sheets) {
             this.templateSheets.clear();
@@ -64,8 +131,19 @@ public class ExcelTemplateProperties {
             return this;
         }
 
+        public Builder retainedVersions(int retainedVersions) {
+            this.retainedVersions = retainedVersions;
+            return this;
+        }
+
+        public Builder resolution(ResolutionMode resolution) {
+            this.resolution = resolution;
+            return this;
+        }
+
         public ExcelTemplateProperties build() {
-            return new ExcelTemplateProperties(this.templateSheets, this.instrumentTemplates);
+            return new ExcelTemplateProperties(this.templateSheets, this.instrumentTemplates, this.retainedVersions,
+                    this.resolution);
         }
     }
 }
@@ -0,0 +1,18 @@
+package com.db.dbcover.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "excel.upload")
+public class ExcelUploadProperties {
+
+    private int maxErrors = 1000;
+    private boolean parallel = false;
+    /**
+     * Worker threads used when {@code parallel} is enabled; {@code 0} means one per available core.
+     */
+    private int parallelism = 0;
+}
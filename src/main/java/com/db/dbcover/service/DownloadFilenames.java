@@ -0,0 +1,32 @@
+package com.db.dbcover.service;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * File names offered for downloaded workbooks and archives, stamped with the current date.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DownloadFilenames {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public static String template(String instrumentType) {
+        return String.format("%s_bulk_upload_%s.xlsx", instrumentType.toLowerCase(), today());
+    }
+
+    public static String export(String instrumentType) {
+        return String.format("%s_export_%s.xlsx", instrumentType.toLowerCase(), today());
+    }
+
+    public static String batch() {
+        return String.format("templates_bulk_upload_%s.zip", today());
+    }
+
+    private static String today() {
+        return LocalDate.now().format(DATE);
+    }
+}
@@ -1,56 +1,289 @@
 package com.db.dbcover.service;
 
+import com.db.dbcover.config.ExcelGeneratorProperties;
 import com.db.dbcover.config.ExcelTemplateProperties;
-import com.db.dbcover.service.sheet.SheetBuilder;
-import com.db.dbcover.service.sheet.SheetFormatter;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import com.db.dbcover.service.admission.GenerationCost;
+import com.db.dbcover.service.buffer.PooledBuffer;
+import com.db.dbcover.service.buffer.WorkbookBufferPool;
+import com.db.dbcover.service.cache.GenerationCoalescer;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.cache.RenderedWorkbookCache.CacheKey;
+import com.db.dbcover.service.metrics.GenerationMetrics;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.render.PoiWorkbookRenderer;
+import com.db.dbcover.service.render.RenderOptions;
+import com.db.dbcover.service.render.SheetPartCache;
+import com.db.dbcover.service.render.SheetRenderPool;
+import com.db.dbcover.service.render.StreamingWorkbookRenderer;
+import com.db.dbcover.service.render.WorkbookRenderer;
 import com.db.dbcover.template.ExcelTemplateDefinition;
-import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.TemplateContentHash;
+import com.db.dbcover.template.TemplateRegistry;
+import com.db.dbcover.template.TemplateSheetResolver;
 import lombok.RequiredArgsConstructor;
 
-import org.apache.poi.ss.usermodel.DataFormat;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class ExcelGeneratorService {
 
-    private static final int INITIAL_DATA_ROWS = 10000;
-
     private static final int HEADER_ROW = 0;
 
     private final ExcelTemplateProperties properties;
 
+    private final ExcelGeneratorProperties generatorProperties;
+
+    private final RenderedWorkbookCache workbookCache;
+
+    private final GenerationCoalescer coalescer;
+
+    private final SheetPartCache sheetPartCache;
+
+    private final SheetRenderPool sheetRenderPool;
+
+    private final WorkbookBufferPool bufferPool;
+
+    private final GenerationBulkhead bulkhead;
+
+    private final GenerationMetrics metrics;
+
     public byte[] generateTemplate(String instrumentType) throws IOException {
-        if (instrumentType == null || instrumentType.isBlank()) {
-            throw new IllegalArgumentException("instrumentType must be provided");
+        RenderPlan plan = resolvePlan(instrumentType);
+        return cachedOrRendered(instrumentType, plan);
+    }
+
+    /**
+     * Returns the workbook of a pinned {@linkplain #templateVersions template version}, which may
+     * be older than the current one.
+     *
+     * @throws IllegalArgumentException when the instrument type is unknown or the version is no longer retained
+     */
+    public byte[] generateTemplate(String instrumentType, String version) throws IOException {
+        return cachedOrRendered(instrumentType, pinnedPlan(instrumentType, version));
+    }
+
+    public void generateTemplate(String instrumentType, OutputStream outputStream) throws IOException {
+        generateTemplate(instrumentType, resolvePlan(instrumentType), outputStream);
+    }
+
+    /**
+     * Writes the workbook of a plan obtained from {@link #currentPlan}, so the response matches
+     * the version it was announced under even when the templates are reloaded meanwhile.
+     */
+    public void generateTemplate(String instrumentType, RenderPlan plan, OutputStream outputStream) throws IOException {
+        if (workbookCache.isEnabled()) {
+            outputStream.write(cachedOrRendered(instrumentType, plan));
+            return;
         }
-        ExcelTemplateDefinition templateDefinition = properties.resolvedInstrumentTemplates().get(instrumentType);
-        if (templateDefinition == null) {
-            throw new IllegalArgumentException("Unknown instrument type: " + instrumentType);
+        render(instrumentType, plan, outputStream);
+    }
+
+    /**
+     * Returns the workbook of {@code instrumentType} for responses that need its length up front.
+     * A cached workbook is wrapped as it is; otherwise the workbook is rendered into pooled chunks,
+     * which the caller hands back by closing the buffer once the content has been sent.
+     */
+    public PooledBuffer generateBuffered(String instrumentType) throws IOException {
+        return buffered(instrumentType, resolvePlan(instrumentType));
+    }
+
+    /**
+     * Buffered variant of {@link #generateTemplate(String, RenderPlan, OutputStream)}.
+     */
+    public PooledBuffer generateBuffered(String instrumentType, RenderPlan plan) throws IOException {
+        return buffered(instrumentType, plan);
+    }
+
+    /**
+     * Buffered variant of {@link #generateTemplate(String, String)}.
+     */
+    public PooledBuffer generateBuffered(String instrumentType, String version) throws IOException {
+        return buffered(instrumentType, pinnedPlan(instrumentType, version));
+    }
+
+    private PooledBuffer buffered(String instrumentType, RenderPlan plan) throws IOException {
+        if (workbookCache.isEnabled()) {
+            return PooledBuffer.wrap(cachedOrRendered(instrumentType, plan));
+        }
+        PooledBuffer buffer = bufferPool.newBuffer();
+        try {
+            render(instrumentType, plan, buffer);
+            return buffer;
+        } catch (IOException | RuntimeException ex) {
+            buffer.close();
+            throw ex;
         }
-        return generateTemplate(templateDefinition);
+    }
+
+    public List<String> instrumentTypes() {
+        return List.copyOf(properties.resolvedInstrumentTemplates().keySet());
+    }
+
+    public ExcelTemplateDefinition resolveTemplate(String instrumentType) {
+        return lookup(properties.resolvedInstrumentTemplates(), instrumentType);
+    }
+
+    /**
+     * Returns the render plan compiled for {@code instrumentType} when the templates were resolved.
+     */
+    public RenderPlan resolvePlan(String instrumentType) {
+        return lookup(properties.renderPlans(), instrumentType);
+    }
+
+    /**
+     * Returns the definition and the render plan of {@code instrumentType} from one snapshot, so a
+     * concurrent reload cannot pair the definition of one version with the plan of another.
+     */
+    public ResolvedTemplate resolveCurrent(String instrumentType) {
+        TemplateSheetResolver.ResolvedTemplates resolved = properties.snapshot().resolved();
+        return new ResolvedTemplate(lookup(resolved.instrumentTemplates(), instrumentType),
+                lookup(resolved.renderPlans(), instrumentType));
+    }
+
+    /**
+     * Returns a fingerprint of everything that decides the workbook served for
+     * {@code instrumentType}: the resolved template content and the generator settings that change
+     * the rendered layout. It changes whenever a request could receive a different workbook.
+     */
+    public String templateVersion(String instrumentType) {
+        return version(resolvePlan(instrumentType));
+    }
+
+    /**
+     * Returns the current render plan of {@code instrumentType} together with its
+     * {@linkplain #templateVersion version}, read once, so both describe the same workbook.
+     */
+    public VersionedPlan currentPlan(String instrumentType) {
+        RenderPlan plan = resolvePlan(instrumentType);
+        return new VersionedPlan(version(plan), plan);
+    }
+
+    /**
+     * Returns the versions of {@code instrumentType} that can still be pinned, newest (current)
+     * first.
+     */
+    public List<String> templateVersions(String instrumentType) {
+        return retainedPlans(instrumentType).stream().map(this::version).toList();
+    }
+
+    /**
+     * Returns the plan behind a retained version, or empty once it is no longer retained.
+     *
+     * @throws IllegalArgumentException when the instrument type is unknown
+     */
+    public Optional<RenderPlan> findPlan(String instrumentType, String version) {
+        return retainedPlans(instrumentType).stream()
+                .filter(plan -> version(plan).equals(version))
+                .findFirst();
+    }
+
+    private RenderPlan pinnedPlan(String instrumentType, String version) {
+        return findPlan(instrumentType, version).orElseThrow(() -> new IllegalArgumentException(
+                "Template version " + version + " of " + instrumentType + " is not available"));
+    }
+
+    private List<RenderPlan> retainedPlans(String instrumentType) {
+        TemplateRegistry.Snapshot snapshot = properties.snapshot();
+        lookup(snapshot.resolved().renderPlans(), instrumentType);
+        return snapshot.versions(instrumentType);
+    }
+
+    private String version(RenderPlan plan) {
+        return TemplateContentHash.of(List.of(
+                plan.contentHash(),
+                generatorProperties.getRenderer().name(),
+                generatorProperties.getDataRows().toString(),
+                generatorProperties.getColumnWidth().name(),
+                generatorProperties.getListValidation().name()));
     }
 
     public byte[] generateTemplate(ExcelTemplateDefinition templateDefinition) throws IOException {
+        return render(GenerationMetrics.CUSTOM_TEMPLATE, compile(templateDefinition));
+    }
+
+    public void generateTemplate(ExcelTemplateDefinition templateDefinition, OutputStream outputStream) throws IOException {
+        render(GenerationMetrics.CUSTOM_TEMPLATE, compile(templateDefinition), outputStream);
+    }
+
+    /**
+     * Concurrent callers for the same template version join one load, and the cache is consulted
+     * inside it, so a caller arriving after the load finished finds the stored workbook.
+     */
+    private byte[] cachedOrRendered(String instrumentType, RenderPlan plan) throws IOException {
+        CacheKey key = new CacheKey(instrumentType, plan.contentHash());
+        return coalescer.load(key, () -> workbookCache.getOrRender(key, () -> render(instrumentType, plan)));
+    }
+
+    /**
+     * Renders into pooled chunks and copies the result once into an array of exactly its size.
+     * The workbook cache stores heap arrays, so this copy is the cached value itself; the chunks
+     * only spare the growth copies of a {@code ByteArrayOutputStream}.
+     */
+    private byte[] render(String instrumentType, RenderPlan plan) throws IOException {
+        try (PooledBuffer buffer = bufferPool.newBuffer()) {
+            render(instrumentType, plan, buffer);
+            return buffer.toByteArray();
+        }
+    }
+
+    private void render(String instrumentType,
+                        RenderPlan plan,
+                        OutputStream outputStream) throws IOException {
+        long estimatedBytes = GenerationCost.estimateBytes(plan, generatorProperties.getRenderer());
+        try (GenerationBulkhead.Permit permit = bulkhead.acquire(estimatedBytes)) {
+            GenerationRecorder recorder = metrics.start(instrumentType);
+            long started = recorder.start();
+            renderer().render(plan, recorder.countOutput(outputStream), recorder);
+            recorder.completed(started);
+        }
+    }
+
+    private WorkbookRenderer renderer() {
+        RenderOptions options = new RenderOptions(HEADER_ROW, generatorProperties.getDataRows(),
+                generatorProperties.getColumnWidth(), generatorProperties.getListValidation());
+        return switch (generatorProperties.getRenderer()) {
+            case POI -> new PoiWorkbookRenderer(options);
+            case STREAMING -> new StreamingWorkbookRenderer(options, sheetPartCache, sheetRenderPool.executor());
+        };
+    }
+
+    private static RenderPlan compile(ExcelTemplateDefinition templateDefinition) {
         if (templateDefinition == null) {
             throw new IllegalArgumentException("templateDefinition must not be null");
         }
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            DataFormat dataFormat = workbook.createDataFormat();
-            SheetFormatter sheetFormatter = new SheetFormatter(workbook, dataFormat, HEADER_ROW, INITIAL_DATA_ROWS);
-            SheetBuilder sheetBuilder = new SheetBuilder(workbook, sheetFormatter, HEADER_ROW);
-            for (TemplateSheet sheetDefinition : templateDefinition.getSheets()) {
-                sheetBuilder.buildSheet(sheetDefinition);
-            }
+        return TemplateSheetResolver.compile(templateDefinition);
+    }
 
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+    private static <T> T lookup(Map<String, T> resolved, String instrumentType) {
+        if (instrumentType == null || instrumentType.isBlank()) {
+            throw new IllegalArgumentException("instrumentType must be provided");
+        }
+        T value = resolved.get(instrumentType);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown instrument type: " + instrumentType);
         }
+        return value;
     }
 
+
+    /**
+     * A resolved definition together with the render plan compiled from it.
+     */
+    public record ResolvedTemplate(ExcelTemplateDefinition definition, RenderPlan plan) {
+    }
+
+    /**
+     * A render plan together with the version its workbook is served under.
+     */
+    public record VersionedPlan(String version, RenderPlan plan) {
+    }
 }
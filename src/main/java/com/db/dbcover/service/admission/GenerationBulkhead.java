@@ -0,0 +1,158 @@
+package com.db.dbcover.service.admission;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control around workbook generation. Every generation reserves its
+ * {@linkplain GenerationCost estimated heap} from a shared budget of
+ * {@code excel.generator.bulkhead.max-memory}; callers that do not fit wait in arrival order for
+ * at most {@code timeout}, and once {@code max-queued} callers are waiting further ones are
+ * rejected immediately. A generation estimated above the whole budget is admitted alone.
+ */
+@Component
+public class GenerationBulkhead {
+
+    public static final String IN_FLIGHT = "excel.generation.bulkhead.in.flight";
+    public static final String QUEUED = "excel.generation.bulkhead.queued";
+    public static final String RESERVED = "excel.generation.bulkhead.reserved";
+    public static final String REJECTED = "excel.generation.bulkhead.rejected";
+
+    public static final String REASON_TAG = "reason";
+
+    private static final long KILOBYTE = 1024;
+    private static final Permit UNGUARDED = () -> {
+    };
+
+    private final boolean enabled;
+    private final int capacityKilobytes;
+    private final int maxQueued;
+    private final Duration timeout;
+    private final Semaphore budget;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final MeterRegistry registry;
+
+    @Autowired
+    public GenerationBulkhead(ExcelGeneratorProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties.getBulkhead(), meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public GenerationBulkhead(ExcelGeneratorProperties.Bulkhead settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        this.capacityKilobytes = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, settings.getMaxMemory().toBytes() / KILOBYTE));
+        this.maxQueued = settings.getMaxQueued();
+        this.timeout = settings.getTimeout();
+        this.budget = new Semaphore(capacityKilobytes, true);
+        this.registry = registry;
+
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("Generations currently holding bulkhead budget")
+                .register(registry);
+        Gauge.builder(QUEUED, queued, AtomicInteger::get)
+                .description("Generations waiting for bulkhead budget")
+                .register(registry);
+        Gauge.builder(RESERVED, this, GenerationBulkhead::reservedBytes)
+                .description("Estimated heap reserved by running generations")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Reserves budget for a generation estimated at {@code estimatedBytes}, waiting up to the
+     * configured timeout. The returned permit must be closed once the generation has finished.
+     *
+     * @throws GenerationRejectedException when the generation is not admitted
+     */
+    public Permit acquire(long estimatedBytes) {
+        if (!enabled) {
+            return UNGUARDED;
+        }
+        int kilobytes = (int) Math.max(1, Math.min(capacityKilobytes, (estimatedBytes + KILOBYTE - 1) / KILOBYTE));
+        try {
+            if (!budget.tryAcquire(kilobytes, 0, TimeUnit.NANOSECONDS)) {
+                awaitBudget(kilobytes);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted", "Interrupted while waiting for generation capacity", ex);
+        }
+        inFlight.incrementAndGet();
+        return new Reservation(kilobytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public long reservedBytes() {
+        return (long) (capacityKilobytes - budget.availablePermits()) * KILOBYTE;
+    }
+
+    private void awaitBudget(int kilobytes) throws InterruptedException {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject("queue_full", "Too many generations are waiting; try again later", null);
+        }
+        try {
+            if (!budget.tryAcquire(kilobytes, timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw reject("timeout", "No generation capacity became available within " + timeout, null);
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private GenerationRejectedException reject(String reason, String message, Throwable cause) {
+        registry.counter(REJECTED, REASON_TAG, reason).increment();
+        return new GenerationRejectedException(message, cause);
+    }
+
+    /**
+     * Budget held by one admitted generation.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final class Reservation implements Permit {
+
+        private final int kilobytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(int kilobytes) {
+            this.kilobytes = kilobytes;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                budget.release(kilobytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.db.dbcover.service.admission;
+
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.SheetPlan;
+import com.db.dbcover.template.TemplateSheetResolver;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estimates the heap a generation allocates from the shape of its resolved definition: a fixed
+ * workbook cost plus a cost per sheet, column and data validation. The weights are rounded from
+ * {@code GenerationBenchmark -prof gc} allocation per operation and land within about 25% of the
+ * measured values for the benchmark shapes.
+ * <p>
+ * The data-row extent is not part of the estimate: validations are stored as one range per
+ * column, so covering more rows does not allocate more.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class GenerationCost {
+
+    private static final long KILOBYTE = 1024;
+
+    private static final Weights POI = new Weights(1536 * KILOBYTE, 64 * KILOBYTE, 24 * KILOBYTE, 8 * KILOBYTE);
+    private static final Weights STREAMING = new Weights(128 * KILOBYTE, 24 * KILOBYTE, 2 * KILOBYTE, 1536);
+
+    public static long estimateBytes(ExcelTemplateDefinition templateDefinition, RendererType renderer) {
+        return estimateBytes(TemplateSheetResolver.compile(templateDefinition), renderer);
+    }
+
+    public static long estimateBytes(RenderPlan plan, RendererType renderer) {
+        Weights weights = renderer == RendererType.STREAMING ? STREAMING : POI;
+        long bytes = weights.workbook();
+        for (SheetPlan sheet : plan.sheets()) {
+            bytes += weights.sheet();
+            for (ColumnSpec column : sheet.columns()) {
+                bytes += weights.column() + weights.validation() * validationCount(column);
+            }
+        }
+        return bytes;
+    }
+
+    private static int validationCount(ColumnSpec column) {
+        int count = switch (column.type()) {
+            case LIST, BOOLEAN -> column.allowedValues().isEmpty() ? 0 : 1;
+            case DATE, NUMBER -> 1;
+            case TEXT -> 0;
+        };
+        if (column.hasTooltip()) {
+            count++;
+        }
+        return count;
+    }
+
+    private record Weights(long workbook, long sheet, long column, long validation) {
+    }
+}
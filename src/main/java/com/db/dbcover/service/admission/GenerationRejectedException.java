@@ -0,0 +1,16 @@
+package com.db.dbcover.service.admission;
+
+/**
+ * Thrown when a generation is not admitted by the {@link GenerationBulkhead}, either because too
+ * many callers are already waiting or because no budget became free within the timeout.
+ */
+public class GenerationRejectedException extends RuntimeException {
+
+    public GenerationRejectedException(String message) {
+        super(message);
+    }
+
+    public GenerationRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
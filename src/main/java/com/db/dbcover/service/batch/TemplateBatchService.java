@@ -0,0 +1,150 @@
+package com.db.dbcover.service.batch;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates the workbooks of several instrument types concurrently and writes them into one zip
+ * archive in completion order. At most {@code excel.generator.batch.parallelism} workbooks are
+ * generated or waiting to be written at a time, so memory stays bounded by that window rather
+ * than by the size of the batch. Each workbook goes through the regular generation path, including
+ * the workbook cache, request coalescing and the bulkhead.
+ */
+@Service
+public class TemplateBatchService implements DisposableBean {
+
+    /**
+     * Requested instrument type that selects every configured instrument template.
+     */
+    public static final String ALL = "all";
+
+    private final ExcelGeneratorService excelGeneratorService;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    public TemplateBatchService(ExcelGeneratorService excelGeneratorService, ExcelGeneratorProperties properties) {
+        this.excelGeneratorService = excelGeneratorService;
+        this.parallelism = resolveParallelism(properties.getBatch());
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    /**
+     * Expands {@link #ALL}, drops duplicates and checks that every instrument type is configured.
+     *
+     * @throws IllegalArgumentException when nothing is requested or a type is unknown
+     */
+    public List<String> resolveInstrumentTypes(Collection<String> requested) {
+        if (requested == null || requested.isEmpty()) {
+            throw new IllegalArgumentException("instrumentType must be provided");
+        }
+        Set<String> instrumentTypes = new LinkedHashSet<>();
+        for (String instrumentType : requested) {
+            if (ALL.equalsIgnoreCase(instrumentType)) {
+                instrumentTypes.addAll(excelGeneratorService.instrumentTypes());
+            } else {
+                excelGeneratorService.resolveTemplate(instrumentType);
+                instrumentTypes.add(instrumentType);
+            }
+        }
+        return List.copyOf(instrumentTypes);
+    }
+
+    /**
+     * Writes one zip entry per instrument type, named by {@code entryName}. Entries are stored
+     * uncompressed, because an xlsx workbook is already a deflated zip. The archive is finished
+     * but {@code outputStream} is left open.
+     */
+    public void writeZip(List<String> instrumentTypes,
+                         OutputStream outputStream,
+                         Function<String, String> entryName) throws IOException {
+        ExecutorCompletionService<GeneratedWorkbook> completion = new ExecutorCompletionService<>(pool);
+        List<Future<GeneratedWorkbook>> submitted = new ArrayList<>();
+        Iterator<String> pending = instrumentTypes.iterator();
+        try {
+            while (submitted.size() < parallelism && pending.hasNext()) {
+                submitted.add(submit(completion, pending.next()));
+            }
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+            for (int written = 0; written < instrumentTypes.size(); written++) {
+                GeneratedWorkbook workbook = take(completion);
+                if (pending.hasNext()) {
+                    submitted.add(submit(completion, pending.next()));
+                }
+                writeEntry(zip, entryName.apply(workbook.instrumentType()), workbook.content());
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            submitted.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<GeneratedWorkbook> submit(ExecutorCompletionService<GeneratedWorkbook> completion,
+                                             String instrumentType) {
+        return completion.submit(() ->
+                new GeneratedWorkbook(instrumentType, excelGeneratorService.generateTemplate(instrumentType)));
+    }
+
+    private static GeneratedWorkbook take(ExecutorCompletionService<GeneratedWorkbook> completion) throws IOException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating template batch");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            } else if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to generate template batch", cause);
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static int resolveParallelism(ExcelGeneratorProperties.Batch settings) {
+        int parallelism = settings.getParallelism();
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private record GeneratedWorkbook(String instrumentType, byte[] content) {
+    }
+}
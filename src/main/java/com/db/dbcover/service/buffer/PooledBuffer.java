@@ -0,0 +1,155 @@
+package com.db.dbcover.service.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream that collects written bytes in chunks borrowed from a {@link WorkbookBufferPool}.
+ * Once written, the content can be copied out exactly once with {@link #toByteArray()} or handed
+ * to a sink chunk by chunk through {@link #chunks()}. Closing the buffer returns its chunks to the
+ * pool, after which it must no longer be used.
+ */
+public final class PooledBuffer extends OutputStream {
+
+    private static final int TRANSFER_SIZE = 8192;
+
+    private final WorkbookBufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long size;
+    private boolean closed;
+
+    PooledBuffer(WorkbookBufferPool pool) {
+        this.pool = pool;
+    }
+
+    private PooledBuffer(byte[] content) {
+        this.pool = null;
+        this.current = ByteBuffer.wrap(content).position(content.length);
+        this.chunks.add(current);
+        this.size = content.length;
+    }
+
+    /**
+     * Presents already serialized content as a buffer without copying it; closing it is a no-op.
+     */
+    public static PooledBuffer wrap(byte[] content) {
+        return new PooledBuffer(content);
+    }
+
+    @Override
+    public void write(int b) {
+        writable().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            ByteBuffer chunk = writable();
+            int count = Math.min(len, chunk.remaining());
+            chunk.put(b, off, count);
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Views of the written chunks, each positioned at its first byte. The views share content
+     * with the buffer and must not be written to.
+     */
+    public List<ByteBuffer> chunks() {
+        ensureOpen();
+        List<ByteBuffer> views = new ArrayList<>(chunks.size());
+        for (ByteBuffer chunk : chunks) {
+            views.add(chunk.duplicate().flip());
+        }
+        return views;
+    }
+
+    public byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Buffer of " + size + " bytes does not fit into an array");
+        }
+        byte[] content = new byte[(int) size];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks()) {
+            int count = chunk.remaining();
+            chunk.get(content, offset, count);
+            offset += count;
+        }
+        return content;
+    }
+
+    /**
+     * Copies the content to {@code outputStream}; direct chunks go through a small transfer array.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        byte[] transfer = null;
+        for (ByteBuffer chunk : chunks()) {
+            if (chunk.hasArray()) {
+                outputStream.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                continue;
+            }
+            if (transfer == null) {
+                transfer = new byte[TRANSFER_SIZE];
+            }
+            while (chunk.hasRemaining()) {
+                int count = Math.min(transfer.length, chunk.remaining());
+                chunk.get(transfer, 0, count);
+                outputStream.write(transfer, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Writes the content to {@code channel}, which receives the chunks without an extra copy.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        for (ByteBuffer chunk : chunks()) {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pool != null) {
+            chunks.forEach(pool::release);
+        }
+        chunks.clear();
+        current = null;
+    }
+
+    private ByteBuffer writable() {
+        ensureOpen();
+        if (current == null || !current.hasRemaining()) {
+            if (pool == null) {
+                throw new IllegalStateException("Wrapped content cannot be appended to");
+            }
+            current = pool.acquire();
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Buffer has already been released");
+        }
+    }
+}
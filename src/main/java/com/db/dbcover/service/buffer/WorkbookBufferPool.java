@@ -0,0 +1,128 @@
+package com.db.dbcover.service.buffer;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size direct buffers that serialized workbooks are written into. Chunks are
+ * allocated lazily up to {@code excel.generator.buffers.max-pooled} and reused afterwards, so
+ * rendering neither grows and copies a heap array nor creates humongous objects. When every
+ * pooled chunk is borrowed, callers get a heap chunk instead, which is counted as a fallback and
+ * left to the garbage collector.
+ */
+@Component
+public class WorkbookBufferPool {
+
+    public static final String POOLED = "excel.generation.buffers.pooled";
+    public static final String IN_USE = "excel.generation.buffers.in.use";
+    public static final String FALLBACKS = "excel.generation.buffers.fallbacks";
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final Counter fallbacks;
+
+    @Autowired
+    public WorkbookBufferPool(ExcelGeneratorProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties.getBuffers(), meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public WorkbookBufferPool(ExcelGeneratorProperties.Buffers settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        this.chunkSize = (int) Math.min(Integer.MAX_VALUE, Math.max(1, settings.getChunkSize().toBytes()));
+        this.maxChunks = (int) Math.min(Integer.MAX_VALUE, settings.getMaxPooled().toBytes() / chunkSize);
+
+        Gauge.builder(POOLED, allocated, count -> (double) count.get() * chunkSize)
+                .description("Direct memory allocated by the workbook buffer pool")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(IN_USE, borrowed, count -> (double) count.get() * chunkSize)
+                .description("Pooled workbook buffers currently borrowed")
+                .baseUnit("bytes")
+                .register(registry);
+        this.fallbacks = Counter.builder(FALLBACKS)
+                .description("Heap chunks allocated because the workbook buffer pool was exhausted")
+                .register(registry);
+    }
+
+    /**
+     * Returns an empty stream backed by this pool; it must be closed to give its chunks back.
+     */
+    public PooledBuffer newBuffer() {
+        return new PooledBuffer(this);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public int pooledChunks() {
+        return allocated.get();
+    }
+
+    public int borrowedChunks() {
+        return borrowed.get();
+    }
+
+    public long fallbackCount() {
+        return (long) fallbacks.count();
+    }
+
+    ByteBuffer acquire() {
+        if (!enabled) {
+            return ByteBuffer.allocate(chunkSize);
+        }
+        ByteBuffer chunk = idle.poll();
+        if (chunk == null && reserve()) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+        }
+        if (chunk == null) {
+            fallbacks.increment();
+            return ByteBuffer.allocate(chunkSize);
+        }
+        borrowed.incrementAndGet();
+        return chunk;
+    }
+
+    /**
+     * Takes a chunk back; heap chunks never belonged to the pool and are dropped.
+     */
+    void release(ByteBuffer chunk) {
+        if (!chunk.isDirect()) {
+            return;
+        }
+        chunk.clear();
+        borrowed.decrementAndGet();
+        idle.offer(chunk);
+    }
+
+    private boolean reserve() {
+        while (true) {
+            int current = allocated.get();
+            if (current >= maxChunks) {
+                return false;
+            }
+            if (allocated.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
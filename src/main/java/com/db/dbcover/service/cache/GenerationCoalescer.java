@@ -0,0 +1,118 @@
+package com.db.dbcover.service.cache;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.cache.RenderedWorkbookCache.CacheKey;
+import com.db.dbcover.service.cache.RenderedWorkbookCache.Loader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight guard in front of workbook generation. Concurrent callers asking for the same
+ * instrument type and template content share one in-flight load: the first caller runs it and the
+ * others wait for its result, or its failure. Once the load has finished the key is released, so
+ * later callers go back to the {@link RenderedWorkbookCache} or start a new load.
+ */
+@Component
+public class GenerationCoalescer {
+
+    public static final String COALESCED = "excel.generation.coalesced";
+    public static final String IN_FLIGHT = "excel.generation.coalescing.in.flight";
+
+    public static final String INSTRUMENT_TYPE_TAG = "instrumentType";
+
+    private final boolean enabled;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<CacheKey, CompletableFuture<byte[]>> calls = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Autowired
+    public GenerationCoalescer(ExcelGeneratorProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties.getCoalescing().isEnabled(), meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public GenerationCoalescer(boolean enabled, MeterRegistry registry) {
+        this.enabled = enabled;
+        this.registry = registry;
+
+        Gauge.builder(IN_FLIGHT, calls, ConcurrentMap::size)
+                .description("Distinct workbook loads that callers can currently join")
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code loader} for {@code key}, or waits for the load another caller already started
+     * for the same key. The returned array is shared between callers and must not be modified.
+     */
+    public byte[] load(CacheKey key, Loader loader) throws IOException {
+        if (!enabled) {
+            return loader.load();
+        }
+        CompletableFuture<byte[]> call = new CompletableFuture<>();
+        CompletableFuture<byte[]> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            coalesced.increment();
+            Counter.builder(COALESCED)
+                    .description("Callers that joined a generation already in flight")
+                    .tag(INSTRUMENT_TYPE_TAG, key.instrumentType())
+                    .register(registry)
+                    .increment();
+            return await(inFlight);
+        }
+        try {
+            byte[] loaded = loader.load();
+            call.complete(loaded);
+            return loaded;
+        } catch (IOException | RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int inFlightCount() {
+        return calls.size();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> inFlight) throws IOException {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an in-flight generation");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
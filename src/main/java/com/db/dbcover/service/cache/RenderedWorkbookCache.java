@@ -0,0 +1,90 @@
+package com.db.dbcover.service.cache;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded LRU cache of serialized workbooks. Entries are evicted in least-recently-used order
+ * once either the entry count or the total byte size exceeds the configured limits. Returned
+ * arrays are shared between callers and must not be modified.
+ */
+@Component
+public class RenderedWorkbookCache {
+
+    private final boolean enabled;
+    private final BoundedLruCache<CacheKey, byte[]> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RenderedWorkbookCache(ExcelGeneratorProperties properties) {
+        ExcelGeneratorProperties.Cache settings = properties.getCache();
+        this.enabled = settings.isEnabled();
+        this.entries = new BoundedLruCache<>(settings.getMaxEntries(), settings.getMaxSize().toBytes(),
+                content -> content.length);
+    }
+
+    public byte[] getOrRender(CacheKey key, Loader loader) throws IOException {
+        if (!enabled) {
+            return loader.load();
+        }
+        byte[] cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        byte[] rendered = loader.load();
+        entries.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * Drops the workbooks whose key matches {@code filter}.
+     *
+     * @return the number of removed entries
+     */
+    public int invalidate(Predicate<CacheKey> filter) {
+        return entries.removeIf(filter);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long sizeInBytes() {
+        return entries.weight();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return entries.evictionCount();
+    }
+
+    public record CacheKey(String instrumentType, String contentHash) {
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        byte[] load() throws IOException;
+    }
+}
@@ -0,0 +1,54 @@
+package com.db.dbcover.service.cache;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.reload.TemplatesReloadedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RenderedWorkbookCacheWarmer {
+
+    private final ExcelGeneratorProperties generatorProperties;
+    private final ExcelTemplateProperties templateProperties;
+    private final ExcelGeneratorService excelGeneratorService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        prewarm(templateProperties.resolvedInstrumentTemplates().keySet());
+    }
+
+    /**
+     * Renders the changed instrument templates again right after a reload, so the first request
+     * after an edit does not pay for generation.
+     */
+    @EventListener
+    public void rewarm(TemplatesReloadedEvent event) {
+        prewarm(event.affectedInstrumentTypes().stream()
+                .filter(templateProperties.resolvedInstrumentTemplates()::containsKey)
+                .toList());
+    }
+
+    private void prewarm(Collection<String> instrumentTypes) {
+        ExcelGeneratorProperties.Cache settings = generatorProperties.getCache();
+        if (!settings.isEnabled() || !settings.isPrewarm()) {
+            return;
+        }
+        for (String instrumentType : instrumentTypes) {
+            try {
+                excelGeneratorService.generateTemplate(instrumentType);
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Failed to prewarm workbook cache for instrument type {}", instrumentType, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row source backed by lists of maps keyed by column header; meant for tests and for callers
+ * that already hold the rows.
+ */
+public class InMemoryRowSource implements RowSource {
+
+    private final Map<String, Map<String, List<Map<String, ?>>>> rows = new ConcurrentHashMap<>();
+
+    public InMemoryRowSource put(String instrumentType, String sheetName, List<? extends Map<String, ?>> sheetRows) {
+        rows.computeIfAbsent(instrumentType, key -> new ConcurrentHashMap<>()).put(sheetName, List.copyOf(sheetRows));
+        return this;
+    }
+
+    @Override
+    public void readRows(String instrumentType, TemplateSheet sheet, RowHandler handler) throws IOException {
+        List<Map<String, ?>> sheetRows = rows.getOrDefault(instrumentType, Map.of()).getOrDefault(sheet.getName(), List.of());
+        for (Map<String, ?> row : sheetRows) {
+            handler.row(row::get);
+        }
+    }
+}
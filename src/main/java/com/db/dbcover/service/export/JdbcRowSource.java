@@ -0,0 +1,87 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads export rows with one configured query per instrument type and sheet
+ * ({@code excel.export.jdbc.queries.<instrumentType>.<sheet>}). Result columns are matched to
+ * template columns by label, ignoring case, so a query selects {@code ... AS "INSTRUMENT_ID"}.
+ * Results are read forward-only with {@code fetch-size} rows per round trip, inside a read-only
+ * transaction so that drivers such as PostgreSQL use a server-side cursor.
+ */
+public class JdbcRowSource implements RowSource {
+
+    private final DataSource dataSource;
+    private final ExcelExportProperties.Jdbc settings;
+
+    public JdbcRowSource(DataSource dataSource, ExcelExportProperties.Jdbc settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+    }
+
+    @Override
+    public void readRows(String instrumentType, TemplateSheet sheet, RowHandler handler) throws IOException {
+        String query = settings.getQueries().getOrDefault(instrumentType, Map.of()).get(sheet.getName());
+        if (query == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            boolean readOnly = connection.isReadOnly();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(settings.getFetchSize());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    Map<String, Integer> columnIndexes = columnIndexes(resultSet.getMetaData(), sheet);
+                    int columnCount = resultSet.getMetaData().getColumnCount();
+                    while (resultSet.next()) {
+                        Object[] row = new Object[columnCount + 1];
+                        for (int index : columnIndexes.values()) {
+                            row[index] = resultSet.getObject(index);
+                        }
+                        handler.row(header -> {
+                            Integer index = columnIndexes.get(header);
+                            return index == null ? null : row[index];
+                        });
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+                connection.setReadOnly(readOnly);
+            }
+        } catch (SQLException ex) {
+            throw new IOException("Failed to read " + sheet.getName() + " rows of " + instrumentType, ex);
+        }
+    }
+
+    private static Map<String, Integer> columnIndexes(ResultSetMetaData metaData, TemplateSheet sheet) throws SQLException {
+        Map<String, Integer> byLabel = new HashMap<>();
+        for (int index = 1; index <= metaData.getColumnCount(); index++) {
+            byLabel.put(metaData.getColumnLabel(index).toUpperCase(Locale.ROOT), index);
+        }
+        Map<String, Integer> byHeader = new HashMap<>();
+        for (Column column : sheet.getColumns()) {
+            Integer index = byLabel.get(column.getHeader().toUpperCase(Locale.ROOT));
+            if (index != null) {
+                byHeader.put(column.getHeader(), index);
+            }
+        }
+        return byHeader;
+    }
+}
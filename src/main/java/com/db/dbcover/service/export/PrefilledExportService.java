@@ -0,0 +1,198 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import com.db.dbcover.service.admission.GenerationCost;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.service.sheet.SheetBuilder;
+import com.db.dbcover.service.sheet.SheetFormatter;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.RowExtent;
+import com.db.dbcover.template.SheetPlan;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes instrument templates prefilled with existing rows from a {@link RowSource}. The template
+ * part (styles, header, validations, lookup lists, freeze pane and filter) is built with the
+ * regular {@link SheetBuilder} on an {@link XSSFWorkbook}, which is then wrapped in an
+ * {@link SXSSFWorkbook}: data rows are appended below the header and only the last
+ * {@code excel.export.row-window} rows of each sheet stay in memory, so memory use does not depend
+ * on the number of exported rows.
+ * <p>
+ * Validations and tooltips of an export always cover entire columns, because the row count is
+ * only known once the rows have been written.
+ */
+@Service
+public class PrefilledExportService {
+
+    private static final int HEADER_ROW = 0;
+    private static final int LAST_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    private final ExcelGeneratorService excelGeneratorService;
+    private final ExcelGeneratorProperties generatorProperties;
+    private final ExcelExportProperties exportProperties;
+    private final GenerationBulkhead bulkhead;
+    private final RowSource rowSource;
+
+    @Autowired
+    public PrefilledExportService(ExcelGeneratorService excelGeneratorService,
+                                  ExcelGeneratorProperties generatorProperties,
+                                  ExcelExportProperties exportProperties,
+                                  GenerationBulkhead bulkhead,
+                                  ObjectProvider<RowSource> rowSources,
+                                  ObjectProvider<DataSource> dataSources) {
+        this(excelGeneratorService, generatorProperties, exportProperties, bulkhead,
+                resolveRowSource(exportProperties, rowSources, dataSources));
+    }
+
+    public PrefilledExportService(ExcelGeneratorService excelGeneratorService,
+                                  ExcelGeneratorProperties generatorProperties,
+                                  ExcelExportProperties exportProperties,
+                                  GenerationBulkhead bulkhead,
+                                  RowSource rowSource) {
+        this.excelGeneratorService = excelGeneratorService;
+        this.generatorProperties = generatorProperties;
+        this.exportProperties = exportProperties;
+        this.bulkhead = bulkhead;
+        this.rowSource = rowSource;
+    }
+
+    /**
+     * Returns whether a row source is configured; without one exports are not supported.
+     */
+    public boolean isAvailable() {
+        return rowSource != null;
+    }
+
+    public void export(String instrumentType, OutputStream outputStream) throws IOException {
+        if (rowSource == null) {
+            throw new IllegalStateException("No export row source is configured");
+        }
+        ExcelGeneratorService.ResolvedTemplate resolved = excelGeneratorService.resolveCurrent(instrumentType);
+        ExcelTemplateDefinition templateDefinition = resolved.definition();
+        RenderPlan plan = resolved.plan();
+        long estimatedBytes = GenerationCost.estimateBytes(plan, RendererType.POI);
+        try (GenerationBulkhead.Permit permit = bulkhead.acquire(estimatedBytes)) {
+            XSSFWorkbook template = buildTemplate(plan);
+            SXSSFWorkbook workbook = new SXSSFWorkbook(template, exportProperties.getRowWindow(),
+                    exportProperties.isCompressTempFiles());
+            try {
+                List<TemplateSheet> sheetDefinitions = templateDefinition.getSheets();
+                for (int sheetIndex = 0; sheetIndex < sheetDefinitions.size(); sheetIndex++) {
+                    SheetPlan sheetPlan = plan.sheets().get(sheetIndex);
+                    writeRows(instrumentType, sheetDefinitions.get(sheetIndex), sheetPlan,
+                            template.getSheet(sheetPlan.name()),
+                            workbook.getSheet(sheetPlan.name()));
+                }
+                workbook.write(outputStream);
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+
+    private XSSFWorkbook buildTemplate(RenderPlan plan) {
+        XSSFWorkbook template = new XSSFWorkbook();
+        SheetFormatter formatter = new SheetFormatter(template, template.createDataFormat(), HEADER_ROW,
+                RowExtent.ENTIRE_COLUMN, generatorProperties.getColumnWidth(), generatorProperties.getListValidation());
+        SheetBuilder builder = new SheetBuilder(template, formatter, HEADER_ROW, GenerationRecorder.NOOP);
+        for (SheetPlan sheetPlan : plan.sheets()) {
+            builder.buildSheet(sheetPlan, RowExtent.ENTIRE_COLUMN);
+        }
+        formatter.finalizeWorkbook();
+        return template;
+    }
+
+    /**
+     * Appends the source rows below the header. Cells take the column's default style explicitly,
+     * because written cells do not inherit it and would otherwise be locked on the protected sheet.
+     */
+    private void writeRows(String instrumentType,
+                           TemplateSheet sheetDefinition,
+                           SheetPlan sheetPlan,
+                           XSSFSheet templateSheet,
+                           Sheet sheet) throws IOException {
+        List<ColumnSpec> columns = sheetPlan.columns();
+        CellStyle[] styles = new CellStyle[columns.size()];
+        for (int columnIndex = 0; columnIndex < styles.length; columnIndex++) {
+            styles[columnIndex] = templateSheet.getColumnStyle(columnIndex);
+        }
+        int[] nextRow = {HEADER_ROW + 1};
+        rowSource.readRows(instrumentType, sheetDefinition, values -> {
+            if (nextRow[0] > LAST_ROW_INDEX) {
+                throw new IOException("Sheet " + sheetPlan.name() + " of " + instrumentType
+                        + " has more rows than an Excel sheet can hold");
+            }
+            Row row = sheet.createRow(nextRow[0]++);
+            for (int columnIndex = 0; columnIndex < styles.length; columnIndex++) {
+                ColumnSpec column = columns.get(columnIndex);
+                Object value = values.get(column.header());
+                if (value != null) {
+                    Cell cell = row.createCell(columnIndex);
+                    cell.setCellStyle(styles[columnIndex]);
+                    setValue(cell, column, value);
+                }
+            }
+        });
+    }
+
+    private static void setValue(Cell cell, ColumnSpec column, Object value) {
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Boolean flag && column.type() == ColumnType.BOOLEAN) {
+            cell.setCellValue(flag ? "YES" : "NO");
+        } else if (value instanceof java.sql.Timestamp timestamp) {
+            cell.setCellValue(timestamp.toLocalDateTime());
+        } else if (value instanceof java.sql.Date date) {
+            cell.setCellValue(date.toLocalDate());
+        } else if (value instanceof LocalDate date) {
+            cell.setCellValue(date);
+        } else if (value instanceof LocalDateTime dateTime) {
+            cell.setCellValue(dateTime);
+        } else if (value instanceof Date date) {
+            cell.setCellValue(date);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    private static RowSource resolveRowSource(ExcelExportProperties exportProperties,
+                                              ObjectProvider<RowSource> rowSources,
+                                              ObjectProvider<DataSource> dataSources) {
+        RowSource configured = rowSources.getIfAvailable();
+        if (configured != null) {
+            return configured;
+        }
+        DataSource dataSource = dataSources.getIfAvailable();
+        if (dataSource != null && !exportProperties.getJdbc().getQueries().isEmpty()) {
+            return new JdbcRowSource(dataSource, exportProperties.getJdbc());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+
+import java.io.IOException;
+
+/**
+ * Supplies the existing rows that a prefilled export writes below the header of each template
+ * sheet. Rows are pushed to a {@link RowHandler} one at a time, so an implementation can stream
+ * them from a cursor without holding the whole sheet in memory.
+ */
+public interface RowSource {
+
+    /**
+     * Streams the rows of {@code sheet} for {@code instrumentType} to {@code handler}, in the
+     * order they should appear. Sheets without data produce no rows.
+     */
+    void readRows(String instrumentType, TemplateSheet sheet, RowHandler handler) throws IOException;
+
+    /**
+     * Values of one row, looked up by column header.
+     */
+    @FunctionalInterface
+    interface RowValues {
+
+        /**
+         * Returns the value for the column with {@code header}, or {@code null} when the row has none.
+         */
+        Object get(String header);
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+
+        void row(RowValues values) throws IOException;
+    }
+}
@@ -0,0 +1,352 @@
+package com.db.dbcover.service.job;
+
+import com.db.dbcover.config.ExcelJobProperties;
+import com.db.dbcover.service.DownloadFilenames;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.admission.GenerationRejectedException;
+import com.db.dbcover.service.batch.TemplateBatchService;
+import com.db.dbcover.service.export.PrefilledExportService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs template, export and batch generations in the background and spools their output to
+ * files, so large workbooks neither hold a request open nor occupy heap once written. At most
+ * {@code excel.jobs.parallelism} jobs run at a time and {@code max-queued} wait; further
+ * submissions are rejected. Finished jobs are kept for {@code ttl}, and when their artifacts
+ * exceed {@code max-disk} in total the oldest are evicted first. The quota is applied before a
+ * job is reported as succeeded. An evicted artifact that is still being downloaded is deleted on
+ * the first sweep at least {@code sweep-interval} after its last download closed, because a
+ * sendfile transfer opens the file only after the request has completed. Job records live in
+ * memory, so artifacts of a previous run are deleted on startup.
+ */
+@Service
+public class GenerationJobService implements DisposableBean {
+
+    private static final String FILE_PREFIX = "job-";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int WRITE_BUFFER = 64 * 1024;
+    private static final String APPLICATION_ZIP = "application/zip";
+
+    private final ExcelGeneratorService excelGeneratorService;
+    private final PrefilledExportService prefilledExportService;
+    private final TemplateBatchService templateBatchService;
+    private final ExcelJobProperties properties;
+    private final Clock clock;
+
+    private final Path directory;
+    private final boolean ownsDirectory;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<Path, Instant> releasedOrphans = new HashMap<>();
+
+    @Autowired
+    public GenerationJobService(ExcelGeneratorService excelGeneratorService,
+                                PrefilledExportService prefilledExportService,
+                                TemplateBatchService templateBatchService,
+                                ExcelJobProperties properties) throws IOException {
+        this(excelGeneratorService, prefilledExportService, templateBatchService, properties, Clock.systemUTC());
+    }
+
+    public GenerationJobService(ExcelGeneratorService excelGeneratorService,
+                                PrefilledExportService prefilledExportService,
+                                TemplateBatchService templateBatchService,
+                                ExcelJobProperties properties,
+                                Clock clock) throws IOException {
+        this.excelGeneratorService = excelGeneratorService;
+        this.prefilledExportService = prefilledExportService;
+        this.templateBatchService = templateBatchService;
+        this.properties = properties;
+        this.clock = clock;
+
+        this.ownsDirectory = properties.getDirectory() == null || properties.getDirectory().isBlank();
+        this.directory = ownsDirectory
+                ? Files.createTempDirectory("excel-jobs-")
+                : Files.createDirectories(Path.of(properties.getDirectory()));
+        deleteArtifacts();
+
+        this.workers = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, properties.getMaxQueued())),
+                daemonThreads("excel-job-"));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(daemonThreads("excel-job-sweeper-"));
+        long sweepMillis = properties.getSweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        jobs.clear();
+        deleteArtifacts();
+        if (ownsDirectory) {
+            deleteQuietly(directory);
+        }
+    }
+
+    /**
+     * Validates the request and queues the job.
+     *
+     * @throws IllegalArgumentException      when the instrument types are missing or unknown
+     * @throws UnsupportedOperationException for exports when no row source is configured
+     * @throws GenerationRejectedException   when the job queue is full
+     */
+    public JobStatus submit(JobType type, List<String> instrumentTypes) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must be provided");
+        }
+        List<String> resolved = resolveInstrumentTypes(type, instrumentTypes);
+        Job job = new Job(UUID.randomUUID().toString(), type, resolved, clock.instant());
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id);
+            throw new GenerationRejectedException("Job queue is full", ex);
+        }
+        return job.status();
+    }
+
+    public Optional<JobStatus> status(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::status);
+    }
+
+    /**
+     * Returns the artifact of a succeeded job; empty for unknown, evicted or unfinished jobs.
+     */
+    public Optional<JobArtifact> artifact(String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.state != JobState.SUCCEEDED) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(job.artifact);
+    }
+
+    /**
+     * Opens a download of the artifact of a succeeded job; empty for unknown, evicted or
+     * unfinished jobs. The file stays on disk until the returned download is closed.
+     */
+    public synchronized Optional<JobDownload> openDownload(String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.state != JobState.SUCCEEDED || job.artifact == null) {
+            return Optional.empty();
+        }
+        job.openDownloads++;
+        return Optional.of(new JobDownload(job.artifact, () -> closeDownload(job)));
+    }
+
+    /**
+     * Evicts finished jobs older than the TTL and deletes evicted artifacts whose downloads have
+     * closed; runs every {@code sweep-interval}.
+     */
+    public synchronized void evictExpired() {
+        Instant now = clock.instant();
+        Instant expiredBefore = now.minus(properties.getTtl());
+        for (Job job : List.copyOf(jobs.values())) {
+            if (job.state.isFinished() && job.finishedAt.isBefore(expiredBefore)) {
+                evict(job);
+            }
+        }
+        Instant releasedBefore = now.minus(properties.getSweepInterval());
+        releasedOrphans.entrySet().removeIf(orphan -> {
+            if (orphan.getValue().isAfter(releasedBefore)) {
+                return false;
+            }
+            deleteQuietly(orphan.getKey());
+            return true;
+        });
+    }
+
+    private List<String> resolveInstrumentTypes(JobType type, List<String> instrumentTypes) {
+        if (type == JobType.BATCH) {
+            return templateBatchService.resolveInstrumentTypes(instrumentTypes);
+        }
+        if (instrumentTypes == null || instrumentTypes.size() != 1) {
+            throw new IllegalArgumentException(type + " jobs need exactly one instrumentType");
+        }
+        if (type == JobType.EXPORT && !prefilledExportService.isAvailable()) {
+            throw new UnsupportedOperationException("No export row source is configured");
+        }
+        excelGeneratorService.resolveTemplate(instrumentTypes.get(0));
+        return List.copyOf(instrumentTypes);
+    }
+
+    private void run(Job job) {
+        job.state = JobState.RUNNING;
+        Path partial = directory.resolve(FILE_PREFIX + job.id + PARTIAL_SUFFIX);
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partial), WRITE_BUFFER)) {
+                write(job, outputStream);
+            }
+            Path file = directory.resolve(FILE_PREFIX + job.id + extension(job.type));
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            publish(job, new JobArtifact(file, filename(job), contentType(job.type), Files.size(file)));
+        } catch (Exception ex) {
+            deleteQuietly(partial);
+            job.error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            job.finish(JobState.FAILED, clock.instant());
+        }
+    }
+
+    private void write(Job job, OutputStream outputStream) throws IOException {
+        String instrumentType = job.instrumentTypes.get(0);
+        switch (job.type) {
+            case TEMPLATE -> excelGeneratorService.generateTemplate(instrumentType, outputStream);
+            case EXPORT -> prefilledExportService.export(instrumentType, outputStream);
+            case BATCH -> templateBatchService.writeZip(job.instrumentTypes, outputStream, DownloadFilenames::template);
+        }
+    }
+
+    /**
+     * Makes room for {@code artifact} within {@code max-disk} by evicting the oldest succeeded
+     * jobs, then reports the job as succeeded. An artifact that alone exceeds the quota is
+     * deleted and fails the job without evicting anything.
+     */
+    private synchronized void publish(Job finished, JobArtifact artifact) {
+        long maxBytes = properties.getMaxDisk().toBytes();
+        if (artifact.size() > maxBytes) {
+            deleteQuietly(artifact.file());
+            throw new IllegalStateException("Artifact of " + artifact.size() + " bytes exceeds the job disk quota");
+        }
+        List<Job> kept = jobs.values().stream()
+                .filter(job -> job.state == JobState.SUCCEEDED)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .toList();
+        long total = artifact.size() + kept.stream().mapToLong(job -> job.artifact.size()).sum();
+        for (Job job : kept) {
+            if (total <= maxBytes) {
+                break;
+            }
+            total -= job.artifact.size();
+            evict(job);
+        }
+        finished.artifact = artifact;
+        finished.finish(JobState.SUCCEEDED, clock.instant());
+    }
+
+    private synchronized void evict(Job job) {
+        if (jobs.remove(job.id, job) && job.artifact != null) {
+            job.evicted = true;
+            if (job.openDownloads == 0) {
+                deleteQuietly(job.artifact.file());
+            }
+        }
+    }
+
+    private synchronized void closeDownload(Job job) {
+        job.openDownloads--;
+        if (job.evicted && job.openDownloads == 0) {
+            releasedOrphans.put(job.artifact.file(), clock.instant());
+        }
+    }
+
+    private void deleteArtifacts() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            files.forEach(GenerationJobService::deleteQuietly);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to clean job directory " + directory, ex);
+        }
+    }
+
+    private static String filename(Job job) {
+        String instrumentType = job.instrumentTypes.get(0);
+        return switch (job.type) {
+            case TEMPLATE -> DownloadFilenames.template(instrumentType);
+            case EXPORT -> DownloadFilenames.export(instrumentType);
+            case BATCH -> DownloadFilenames.batch();
+        };
+    }
+
+    private static String extension(JobType type) {
+        return type == JobType.BATCH ? ".zip" : ".xlsx";
+    }
+
+    private static String contentType(JobType type) {
+        return type == JobType.BATCH ? APPLICATION_ZIP : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // left for the next startup or the OS temp cleanup
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final JobType type;
+        private final List<String> instrumentTypes;
+        private final Instant submittedAt;
+
+        private volatile JobState state = JobState.QUEUED;
+        private volatile Instant finishedAt;
+        private volatile JobArtifact artifact;
+        private volatile String error;
+        // guarded by the service
+        private int openDownloads;
+        private boolean evicted;
+
+        private Job(String id, JobType type, List<String> instrumentTypes, Instant submittedAt) {
+            this.id = id;
+            this.type = type;
+            this.instrumentTypes = instrumentTypes;
+            this.submittedAt = submittedAt;
+        }
+
+        private void finish(JobState finalState, Instant at) {
+            finishedAt = at;
+            state = finalState;
+        }
+
+        private JobStatus status() {
+            JobArtifact current = artifact;
+            return new JobStatus(id, type, instrumentTypes, state, submittedAt, finishedAt,
+                    current != null ? current.size() : null, error);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.db.dbcover.service.job;
+
+import java.nio.file.Path;
+
+/**
+ * Finished job output on disk, with the name and media type it is downloaded under.
+ */
+public record JobArtifact(Path file, String filename, String contentType, long size) {
+}
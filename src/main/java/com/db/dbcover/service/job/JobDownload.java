@@ -0,0 +1,30 @@
+package com.db.dbcover.service.job;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An open download of a job artifact. While it is open, the artifact file is not deleted, even
+ * if the job expires or is evicted for the disk quota; close it once the response is complete.
+ */
+public final class JobDownload implements AutoCloseable {
+
+    private final JobArtifact artifact;
+    private final Runnable onClose;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public JobDownload(JobArtifact artifact, Runnable onClose) {
+        this.artifact = artifact;
+        this.onClose = onClose;
+    }
+
+    public JobArtifact artifact() {
+        return artifact;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.db.dbcover.service.job;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of a generation job as reported to clients. {@code sizeBytes} is set once the
+ * artifact is written, {@code error} only for failed jobs.
+ */
+public record JobStatus(String id,
+                        JobType type,
+                        List<String> instrumentTypes,
+                        JobState state,
+                        Instant submittedAt,
+                        Instant finishedAt,
+                        Long sizeBytes,
+                        String error) {
+}
@@ -0,0 +1,19 @@
+package com.db.dbcover.service.job;
+
+/**
+ * What a generation job produces.
+ */
+public enum JobType {
+    /**
+     * Empty template of one instrument type.
+     */
+    TEMPLATE,
+    /**
+     * Template of one instrument type prefilled from the export row source.
+     */
+    EXPORT,
+    /**
+     * Zip archive with the templates of several instrument types.
+     */
+    BATCH
+}
@@ -0,0 +1,61 @@
+package com.db.dbcover.service.metrics;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entry point for generation metrics. Each generation obtains its own {@link GenerationRecorder};
+ * when metrics are disabled that recorder is a shared no-op.
+ */
+@Component
+public class GenerationMetrics {
+
+    public static final String GENERATION = "excel.generation";
+    public static final String PHASE = "excel.generation.phase";
+    public static final String OUTPUT_SIZE = "excel.generation.output.size";
+    public static final String SHEETS = "excel.generation.sheets";
+    public static final String COLUMNS = "excel.generation.columns";
+    public static final String VALIDATIONS = "excel.generation.validations";
+    public static final String CELL_STYLES = "excel.generation.cell.styles";
+
+    public static final String INSTRUMENT_TYPE_TAG = "instrumentType";
+    public static final String PHASE_TAG = "phase";
+
+    /**
+     * Tag value used for definitions that are not looked up by instrument type.
+     */
+    public static final String CUSTOM_TEMPLATE = "custom";
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+
+    @Autowired
+    public GenerationMetrics(ObjectProvider<MeterRegistry> meterRegistry, ExcelGeneratorProperties properties) {
+        this(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), properties.getMetrics().isEnabled());
+    }
+
+    public GenerationMetrics(MeterRegistry registry) {
+        this(registry, true);
+    }
+
+    public GenerationMetrics(MeterRegistry registry, boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    public GenerationRecorder start(String instrumentType) {
+        return enabled ? new MeterGenerationRecorder(registry, instrumentType) : GenerationRecorder.NOOP;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+}
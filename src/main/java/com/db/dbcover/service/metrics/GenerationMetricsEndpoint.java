@@ -0,0 +1,98 @@
+package com.db.dbcover.service.metrics;
+
+import com.db.dbcover.service.cache.GenerationCoalescer;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.render.SheetPartCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator view over the generation meters, grouped per instrument type, so the cost of each
+ * template and the phase it is spent in can be read without a metrics backend.
+ */
+@Component
+@Endpoint(id = "excelgeneration")
+@RequiredArgsConstructor
+public class GenerationMetricsEndpoint {
+
+    private final GenerationMetrics metrics;
+    private final RenderedWorkbookCache workbookCache;
+    private final SheetPartCache sheetPartCache;
+
+    @ReadOperation
+    public GenerationSummary summary() {
+        MeterRegistry registry = metrics.registry();
+        Map<String, TemplateStats> templates = new TreeMap<>();
+        for (Timer timer : registry.find(GenerationMetrics.GENERATION).timers()) {
+            String instrumentType = timer.getId().getTag(GenerationMetrics.INSTRUMENT_TYPE_TAG);
+            templates.put(instrumentType, templateStats(registry, instrumentType, timer));
+        }
+        CacheStats cache = new CacheStats(workbookCache.isEnabled(), workbookCache.size(),
+                workbookCache.sizeInBytes(), workbookCache.hitCount(), workbookCache.missCount(),
+                workbookCache.evictionCount());
+        CacheStats sheetParts = new CacheStats(sheetPartCache.isEnabled(), sheetPartCache.size(),
+                sheetPartCache.sizeInBytes(), sheetPartCache.hitCount(), sheetPartCache.missCount(),
+                sheetPartCache.evictionCount());
+        return new GenerationSummary(metrics.isEnabled(), cache, sheetParts, templates);
+    }
+
+    private static TemplateStats templateStats(MeterRegistry registry, String instrumentType, Timer total) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        for (GenerationPhase phase : GenerationPhase.values()) {
+            Timer timer = registry.find(GenerationMetrics.PHASE)
+                    .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                    .tag(GenerationMetrics.PHASE_TAG, phase.name())
+                    .timer();
+            phases.put(phase.name(), timer == null ? 0 : timer.mean(TimeUnit.MILLISECONDS));
+        }
+        DistributionSummary outputSize = registry.find(GenerationMetrics.OUTPUT_SIZE)
+                .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                .summary();
+        return new TemplateStats(
+                total.count(),
+                total.mean(TimeUnit.MILLISECONDS),
+                total.max(TimeUnit.MILLISECONDS),
+                phases,
+                outputSize == null ? 0 : outputSize.mean(),
+                count(registry, GenerationMetrics.SHEETS, instrumentType),
+                count(registry, GenerationMetrics.COLUMNS, instrumentType),
+                count(registry, GenerationMetrics.VALIDATIONS, instrumentType),
+                count(registry, GenerationCoalescer.COALESCED, instrumentType));
+    }
+
+    private static long count(MeterRegistry registry, String name, String instrumentType) {
+        Counter counter = registry.find(name).tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    public record GenerationSummary(boolean metricsEnabled,
+                                    CacheStats cache,
+                                    CacheStats sheetParts,
+                                    Map<String, TemplateStats> templates) {
+    }
+
+    public record CacheStats(boolean enabled, int entries, long bytes, long hits, long misses, long evictions) {
+    }
+
+    public record TemplateStats(long generations,
+                                double meanMillis,
+                                double maxMillis,
+                                Map<String, Double> meanPhaseMillis,
+                                double meanOutputBytes,
+                                long sheets,
+                                long columns,
+                                long validations,
+                                long coalescedRequests) {
+    }
+}
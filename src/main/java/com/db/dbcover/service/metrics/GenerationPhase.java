@@ -0,0 +1,24 @@
+package com.db.dbcover.service.metrics;
+
+public enum GenerationPhase {
+    /**
+     * Creating sheets, protection and header cells.
+     */
+    SHEET_SETUP,
+    /**
+     * Obtaining and applying column and header cell styles.
+     */
+    STYLES,
+    /**
+     * Collecting and writing data validations and tooltips.
+     */
+    VALIDATIONS,
+    /**
+     * Measuring and setting column widths.
+     */
+    COLUMN_SIZING,
+    /**
+     * Writing the workbook package to the output stream.
+     */
+    SERIALIZATION
+}
@@ -0,0 +1,56 @@
+package com.db.dbcover.service.metrics;
+
+import java.io.OutputStream;
+
+/**
+ * Collects measurements for a single workbook generation. The {@link #NOOP} recorder, used when
+ * metrics are disabled, never reads the clock, so instrumented code pays only a virtual call.
+ */
+public interface GenerationRecorder {
+
+    GenerationRecorder NOOP = new GenerationRecorder() {
+    };
+
+    /**
+     * Returns a start timestamp to pass to {@link #stop}.
+     */
+    default long start() {
+        return 0L;
+    }
+
+    default void stop(GenerationPhase phase, long startNanos) {
+    }
+
+    default void sheetBuilt(int columnCount) {
+    }
+
+    default void validationsEmitted(int count) {
+    }
+
+    default void cellStyles(int distinctStyles) {
+    }
+
+    /**
+     * Returns a recorder for work handed to another thread. It is not published on its own; pass
+     * it to {@link #merge} on the owning thread once that work has completed.
+     */
+    default GenerationRecorder fork() {
+        return this;
+    }
+
+    /**
+     * Adds the measurements of a recorder obtained from {@link #fork} to this one.
+     */
+    default void merge(GenerationRecorder forked) {
+    }
+
+    /**
+     * Wraps the target stream so that the number of bytes written is recorded on completion.
+     */
+    default OutputStream countOutput(OutputStream outputStream) {
+        return outputStream;
+    }
+
+    default void completed(long startNanos) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.db.dbcover.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates phase durations and counts locally and publishes them once the generation
+ * completes, so the meter registry is touched a fixed number of times per workbook. Instances are
+ * confined to one thread; work on other threads records into a {@linkplain #fork() fork}.
+ */
+class MeterGenerationRecorder implements GenerationRecorder {
+
+    private static final GenerationPhase[] PHASES = GenerationPhase.values();
+
+    private final MeterRegistry registry;
+    private final String instrumentType;
+    private final long[] phaseNanos = new long[PHASES.length];
+
+    private int sheets;
+    private int columns;
+    private int validations;
+    private int cellStyles;
+    private CountingOutputStream output;
+
+    MeterGenerationRecorder(MeterRegistry registry, String instrumentType) {
+        this.registry = registry;
+        this.instrumentType = instrumentType;
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stop(GenerationPhase phase, long startNanos) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public void sheetBuilt(int columnCount) {
+        sheets++;
+        columns += columnCount;
+    }
+
+    @Override
+    public void validationsEmitted(int count) {
+        validations += count;
+    }
+
+    @Override
+    public void cellStyles(int distinctStyles) {
+        cellStyles = distinctStyles;
+    }
+
+    @Override
+    public GenerationRecorder fork() {
+        return new MeterGenerationRecorder(registry, instrumentType);
+    }
+
+    @Override
+    public void merge(GenerationRecorder forked) {
+        if (!(forked instanceof MeterGenerationRecorder other) || other == this) {
+            return;
+        }
+        for (int phase = 0; phase < phaseNanos.length; phase++) {
+            phaseNanos[phase] += other.phaseNanos[phase];
+        }
+        sheets += other.sheets;
+        columns += other.columns;
+        validations += other.validations;
+    }
+
+    @Override
+    public OutputStream countOutput(OutputStream outputStream) {
+        output = new CountingOutputStream(outputStream);
+        return output;
+    }
+
+    @Override
+    public void completed(long startNanos) {
+        Timer.builder(GenerationMetrics.GENERATION)
+                .description("Total workbook generation time")
+                .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        for (GenerationPhase phase : PHASES) {
+            Timer.builder(GenerationMetrics.PHASE)
+                    .description("Time spent per generation phase")
+                    .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                    .tag(GenerationMetrics.PHASE_TAG, phase.name())
+                    .register(registry)
+                    .record(phaseNanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+        }
+        registry.counter(GenerationMetrics.SHEETS, GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType).increment(sheets);
+        registry.counter(GenerationMetrics.COLUMNS, GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType).increment(columns);
+        registry.counter(GenerationMetrics.VALIDATIONS, GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType).increment(validations);
+        DistributionSummary.builder(GenerationMetrics.CELL_STYLES)
+                .description("Distinct cell styles created per generated workbook")
+                .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                .register(registry)
+                .record(cellStyles);
+        if (output != null) {
+            DistributionSummary.builder(GenerationMetrics.OUTPUT_SIZE)
+                    .description("Size of generated workbooks")
+                    .baseUnit("bytes")
+                    .publishPercentileHistogram()
+                    .tag(GenerationMetrics.INSTRUMENT_TYPE_TAG, instrumentType)
+                    .register(registry)
+                    .record(output.count);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.db.dbcover.service.reload;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.render.SheetPartCache;
+import com.db.dbcover.template.TemplateRegistry;
+import com.db.dbcover.template.TemplateSheetResolver.TemplateUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Watches the template file and applies edits without a restart. A change is read after the
+ * {@code debounce} quiet period and handed to {@link ExcelTemplateProperties#reload}, which
+ * re-resolves only the changed sheets and their dependents and swaps the snapshot. Afterwards the
+ * cached workbooks of the affected instrument types and the sheet parts of the replaced sheets are
+ * dropped, unless the registry still retains their version for pinned clients; everything else
+ * stays cached. A file that fails to parse or resolve is logged and ignored, so the previous
+ * templates keep being served.
+ */
+@Slf4j
+@Component
+public class TemplateFileWatcher implements DisposableBean {
+
+    public static final String RELOADS = "excel.template.reloads";
+    public static final String OUTCOME_TAG = "outcome";
+
+    private static final String TEMPLATE_PREFIX = "excel.template";
+
+    private final ExcelTemplateProperties templateProperties;
+    private final RenderedWorkbookCache workbookCache;
+    private final SheetPartCache sheetPartCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter applied;
+    private final Counter failed;
+
+    private final Path file;
+    private final Duration debounce;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    @Autowired
+    public TemplateFileWatcher(ExcelGeneratorProperties properties,
+                               ExcelTemplateProperties templateProperties,
+                               RenderedWorkbookCache workbookCache,
+                               SheetPartCache sheetPartCache,
+                               ApplicationEventPublisher eventPublisher,
+                               ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        this(properties.getTemplateReload(), templateProperties, workbookCache, sheetPartCache, eventPublisher,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public TemplateFileWatcher(ExcelGeneratorProperties.TemplateReload settings,
+                               ExcelTemplateProperties templateProperties,
+                               RenderedWorkbookCache workbookCache,
+                               SheetPartCache sheetPartCache,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry registry) throws IOException {
+        this.templateProperties = templateProperties;
+        this.workbookCache = workbookCache;
+        this.sheetPartCache = sheetPartCache;
+        this.eventPublisher = eventPublisher;
+        this.applied = reloads(registry, "applied");
+        this.failed = reloads(registry, "failed");
+        this.debounce = settings.getDebounce();
+        this.file = settings.isEnabled() ? locate(settings.getLocation()) : null;
+
+        if (file == null) {
+            this.watchService = null;
+            this.watcher = null;
+            return;
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        // Editors often replace the file instead of writing it in place, so the directory is watched.
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watch, "excel-template-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for template changes", file);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watcher.interrupt();
+        }
+    }
+
+    public boolean isWatching() {
+        return watcher != null && watcher.isAlive();
+    }
+
+    /**
+     * Reads {@code source} and applies it.
+     *
+     * @throws IOException              when the file cannot be read
+     * @throws IllegalArgumentException when a sheet is unknown, unnamed or part of a cycle
+     * @throws IllegalStateException    when no instrument template is configured
+     */
+    public TemplateUpdate reload(Path source) throws IOException {
+        TemplateUpdate update = templateProperties.reload(parse(source));
+        if (update.hasChanges()) {
+            TemplateRegistry.Snapshot snapshot = templateProperties.snapshot();
+            int workbooks = workbookCache.invalidate(key -> update.affectedInstrumentTypes().contains(key.instrumentType())
+                    && snapshot.version(key.instrumentType(), key.contentHash()).isEmpty());
+            int parts = sheetPartCache.invalidate(update.staleSheetHashes().stream()
+                    .filter(hash -> !snapshot.retainedSheetHashes().contains(hash))
+                    .toList());
+            log.info("Reloaded templates from {}: sheets {} changed, instrument types {} affected, "
+                            + "{} cached workbooks and {} sheet parts dropped",
+                    source, update.changedSheets(), update.affectedInstrumentTypes(), workbooks, parts);
+            eventPublisher.publishEvent(new TemplatesReloadedEvent(update.changedSheets(),
+                    update.affectedInstrumentTypes()));
+        }
+        applied.increment();
+        return update;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (!touchesFile(watchService.take())) {
+                    continue;
+                }
+                Thread.sleep(debounce.toMillis());
+                for (WatchKey pending = watchService.poll(); pending != null; pending = watchService.poll()) {
+                    touchesFile(pending);
+                }
+                try {
+                    reload(file);
+                } catch (IOException | RuntimeException ex) {
+                    failed.increment();
+                    log.error("Ignoring invalid template file {}; the previous templates stay active", file, ex);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean touchesFile(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            touched |= event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return touched;
+    }
+
+    private static ExcelTemplateProperties parse(Path source) throws IOException {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load(source.toString(), new FileSystemResource(source));
+        return new Binder(ConfigurationPropertySources.from(sources))
+                .bind(TEMPLATE_PREFIX, ExcelTemplateProperties.class)
+                .orElseGet(() -> new ExcelTemplateProperties(null, null));
+    }
+
+    private static Path locate(String location) {
+        try {
+            return ResourceUtils.getFile(location).toPath().toAbsolutePath();
+        } catch (FileNotFoundException ex) {
+            log.warn("Template reload is enabled, but {} is not a file on disk; templates will not be reloaded",
+                    location);
+            return null;
+        }
+    }
+
+    private static Counter reloads(MeterRegistry registry, String outcome) {
+        return Counter.builder(RELOADS)
+                .description("Template file changes that were applied or rejected")
+                .tag(OUTCOME_TAG, outcome)
+                .register(registry);
+    }
+}
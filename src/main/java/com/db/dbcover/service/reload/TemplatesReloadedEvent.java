@@ -0,0 +1,12 @@
+package com.db.dbcover.service.reload;
+
+import java.util.Set;
+
+/**
+ * Published after a changed template file has been applied.
+ *
+ * @param changedSheets           template sheets that were re-resolved or removed
+ * @param affectedInstrumentTypes instrument templates whose workbook changed, appeared or disappeared
+ */
+public record TemplatesReloadedEvent(Set<String> changedSheets, Set<String> affectedInstrumentTypes) {
+}
@@ -0,0 +1,44 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.metrics.GenerationPhase;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.sheet.SheetBuilder;
+import com.db.dbcover.service.sheet.SheetFormatter;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.SheetPlan;
+import lombok.RequiredArgsConstructor;
+
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@RequiredArgsConstructor
+public class PoiWorkbookRenderer implements WorkbookRenderer {
+
+    private final RenderOptions options;
+
+    @Override
+    public void render(RenderPlan plan,
+                       OutputStream outputStream,
+                       GenerationRecorder recorder) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            DataFormat dataFormat = workbook.createDataFormat();
+            SheetFormatter sheetFormatter = new SheetFormatter(workbook, dataFormat,
+                    options.headerRowIndex(), options.dataRows(),
+                    options.columnWidthMode(), options.listValidationMode(), recorder);
+            SheetBuilder sheetBuilder = new SheetBuilder(workbook, sheetFormatter, options.headerRowIndex(), recorder);
+            for (SheetPlan sheetPlan : plan.sheets()) {
+                sheetBuilder.buildSheet(sheetPlan, sheetPlan.dataRows(options.dataRows()));
+            }
+            sheetFormatter.finalizeWorkbook();
+            recorder.cellStyles(sheetFormatter.distinctStyleCount());
+
+            long serializationStarted = recorder.start();
+            workbook.write(outputStream);
+            recorder.stop(GenerationPhase.SERIALIZATION, serializationStarted);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.template.RowExtent;
+
+/**
+ * Layout settings shared by every renderer. {@code dataRows} applies to sheets whose template
+ * does not configure its own extent.
+ */
+public record RenderOptions(int headerRowIndex,
+                            RowExtent dataRows,
+                            ColumnWidthMode columnWidthMode,
+                            ListValidationMode listValidationMode) {
+}
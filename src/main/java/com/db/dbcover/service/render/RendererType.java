@@ -0,0 +1,12 @@
+package com.db.dbcover.service.render;
+
+public enum RendererType {
+    /**
+     * Builds an {@code XSSFWorkbook} through {@code SheetBuilder} and {@code SheetFormatter}.
+     */
+    POI,
+    /**
+     * Writes the SpreadsheetML parts directly into the zip stream without a workbook object model.
+     */
+    STREAMING
+}
@@ -0,0 +1,113 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.cache.BoundedLruCache;
+import com.db.dbcover.template.RowExtent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Worksheet parts rendered by {@link StreamingWorkbookRenderer}, shared across workbooks. A part
+ * is keyed by the content hash of its resolved sheet, the layout options and the style indexes it
+ * references, so any instrument template that includes the same sheet blueprint reuses the bytes
+ * as long as the workbook's style table hands out the same indexes.
+ */
+@Component
+public class SheetPartCache {
+
+    private final boolean enabled;
+    private final BoundedLruCache<SheetPartKey, SheetPart> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SheetPartCache(ExcelGeneratorProperties properties) {
+        ExcelGeneratorProperties.SheetCache settings = properties.getSheetCache();
+        this.enabled = settings.isEnabled();
+        this.entries = new BoundedLruCache<>(settings.getMaxEntries(), settings.getMaxSize().toBytes(),
+                part -> part.xml().length);
+    }
+
+    public SheetPart getOrRender(SheetPartKey key, Loader loader) throws IOException {
+        if (!enabled) {
+            return loader.load();
+        }
+        SheetPart cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        SheetPart rendered = loader.load();
+        entries.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * Drops the parts rendered from the given resolved sheet content hashes.
+     *
+     * @return the number of removed entries
+     */
+    public int invalidate(Collection<String> sheetContentHashes) {
+        return entries.removeIf(key -> sheetContentHashes.contains(key.sheetContentHash()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long sizeInBytes() {
+        return entries.weight();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return entries.evictionCount();
+    }
+
+    /**
+     * @param sheetContentHash hash of the resolved sheet definition
+     * @param options          layout options the part was rendered with
+     * @param dataRows         data-row extent of the sheet after template and default settings apply
+     * @param selected         whether the part is the selected (first) tab
+     * @param styleIndexes     {@code cellXfs} indexes of the column styles followed by the header styles
+     */
+    public record SheetPartKey(String sheetContentHash,
+                               RenderOptions options,
+                               RowExtent dataRows,
+                               boolean selected,
+                               List<Integer> styleIndexes) {
+    }
+
+    /**
+     * Rendered {@code sheetN.xml} bytes plus the allowed-value lists it references through lookup
+     * names, which the assembling workbook still has to write to its lookup sheet. The array is
+     * shared and must not be modified.
+     */
+    public record SheetPart(byte[] xml, List<List<String>> lookupLists, int validationCount) {
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        SheetPart load() throws IOException;
+    }
+}
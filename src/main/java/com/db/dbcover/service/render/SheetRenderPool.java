@@ -0,0 +1,43 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Worker threads that render the worksheet parts of one workbook concurrently. The pool only
+ * exists when {@code excel.generator.parallel} is enabled and is shared by all requests, so the
+ * number of sheets rendered at once stays bounded by {@code excel.generator.parallelism}.
+ */
+@Component
+public class SheetRenderPool implements DisposableBean {
+
+    private final ForkJoinPool pool;
+
+    public SheetRenderPool(ExcelGeneratorProperties properties) {
+        this.pool = properties.isParallel() ? new ForkJoinPool(resolveParallelism(properties)) : null;
+    }
+
+    /**
+     * Returns the executor for sheet rendering, or {@code null} when sheets are rendered on the
+     * calling thread.
+     */
+    public ExecutorService executor() {
+        return pool;
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static int resolveParallelism(ExcelGeneratorProperties properties) {
+        int parallelism = properties.getParallelism();
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,66 @@
+package com.db.dbcover.service.render;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+
+/**
+ * Namespaces, content types and relationship types of the SpreadsheetML parts written by
+ * {@link StreamingWorkbookRenderer}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class SpreadsheetMl {
+
+    static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    static final String PACKAGE_RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    static final String CONTENT_TYPES_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
+
+    static final String CONTENT_TYPES_PART = "[Content_Types].xml";
+    static final String ROOT_RELATIONSHIPS_PART = "_rels/.rels";
+    static final String WORKBOOK_PART = "xl/workbook.xml";
+    static final String WORKBOOK_RELATIONSHIPS_PART = "xl/_rels/workbook.xml.rels";
+    static final String STYLES_PART = "xl/styles.xml";
+
+    static final String RELATIONSHIPS_CONTENT_TYPE = "application/vnd.openxmlformats-package.relationships+xml";
+    static final String XML_CONTENT_TYPE = "application/xml";
+    static final String WORKBOOK_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml";
+    static final String WORKSHEET_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml";
+    static final String STYLES_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml";
+
+    static final String OFFICE_DOCUMENT_RELATIONSHIP =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument";
+    static final String WORKSHEET_RELATIONSHIP =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet";
+    static final String STYLES_RELATIONSHIP =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static String worksheetPart(int sheetNumber) {
+        return "xl/worksheets/sheet" + sheetNumber + ".xml";
+    }
+
+    /**
+     * Opens an XML writer over {@code outputStream} with the declaration already written. Closing
+     * the writer leaves the stream open.
+     */
+    static XMLStreamWriter open(OutputStream outputStream) throws XMLStreamException {
+        XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter(outputStream, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        return xml;
+    }
+
+    static void close(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+}
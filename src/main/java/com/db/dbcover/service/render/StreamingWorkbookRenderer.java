@@ -0,0 +1,642 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.metrics.GenerationPhase;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.render.SheetPartCache.SheetPart;
+import com.db.dbcover.service.render.SheetPartCache.SheetPartKey;
+import com.db.dbcover.service.sheet.CellStylePool.StyleKey;
+import com.db.dbcover.service.sheet.ColumnRules;
+import com.db.dbcover.service.sheet.LookupSheet;
+import com.db.dbcover.service.sheet.SheetValidations;
+import com.db.dbcover.service.sheet.ValidationRule;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.ColumnWidthEstimator;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.RowExtent;
+import com.db.dbcover.template.SheetPlan;
+
+import org.apache.poi.poifs.crypt.CryptoFunctions;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.ss.util.CellReference;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the SpreadsheetML parts of a template workbook straight into a {@link ZipOutputStream}
+ * with a StAX writer, without building an {@code XSSFWorkbook} object graph. The output carries
+ * the same sheets, styles, validations, lookup lists, filters, freeze panes and sheet protection
+ * as {@link PoiWorkbookRenderer}. Column widths are always estimated: {@code AUTO_SIZE} needs
+ * POI's font measurement and is treated as {@code ESTIMATE}.
+ * <p>
+ * Each worksheet part is rendered on its own and can be served from a {@link SheetPartCache}, in
+ * which case assembling a workbook only interns styles and copies the cached bytes into the zip.
+ * <p>
+ * Given a sheet executor, the parts of a multi-sheet workbook are rendered concurrently. Styles are
+ * interned for every sheet up front on the calling thread, so each part only reads its own
+ * pre-computed style indexes; lookup names are derived from the list values and need no
+ * coordination. The parts are written to the zip in definition order as they complete.
+ */
+public class StreamingWorkbookRenderer implements WorkbookRenderer {
+
+    private static final String FILTER_DATABASE_NAME = "_xlnm._FilterDatabase";
+
+    private final RenderOptions options;
+    private final SheetPartCache partCache;
+    private final ExecutorService sheetExecutor;
+
+    public StreamingWorkbookRenderer(RenderOptions options) {
+        this(options, null, null);
+    }
+
+    public StreamingWorkbookRenderer(RenderOptions options, SheetPartCache partCache) {
+        this(options, partCache, null);
+    }
+
+    /**
+     * @param partCache     cache of rendered worksheet parts shared across workbooks, or {@code null}
+     *                      to render every sheet
+     * @param sheetExecutor executor rendering the sheet parts of one workbook concurrently, or
+     *                      {@code null} to render them on the calling thread
+     */
+    public StreamingWorkbookRenderer(RenderOptions options, SheetPartCache partCache, ExecutorService sheetExecutor) {
+        this.options = options;
+        this.partCache = partCache;
+        this.sheetExecutor = sheetExecutor;
+    }
+
+    @Override
+    public void render(RenderPlan plan,
+                       OutputStream outputStream,
+                       GenerationRecorder recorder) throws IOException {
+        List<SheetPlan> sheets = plan.sheets();
+        StyleTable styles = new StyleTable();
+        Map<List<String>, String> lookupNames = new LinkedHashMap<>();
+        ColumnRules columnRules = new ColumnRules(options.headerRowIndex(), options.listValidationMode());
+
+        List<PreparedSheet> preparedSheets = new ArrayList<>(sheets.size());
+        for (int sheetIndex = 0; sheetIndex < sheets.size(); sheetIndex++) {
+            SheetPlan sheet = sheets.get(sheetIndex);
+            preparedSheets.add(prepareSheet(sheet, sheetIndex == 0, sheet.dataRows(options.dataRows()), styles, recorder));
+        }
+        List<ForkedPart> forkedParts = sheetExecutor != null && preparedSheets.size() > 1
+                ? submitParts(preparedSheets, columnRules, recorder)
+                : null;
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        try {
+            for (int sheetIndex = 0; sheetIndex < sheets.size(); sheetIndex++) {
+                SheetPlan sheet = sheets.get(sheetIndex);
+                SheetPart part = forkedParts != null
+                        ? forkedParts.get(sheetIndex).join(recorder)
+                        : loadPart(preparedSheets.get(sheetIndex), columnRules, recorder);
+                for (List<String> values : part.lookupLists()) {
+                    lookupNames.computeIfAbsent(values, LookupSheet::rangeName);
+                }
+
+                long started = recorder.start();
+                zip.putNextEntry(new ZipEntry(SpreadsheetMl.worksheetPart(sheetIndex + 1)));
+                zip.write(part.xml());
+                zip.closeEntry();
+                recorder.stop(GenerationPhase.SERIALIZATION, started);
+                recorder.sheetBuilt(sheet.columnCount());
+                recorder.validationsEmitted(part.validationCount());
+            }
+
+            long started = recorder.start();
+            int worksheetCount = sheets.size();
+            if (!lookupNames.isEmpty()) {
+                worksheetCount++;
+                writePart(zip, SpreadsheetMl.worksheetPart(worksheetCount),
+                        xml -> writeLookupSheet(xml, new ArrayList<>(lookupNames.keySet())));
+            }
+            int partCount = worksheetCount;
+            writePart(zip, SpreadsheetMl.STYLES_PART, styles::write);
+            writePart(zip, SpreadsheetMl.WORKBOOK_PART, xml -> writeWorkbook(xml, sheets, lookupNames));
+            writePart(zip, SpreadsheetMl.WORKBOOK_RELATIONSHIPS_PART,
+                    xml -> writeWorkbookRelationships(xml, partCount));
+            writePart(zip, SpreadsheetMl.ROOT_RELATIONSHIPS_PART, StreamingWorkbookRenderer::writeRootRelationships);
+            writePart(zip, SpreadsheetMl.CONTENT_TYPES_PART, xml -> writeContentTypes(xml, partCount));
+            zip.finish();
+            recorder.stop(GenerationPhase.SERIALIZATION, started);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write workbook XML", e);
+        } finally {
+            if (forkedParts != null) {
+                forkedParts.forEach(forked -> forked.part().cancel(true));
+            }
+        }
+        recorder.cellStyles(styles.size());
+    }
+
+    private List<ForkedPart> submitParts(List<PreparedSheet> preparedSheets,
+                                         ColumnRules columnRules,
+                                         GenerationRecorder recorder) {
+        List<ForkedPart> forkedParts = new ArrayList<>(preparedSheets.size());
+        try {
+            for (PreparedSheet sheet : preparedSheets) {
+                GenerationRecorder forked = recorder.fork();
+                forkedParts.add(new ForkedPart(sheetExecutor.submit(() -> loadPart(sheet, columnRules, forked)), forked));
+            }
+        } catch (RuntimeException ex) {
+            forkedParts.forEach(forked -> forked.part().cancel(true));
+            throw ex;
+        }
+        return forkedParts;
+    }
+
+    /**
+     * Interns the styles of the sheet into this workbook's style table. Runs on the calling thread
+     * for every sheet before any part is rendered.
+     */
+    private static PreparedSheet prepareSheet(SheetPlan sheetPlan,
+                                              boolean selected,
+                                              RowExtent dataRows,
+                                              StyleTable styles,
+                                              GenerationRecorder recorder) {
+        List<ColumnSpec> columns = sheetPlan.columns();
+        int[] columnStyles = new int[columns.size()];
+        int[] headerStyles = new int[columns.size()];
+
+        long started = recorder.start();
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            ColumnSpec column = columns.get(columnIndex);
+            columnStyles[columnIndex] = styles.indexOf(StyleKey.dataColumn(column.format()));
+            headerStyles[columnIndex] = styles.indexOf(StyleKey.header(column.required()));
+        }
+        recorder.stop(GenerationPhase.STYLES, started);
+        return new PreparedSheet(sheetPlan, selected, dataRows, columnStyles, headerStyles);
+    }
+
+    /**
+     * Returns the worksheet part of a prepared sheet, from the part cache when one was rendered
+     * earlier with the same content, options and style indexes. Safe to call from any thread.
+     */
+    private SheetPart loadPart(PreparedSheet sheet, ColumnRules columnRules, GenerationRecorder recorder)
+            throws IOException {
+        if (partCache == null) {
+            return writeSheetPart(sheet, columnRules, recorder);
+        }
+        List<Integer> styleIndexes = new ArrayList<>(sheet.columnStyles().length * 2);
+        Arrays.stream(sheet.columnStyles()).forEach(styleIndexes::add);
+        Arrays.stream(sheet.headerStyles()).forEach(styleIndexes::add);
+        SheetPartKey key = new SheetPartKey(sheet.plan().contentHash(), options,
+                sheet.dataRows(), sheet.selected(), styleIndexes);
+        return partCache.getOrRender(key, () -> writeSheetPart(sheet, columnRules, recorder));
+    }
+
+    private SheetPart writeSheetPart(PreparedSheet sheet, ColumnRules columnRules, GenerationRecorder recorder)
+            throws IOException {
+        SheetPlan sheetPlan = sheet.plan();
+        RowExtent dataRows = sheet.dataRows();
+        List<ColumnSpec> columns = sheetPlan.columns();
+        int[] widths = new int[columns.size()];
+        Set<List<String>> lookupLists = new LinkedHashSet<>();
+        SheetValidations validations = new SheetValidations();
+
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            ColumnSpec column = columns.get(columnIndex);
+
+            long started = recorder.start();
+            ValidationRule valueRule = columnRules.valueRule(column, dataRows, values -> {
+                lookupLists.add(List.copyOf(values));
+                return LookupSheet.rangeName(values);
+            });
+            if (valueRule != null) {
+                validations.add(valueRule, columnIndex);
+            }
+            ValidationRule tooltipRule = columnRules.tooltipRule(column, dataRows);
+            if (tooltipRule != null) {
+                validations.add(tooltipRule, columnIndex);
+            }
+            recorder.stop(GenerationPhase.VALIDATIONS, started);
+
+            started = recorder.start();
+            widths[columnIndex] = ColumnWidthEstimator.withFilterPadding(column.widthHint());
+            recorder.stop(GenerationPhase.COLUMN_SIZING, started);
+        }
+
+        long started = recorder.start();
+        Map<ValidationRule, CellRangeAddressList> merged = validations.merged();
+        recorder.stop(GenerationPhase.VALIDATIONS, started);
+
+        SheetLayout layout = new SheetLayout(sheetPlan.name(), columns,
+                sheet.columnStyles(), sheet.headerStyles(), widths, merged);
+        started = recorder.start();
+        ByteArrayOutputStream xmlBytes = new ByteArrayOutputStream();
+        try {
+            XMLStreamWriter xml = SpreadsheetMl.open(xmlBytes);
+            writeSheet(xml, layout, sheet.selected());
+            SpreadsheetMl.close(xml);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write sheet " + sheetPlan.name(), e);
+        }
+        recorder.stop(GenerationPhase.SHEET_SETUP, started);
+        return new SheetPart(xmlBytes.toByteArray(), List.copyOf(lookupLists), merged.size());
+    }
+
+    private void writeSheet(XMLStreamWriter xml, SheetLayout layout, boolean selected) throws XMLStreamException {
+        int headerRow = options.headerRowIndex();
+        int columnCount = layout.columns().size();
+
+        xml.writeStartElement("worksheet");
+        xml.writeDefaultNamespace(SpreadsheetMl.MAIN_NS);
+
+        xml.writeEmptyElement("dimension");
+        xml.writeAttribute("ref", columnCount == 0
+                ? cellReference(headerRow, 0)
+                : cellReference(headerRow, 0) + ":" + cellReference(headerRow, columnCount - 1));
+
+        // Mirrors SheetFormatter#finalizeSheet, which freezes with createFreezePane(headerRowIndex, 1).
+        writeSheetView(xml, selected, headerRow, 1);
+
+        xml.writeEmptyElement("sheetFormatPr");
+        xml.writeAttribute("defaultRowHeight", "15");
+
+        if (columnCount > 0) {
+            xml.writeStartElement("cols");
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                xml.writeEmptyElement("col");
+                xml.writeAttribute("min", String.valueOf(columnIndex + 1));
+                xml.writeAttribute("max", String.valueOf(columnIndex + 1));
+                xml.writeAttribute("width", String.valueOf(layout.widths()[columnIndex] / 256.0));
+                xml.writeAttribute("style", String.valueOf(layout.columnStyles()[columnIndex]));
+                xml.writeAttribute("customWidth", "1");
+            }
+            xml.writeEndElement();
+        }
+
+        xml.writeStartElement("sheetData");
+        xml.writeStartElement("row");
+        xml.writeAttribute("r", String.valueOf(headerRow + 1));
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            writeInlineString(xml, headerRow, columnIndex, layout.headerStyles()[columnIndex],
+                    layout.columns().get(columnIndex).header());
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+
+        writeSheetProtection(xml, layout.name());
+
+        if (columnCount > 0) {
+            xml.writeEmptyElement("autoFilter");
+            xml.writeAttribute("ref", cellReference(headerRow, 0) + ":" + cellReference(headerRow, columnCount - 1));
+        }
+
+        if (!layout.validations().isEmpty()) {
+            xml.writeStartElement("dataValidations");
+            xml.writeAttribute("count", String.valueOf(layout.validations().size()));
+            for (Map.Entry<ValidationRule, CellRangeAddressList> entry : layout.validations().entrySet()) {
+                writeValidation(xml, entry.getKey(), entry.getValue());
+            }
+            xml.writeEndElement();
+        }
+
+        writePageMargins(xml);
+        xml.writeEndElement();
+    }
+
+    private static void writeSheetView(XMLStreamWriter xml, boolean selected, int colSplit, int rowSplit)
+            throws XMLStreamException {
+        String activePane = colSplit > 0 ? "bottomRight" : "bottomLeft";
+        xml.writeStartElement("sheetViews");
+        xml.writeStartElement("sheetView");
+        if (selected) {
+            xml.writeAttribute("tabSelected", "1");
+        }
+        xml.writeAttribute("workbookViewId", "0");
+        xml.writeEmptyElement("pane");
+        if (colSplit > 0) {
+            xml.writeAttribute("xSplit", String.valueOf(colSplit));
+        }
+        xml.writeAttribute("ySplit", String.valueOf(rowSplit));
+        xml.writeAttribute("topLeftCell", cellReference(rowSplit, colSplit));
+        xml.writeAttribute("activePane", activePane);
+        xml.writeAttribute("state", "frozen");
+        xml.writeEmptyElement("selection");
+        xml.writeAttribute("pane", activePane);
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private static void writeValidation(XMLStreamWriter xml, ValidationRule rule, CellRangeAddressList regions)
+            throws XMLStreamException {
+        xml.writeStartElement("dataValidation");
+        xml.writeAttribute("type", switch (rule.kind()) {
+            case LIST, NAMED_LIST -> "list";
+            case DATE -> "date";
+            case DECIMAL -> "decimal";
+            case CUSTOM -> "custom";
+        });
+        if (rule.kind() == ValidationRule.Kind.DATE || rule.kind() == ValidationRule.Kind.DECIMAL) {
+            xml.writeAttribute("operator", "between");
+        }
+        xml.writeAttribute("allowBlank", "1");
+        if (rule.hasPrompt()) {
+            xml.writeAttribute("showInputMessage", "1");
+            xml.writeAttribute("promptTitle", "");
+            xml.writeAttribute("prompt", rule.promptText());
+        } else {
+            xml.writeAttribute("showErrorMessage", "1");
+        }
+        xml.writeAttribute("sqref", sqref(regions));
+
+        xml.writeStartElement("formula1");
+        xml.writeCharacters(rule.kind() == ValidationRule.Kind.LIST
+                ? rule.explicitListFormula()
+                : rule.formula1());
+        xml.writeEndElement();
+        if (rule.formula2() != null) {
+            xml.writeStartElement("formula2");
+            xml.writeCharacters(rule.formula2());
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writeLookupSheet(XMLStreamWriter xml, List<List<String>> lists) throws XMLStreamException {
+        int rowCount = lists.stream().mapToInt(List::size).max().orElse(0);
+
+        xml.writeStartElement("worksheet");
+        xml.writeDefaultNamespace(SpreadsheetMl.MAIN_NS);
+        xml.writeEmptyElement("dimension");
+        xml.writeAttribute("ref", "A1:" + cellReference(rowCount - 1, lists.size() - 1));
+        xml.writeStartElement("sheetViews");
+        xml.writeEmptyElement("sheetView");
+        xml.writeAttribute("workbookViewId", "0");
+        xml.writeEndElement();
+        xml.writeEmptyElement("sheetFormatPr");
+        xml.writeAttribute("defaultRowHeight", "15");
+
+        xml.writeStartElement("sheetData");
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            xml.writeStartElement("row");
+            xml.writeAttribute("r", String.valueOf(rowIndex + 1));
+            for (int columnIndex = 0; columnIndex < lists.size(); columnIndex++) {
+                List<String> values = lists.get(columnIndex);
+                if (rowIndex < values.size()) {
+                    writeInlineString(xml, rowIndex, columnIndex, 0, values.get(rowIndex));
+                }
+            }
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+
+        writeSheetProtection(xml, LookupSheet.SHEET_NAME);
+        writePageMargins(xml);
+        xml.writeEndElement();
+    }
+
+    private void writeWorkbook(XMLStreamWriter xml,
+                               List<SheetPlan> sheets,
+                               Map<List<String>, String> lookupNames) throws XMLStreamException {
+        xml.writeStartElement("workbook");
+        xml.writeDefaultNamespace(SpreadsheetMl.MAIN_NS);
+        xml.writeNamespace("r", SpreadsheetMl.RELATIONSHIPS_NS);
+
+        xml.writeStartElement("bookViews");
+        xml.writeEmptyElement("workbookView");
+        xml.writeAttribute("activeTab", "0");
+        xml.writeEndElement();
+
+        xml.writeStartElement("sheets");
+        for (int sheetIndex = 0; sheetIndex < sheets.size(); sheetIndex++) {
+            writeSheetEntry(xml, sheets.get(sheetIndex).name(), sheetIndex + 1, false);
+        }
+        if (!lookupNames.isEmpty()) {
+            writeSheetEntry(xml, LookupSheet.SHEET_NAME, sheets.size() + 1, true);
+        }
+        xml.writeEndElement();
+
+        List<DefinedName> names = new ArrayList<>();
+        int lookupColumn = 0;
+        for (Map.Entry<List<String>, String> lookup : lookupNames.entrySet()) {
+            names.add(new DefinedName(lookup.getValue(), null,
+                    areaReference(LookupSheet.SHEET_NAME, 0, lookupColumn, lookup.getKey().size() - 1, lookupColumn)));
+            lookupColumn++;
+        }
+        int headerRow = options.headerRowIndex();
+        for (int sheetIndex = 0; sheetIndex < sheets.size(); sheetIndex++) {
+            SheetPlan sheet = sheets.get(sheetIndex);
+            int columnCount = sheet.columnCount();
+            if (columnCount > 0) {
+                names.add(new DefinedName(FILTER_DATABASE_NAME, sheetIndex,
+                        areaReference(sheet.name(), headerRow, 0, headerRow, columnCount - 1)));
+            }
+        }
+        if (!names.isEmpty()) {
+            xml.writeStartElement("definedNames");
+            for (DefinedName name : names) {
+                xml.writeStartElement("definedName");
+                xml.writeAttribute("name", name.name());
+                if (name.localSheetId() != null) {
+                    xml.writeAttribute("localSheetId", String.valueOf(name.localSheetId()));
+                    xml.writeAttribute("hidden", "1");
+                }
+                xml.writeCharacters(name.formula());
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        }
+
+        xml.writeEndElement();
+    }
+
+    private static void writeSheetEntry(XMLStreamWriter xml, String name, int sheetNumber, boolean veryHidden)
+            throws XMLStreamException {
+        xml.writeEmptyElement("sheet");
+        xml.writeAttribute("name", name);
+        xml.writeAttribute("sheetId", String.valueOf(sheetNumber));
+        if (veryHidden) {
+            xml.writeAttribute("state", "veryHidden");
+        }
+        xml.writeAttribute("r", SpreadsheetMl.RELATIONSHIPS_NS, "id", "rId" + sheetNumber);
+    }
+
+    private static void writeWorkbookRelationships(XMLStreamWriter xml, int worksheetCount) throws XMLStreamException {
+        xml.writeStartElement("Relationships");
+        xml.writeDefaultNamespace(SpreadsheetMl.PACKAGE_RELATIONSHIPS_NS);
+        for (int sheetNumber = 1; sheetNumber <= worksheetCount; sheetNumber++) {
+            writeRelationship(xml, "rId" + sheetNumber, SpreadsheetMl.WORKSHEET_RELATIONSHIP,
+                    "worksheets/sheet" + sheetNumber + ".xml");
+        }
+        writeRelationship(xml, "rId" + (worksheetCount + 1), SpreadsheetMl.STYLES_RELATIONSHIP, "styles.xml");
+        xml.writeEndElement();
+    }
+
+    private static void writeRootRelationships(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeStartElement("Relationships");
+        xml.writeDefaultNamespace(SpreadsheetMl.PACKAGE_RELATIONSHIPS_NS);
+        writeRelationship(xml, "rId1", SpreadsheetMl.OFFICE_DOCUMENT_RELATIONSHIP, SpreadsheetMl.WORKBOOK_PART);
+        xml.writeEndElement();
+    }
+
+    private static void writeRelationship(XMLStreamWriter xml, String id, String type, String target)
+            throws XMLStreamException {
+        xml.writeEmptyElement("Relationship");
+        xml.writeAttribute("Id", id);
+        xml.writeAttribute("Type", type);
+        xml.writeAttribute("Target", target);
+    }
+
+    private static void writeContentTypes(XMLStreamWriter xml, int worksheetCount) throws XMLStreamException {
+        xml.writeStartElement("Types");
+        xml.writeDefaultNamespace(SpreadsheetMl.CONTENT_TYPES_NS);
+        writeDefaultContentType(xml, "rels", SpreadsheetMl.RELATIONSHIPS_CONTENT_TYPE);
+        writeDefaultContentType(xml, "xml", SpreadsheetMl.XML_CONTENT_TYPE);
+        writeOverride(xml, SpreadsheetMl.WORKBOOK_PART, SpreadsheetMl.WORKBOOK_CONTENT_TYPE);
+        writeOverride(xml, SpreadsheetMl.STYLES_PART, SpreadsheetMl.STYLES_CONTENT_TYPE);
+        for (int sheetNumber = 1; sheetNumber <= worksheetCount; sheetNumber++) {
+            writeOverride(xml, SpreadsheetMl.worksheetPart(sheetNumber), SpreadsheetMl.WORKSHEET_CONTENT_TYPE);
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writeDefaultContentType(XMLStreamWriter xml, String extension, String contentType)
+            throws XMLStreamException {
+        xml.writeEmptyElement("Default");
+        xml.writeAttribute("Extension", extension);
+        xml.writeAttribute("ContentType", contentType);
+    }
+
+    private static void writeOverride(XMLStreamWriter xml, String partName, String contentType)
+            throws XMLStreamException {
+        xml.writeEmptyElement("Override");
+        xml.writeAttribute("PartName", "/" + partName);
+        xml.writeAttribute("ContentType", contentType);
+    }
+
+    private static void writeInlineString(XMLStreamWriter xml, int row, int column, int style, String value)
+            throws XMLStreamException {
+        xml.writeStartElement("c");
+        xml.writeAttribute("r", cellReference(row, column));
+        if (style != 0) {
+            xml.writeAttribute("s", String.valueOf(style));
+        }
+        xml.writeAttribute("t", "inlineStr");
+        xml.writeStartElement("is");
+        xml.writeStartElement("t");
+        xml.writeCharacters(value == null ? "" : value);
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private static void writeSheetProtection(XMLStreamWriter xml, String password) throws XMLStreamException {
+        xml.writeEmptyElement("sheetProtection");
+        xml.writeAttribute("password",
+                String.format(Locale.ROOT, "%04X", CryptoFunctions.createXorVerifier1(password)));
+        xml.writeAttribute("sheet", "1");
+        xml.writeAttribute("objects", "1");
+        xml.writeAttribute("scenarios", "1");
+    }
+
+    private static void writePageMargins(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeEmptyElement("pageMargins");
+        xml.writeAttribute("left", "0.7");
+        xml.writeAttribute("right", "0.7");
+        xml.writeAttribute("top", "0.75");
+        xml.writeAttribute("bottom", "0.75");
+        xml.writeAttribute("header", "0.3");
+        xml.writeAttribute("footer", "0.3");
+    }
+
+    private static void writePart(ZipOutputStream zip, String partName, PartContent content)
+            throws IOException, XMLStreamException {
+        zip.putNextEntry(new ZipEntry(partName));
+        XMLStreamWriter xml = SpreadsheetMl.open(zip);
+        content.write(xml);
+        SpreadsheetMl.close(xml);
+        zip.closeEntry();
+    }
+
+    private static String sqref(CellRangeAddressList regions) {
+        StringBuilder sqref = new StringBuilder();
+        for (CellRangeAddress region : regions.getCellRangeAddresses()) {
+            if (!sqref.isEmpty()) {
+                sqref.append(' ');
+            }
+            sqref.append(region.formatAsString());
+        }
+        return sqref.toString();
+    }
+
+    private static String areaReference(String sheetName, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        return new AreaReference(
+                new CellReference(sheetName, firstRow, firstColumn, true, true),
+                new CellReference(sheetName, lastRow, lastColumn, true, true),
+                SpreadsheetVersion.EXCEL2007).formatAsString();
+    }
+
+    private static String cellReference(int row, int column) {
+        return CellReference.convertNumToColString(column) + (row + 1);
+    }
+
+    private interface PartContent {
+        void write(XMLStreamWriter xml) throws XMLStreamException;
+    }
+
+    private record DefinedName(String name, Integer localSheetId, String formula) {
+    }
+
+    private record PreparedSheet(SheetPlan plan,
+                                 boolean selected,
+                                 RowExtent dataRows,
+                                 int[] columnStyles,
+                                 int[] headerStyles) {
+    }
+
+    /**
+     * A worksheet part rendered on the sheet executor together with the recorder it measured into.
+     */
+    private record ForkedPart(Future<SheetPart> part, GenerationRecorder recorder) {
+
+        SheetPart join(GenerationRecorder owner) throws IOException {
+            try {
+                SheetPart rendered = part.get();
+                owner.merge(recorder);
+                return rendered;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rendering sheets", ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException io) {
+                    throw io;
+                } else if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                } else if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException("Failed to render sheet", cause);
+            }
+        }
+    }
+
+    private record SheetLayout(String name,
+                               List<ColumnSpec> columns,
+                               int[] columnStyles,
+                               int[] headerStyles,
+                               int[] widths,
+                               Map<ValidationRule, CellRangeAddressList> validations) {
+    }
+}
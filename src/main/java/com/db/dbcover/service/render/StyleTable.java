@@ -0,0 +1,224 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.sheet.CellStylePool.FontKey;
+import com.db.dbcover.service.sheet.CellStylePool.StyleKey;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming counterpart of {@code CellStylePool}: interns {@link StyleKey}s into {@code cellXfs}
+ * indexes and writes the resulting {@code styles.xml}. Index 0 is the default style that every
+ * workbook starts with; fonts, fills and number formats are shared between styles.
+ * <p>
+ * The header styles and the default format of every column type are interned up front, so sheets
+ * that only use those get the same indexes in every workbook and their cached parts stay reusable.
+ */
+class StyleTable {
+
+    private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+    // Fill 0 (none) and fill 1 (gray125) are reserved by the format.
+    private static final int FIRST_CUSTOM_FILL_ID = 2;
+    private static final short DEFAULT_FONT_COLOR = IndexedColors.BLACK.getIndex();
+
+    private final Map<StyleKey, Integer> styles = new LinkedHashMap<>();
+    private final Map<String, Integer> customFormats = new LinkedHashMap<>();
+    private final Map<FontKey, Integer> fonts = new LinkedHashMap<>();
+    private final Map<Short, Integer> fills = new LinkedHashMap<>();
+
+    StyleTable() {
+        indexOf(StyleKey.header(false));
+        indexOf(StyleKey.header(true));
+        for (ColumnType type : ColumnType.values()) {
+            indexOf(StyleKey.dataColumn(type.defaultFormat()));
+        }
+    }
+
+    int indexOf(StyleKey key) {
+        Integer index = styles.get(key);
+        if (index == null) {
+            register(key);
+            index = styles.size() + 1;
+            styles.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Number of styles created on top of the default style.
+     */
+    int size() {
+        return styles.size();
+    }
+
+    void write(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeStartElement("styleSheet");
+        xml.writeDefaultNamespace(SpreadsheetMl.MAIN_NS);
+
+        if (!customFormats.isEmpty()) {
+            xml.writeStartElement("numFmts");
+            xml.writeAttribute("count", String.valueOf(customFormats.size()));
+            for (Map.Entry<String, Integer> format : customFormats.entrySet()) {
+                xml.writeEmptyElement("numFmt");
+                xml.writeAttribute("numFmtId", String.valueOf(format.getValue()));
+                xml.writeAttribute("formatCode", format.getKey());
+            }
+            xml.writeEndElement();
+        }
+
+        xml.writeStartElement("fonts");
+        xml.writeAttribute("count", String.valueOf(fonts.size() + 1));
+        writeFont(xml, false, null);
+        for (FontKey font : fonts.keySet()) {
+            writeFont(xml, font.bold(), font.color());
+        }
+        xml.writeEndElement();
+
+        xml.writeStartElement("fills");
+        xml.writeAttribute("count", String.valueOf(fills.size() + FIRST_CUSTOM_FILL_ID));
+        writePatternFill(xml, "none", null);
+        writePatternFill(xml, "gray125", null);
+        for (Short color : fills.keySet()) {
+            writePatternFill(xml, "solid", color);
+        }
+        xml.writeEndElement();
+
+        xml.writeStartElement("borders");
+        xml.writeAttribute("count", "1");
+        xml.writeStartElement("border");
+        for (String side : new String[]{"left", "right", "top", "bottom", "diagonal"}) {
+            xml.writeEmptyElement(side);
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+
+        xml.writeStartElement("cellStyleXfs");
+        xml.writeAttribute("count", "1");
+        writeDefaultXf(xml, false);
+        xml.writeEndElement();
+
+        xml.writeStartElement("cellXfs");
+        xml.writeAttribute("count", String.valueOf(styles.size() + 1));
+        writeDefaultXf(xml, true);
+        for (StyleKey key : styles.keySet()) {
+            writeXf(xml, key);
+        }
+        xml.writeEndElement();
+
+        xml.writeStartElement("cellStyles");
+        xml.writeAttribute("count", "1");
+        xml.writeEmptyElement("cellStyle");
+        xml.writeAttribute("name", "Normal");
+        xml.writeAttribute("xfId", "0");
+        xml.writeAttribute("builtinId", "0");
+        xml.writeEndElement();
+
+        xml.writeEndElement();
+    }
+
+    private void register(StyleKey key) {
+        if (key.dataFormat() != null && BuiltinFormats.getBuiltinFormat(key.dataFormat()) < 0) {
+            customFormats.computeIfAbsent(key.dataFormat(), format -> FIRST_CUSTOM_FORMAT_ID + customFormats.size());
+        }
+        if (key.font() != null) {
+            fonts.computeIfAbsent(key.font(), font -> fonts.size() + 1);
+        }
+        if (key.fillColor() != null) {
+            fills.computeIfAbsent(key.fillColor(), color -> fills.size() + FIRST_CUSTOM_FILL_ID);
+        }
+    }
+
+    private void writeXf(XMLStreamWriter xml, StyleKey key) throws XMLStreamException {
+        int numFmtId = key.dataFormat() == null ? 0 : formatId(key.dataFormat());
+        int fontId = key.font() == null ? 0 : fonts.get(key.font());
+        int fillId = key.fillColor() == null ? 0 : fills.get(key.fillColor());
+
+        xml.writeStartElement("xf");
+        xml.writeAttribute("numFmtId", String.valueOf(numFmtId));
+        xml.writeAttribute("fontId", String.valueOf(fontId));
+        xml.writeAttribute("fillId", String.valueOf(fillId));
+        xml.writeAttribute("borderId", "0");
+        xml.writeAttribute("xfId", "0");
+        if (numFmtId != 0) {
+            xml.writeAttribute("applyNumberFormat", "1");
+        }
+        if (fontId != 0) {
+            xml.writeAttribute("applyFont", "1");
+        }
+        if (fillId != 0) {
+            xml.writeAttribute("applyFill", "1");
+        }
+        boolean aligned = key.horizontalAlignment() != null || key.verticalAlignment() != null;
+        if (aligned) {
+            xml.writeAttribute("applyAlignment", "1");
+            xml.writeEmptyElement("alignment");
+            if (key.horizontalAlignment() != null) {
+                xml.writeAttribute("horizontal", key.horizontalAlignment().name().toLowerCase(Locale.ROOT));
+            }
+            if (key.verticalAlignment() != null) {
+                xml.writeAttribute("vertical", key.verticalAlignment().name().toLowerCase(Locale.ROOT));
+            }
+        }
+        xml.writeEmptyElement("protection");
+        xml.writeAttribute("locked", key.locked() ? "1" : "0");
+        xml.writeEndElement();
+    }
+
+    private int formatId(String format) {
+        int builtin = BuiltinFormats.getBuiltinFormat(format);
+        return builtin >= 0 ? builtin : customFormats.get(format);
+    }
+
+    private static void writeDefaultXf(XMLStreamWriter xml, boolean withParent) throws XMLStreamException {
+        xml.writeEmptyElement("xf");
+        xml.writeAttribute("numFmtId", "0");
+        xml.writeAttribute("fontId", "0");
+        xml.writeAttribute("fillId", "0");
+        xml.writeAttribute("borderId", "0");
+        if (withParent) {
+            xml.writeAttribute("xfId", "0");
+        }
+    }
+
+    private static void writeFont(XMLStreamWriter xml, boolean bold, Short color) throws XMLStreamException {
+        xml.writeStartElement("font");
+        if (bold) {
+            xml.writeEmptyElement("b");
+        }
+        xml.writeEmptyElement("sz");
+        xml.writeAttribute("val", "11");
+        xml.writeEmptyElement("color");
+        xml.writeAttribute("indexed", String.valueOf(color != null ? color : DEFAULT_FONT_COLOR));
+        xml.writeEmptyElement("name");
+        xml.writeAttribute("val", "Calibri");
+        xml.writeEmptyElement("family");
+        xml.writeAttribute("val", "2");
+        if (color == null) {
+            xml.writeEmptyElement("scheme");
+            xml.writeAttribute("val", "minor");
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writePatternFill(XMLStreamWriter xml, String pattern, Short color) throws XMLStreamException {
+        xml.writeStartElement("fill");
+        if (color == null) {
+            xml.writeEmptyElement("patternFill");
+            xml.writeAttribute("patternType", pattern);
+        } else {
+            xml.writeStartElement("patternFill");
+            xml.writeAttribute("patternType", pattern);
+            xml.writeEmptyElement("fgColor");
+            xml.writeAttribute("indexed", String.valueOf(color));
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+}
@@ -0,0 +1,29 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.RenderPlan;
+import com.db.dbcover.template.TemplateSheetResolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a compiled render plan as an {@code .xlsx} workbook. Implementations must not close the
+ * output stream.
+ */
+public interface WorkbookRenderer {
+
+    void render(RenderPlan plan,
+                OutputStream outputStream,
+                GenerationRecorder recorder) throws IOException;
+
+    /**
+     * Compiles {@code templateDefinition} and renders it; for definitions without a prepared plan.
+     */
+    default void render(ExcelTemplateDefinition templateDefinition,
+                        OutputStream outputStream,
+                        GenerationRecorder recorder) throws IOException {
+        render(TemplateSheetResolver.compile(templateDefinition), outputStream, recorder);
+    }
+}
@@ -0,0 +1,90 @@
+package com.db.dbcover.service.sheet;
+
+import lombok.RequiredArgsConstructor;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns cell styles and fonts for a single workbook so that columns sharing a format reuse
+ * one {@link CellStyle} instead of each adding a near-identical entry to {@code styles.xml}.
+ */
+@RequiredArgsConstructor
+public class CellStylePool {
+
+    private final Workbook workbook;
+    private final DataFormat dataFormat;
+
+    private final Map<StyleKey, CellStyle> styles = new HashMap<>();
+    private final Map<FontKey, Font> fonts = new HashMap<>();
+
+    public CellStyle obtain(StyleKey key) {
+        return styles.computeIfAbsent(key, this::createStyle);
+    }
+
+    public int size() {
+        return styles.size();
+    }
+
+    private CellStyle createStyle(StyleKey key) {
+        CellStyle style = workbook.createCellStyle();
+        if (key.dataFormat() != null) {
+            style.setDataFormat(dataFormat.getFormat(key.dataFormat()));
+        }
+        if (key.fillColor() != null) {
+            style.setFillForegroundColor(key.fillColor());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        if (key.font() != null) {
+            style.setFont(fonts.computeIfAbsent(key.font(), this::createFont));
+        }
+        if (key.horizontalAlignment() != null) {
+            style.setAlignment(key.horizontalAlignment());
+        }
+        if (key.verticalAlignment() != null) {
+            style.setVerticalAlignment(key.verticalAlignment());
+        }
+        style.setLocked(key.locked());
+        return style;
+    }
+
+    private Font createFont(FontKey key) {
+        Font font = workbook.createFont();
+        font.setBold(key.bold());
+        font.setColor(key.color());
+        return font;
+    }
+
+    public record StyleKey(String dataFormat,
+                           boolean locked,
+                           FontKey font,
+                           Short fillColor,
+                           HorizontalAlignment horizontalAlignment,
+                           VerticalAlignment verticalAlignment) {
+
+        public static StyleKey dataColumn(String dataFormat) {
+            return new StyleKey(dataFormat, false, null, null, null, null);
+        }
+
+        public static StyleKey header(boolean required) {
+            IndexedColors fontColor = required ? IndexedColors.LIGHT_YELLOW : IndexedColors.WHITE;
+            return new StyleKey(null, true,
+                    new FontKey(true, fontColor.getIndex()),
+                    IndexedColors.GREY_25_PERCENT.getIndex(),
+                    HorizontalAlignment.LEFT,
+                    VerticalAlignment.CENTER);
+        }
+    }
+
+    public record FontKey(boolean bold, short color) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.db.dbcover.service.sheet;
+
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.RowExtent;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Decides which validations a column gets, independent of the workbook backend that writes them.
+ * Value rules cover the data rows below the header; tooltip rules start at the header row so the
+ * prompt also shows when the header cell is selected. Both end on the last row of the sheet's
+ * {@link RowExtent}. The inputs come pre-resolved from the {@link ColumnSpec}, so only the row
+ * bounds and the list placement are decided per sheet.
+ */
+public class ColumnRules {
+
+    private static final int MAX_INLINE_LIST_LENGTH = 255;
+
+    private final int headerRowIndex;
+    private final ListValidationMode listValidationMode;
+
+    public ColumnRules(int headerRowIndex, ListValidationMode listValidationMode) {
+        this.headerRowIndex = headerRowIndex;
+        this.listValidationMode = listValidationMode;
+    }
+
+    /**
+     * Returns the value rule for the column, or {@code null} when its type is unconstrained.
+     * Lists that must live on the lookup sheet are resolved to a range name through
+     * {@code lookupNames}.
+     */
+    public ValidationRule valueRule(ColumnSpec column, RowExtent dataRows, Function<List<String>, String> lookupNames) {
+        int firstRow = headerRowIndex + 1;
+        int lastRow = dataRows.lastRowIndex(firstRow);
+
+        return switch (column.type()) {
+            case LIST, BOOLEAN -> {
+                List<String> values = column.allowedValues();
+                if (values.isEmpty()) {
+                    yield null;
+                }
+                yield useLookupSheet(column)
+                        ? ValidationRule.namedList(lookupNames.apply(values), firstRow, lastRow)
+                        : ValidationRule.list(values, firstRow, lastRow);
+            }
+            case DATE -> ValidationRule.date("DATE(1900,1,1)", "DATE(9999,12,31)", firstRow, lastRow);
+            case NUMBER -> ValidationRule.decimal("-1E307", "1E307", firstRow, lastRow);
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the prompt rule showing the column tooltip, or {@code null} when there is nothing
+     * to show. The rule accepts every value and does not depend on the column, so columns with
+     * the same tooltip share one validation.
+     */
+    public ValidationRule tooltipRule(ColumnSpec column, RowExtent dataRows) {
+        if (!column.hasTooltip()) {
+            return null;
+        }
+        return ValidationRule.prompt(
+                "TRUE",
+                column.tooltip(),
+                headerRowIndex,
+                dataRows.lastRowIndex(headerRowIndex + 1));
+    }
+
+    private boolean useLookupSheet(ColumnSpec column) {
+        return switch (listValidationMode) {
+            case INLINE -> false;
+            case LOOKUP_SHEET -> true;
+            case AUTO -> column.inlineListLength() < 0 || column.inlineListLength() > MAX_INLINE_LIST_LENGTH;
+        };
+    }
+}
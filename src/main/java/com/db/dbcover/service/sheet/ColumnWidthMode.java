@@ -0,0 +1,12 @@
+package com.db.dbcover.service.sheet;
+
+public enum ColumnWidthMode {
+    /**
+     * Measures header glyphs through POI's AWT-backed {@code Sheet#autoSizeColumn}.
+     */
+    AUTO_SIZE,
+    /**
+     * Derives widths from built-in character width tables without touching AWT.
+     */
+    ESTIMATE
+}
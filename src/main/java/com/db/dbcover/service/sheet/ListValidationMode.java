@@ -0,0 +1,16 @@
+package com.db.dbcover.service.sheet;
+
+public enum ListValidationMode {
+    /**
+     * Inlines the allowed values into every list validation.
+     */
+    INLINE,
+    /**
+     * Writes every distinct list once to a hidden lookup sheet and references it by name.
+     */
+    LOOKUP_SHEET,
+    /**
+     * Inlines lists that fit Excel's 255 character limit and moves the rest to the lookup sheet.
+     */
+    AUTO
+}
@@ -0,0 +1,83 @@
+package com.db.dbcover.service.sheet;
+
+import com.db.dbcover.template.TemplateContentHash;
+import lombok.RequiredArgsConstructor;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetVisibility;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellReference;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hidden, protected sheet holding allowed-value lists that are too long to inline. Each distinct
+ * list occupies one column and is exposed through a workbook-level name derived from its content,
+ * so every sheet referencing the same values shares a single copy.
+ */
+@RequiredArgsConstructor
+public class LookupSheet {
+
+    public static final String SHEET_NAME = "_LOOKUPS";
+
+    private final Workbook workbook;
+
+    private final Map<List<String>, String> namesByValues = new HashMap<>();
+    private Sheet sheet;
+
+    public String nameFor(List<String> values) {
+        return namesByValues.computeIfAbsent(List.copyOf(values), this::writeList);
+    }
+
+    /**
+     * Moves the lookup sheet behind all template sheets and hides it. Must be called once after
+     * every template sheet has been built.
+     */
+    public void finish() {
+        if (sheet == null) {
+            return;
+        }
+        workbook.setSheetOrder(SHEET_NAME, workbook.getNumberOfSheets() - 1);
+        workbook.setSheetVisibility(workbook.getSheetIndex(sheet), SheetVisibility.VERY_HIDDEN);
+    }
+
+    public static String rangeName(List<String> values) {
+        return "LIST_" + TemplateContentHash.of(values).substring(0, 16).toUpperCase();
+    }
+
+    private String writeList(List<String> values) {
+        Sheet lookup = getSheet();
+        int columnIndex = namesByValues.size();
+        for (int rowIndex = 0; rowIndex < values.size(); rowIndex++) {
+            Row row = lookup.getRow(rowIndex);
+            if (row == null) {
+                row = lookup.createRow(rowIndex);
+            }
+            row.createCell(columnIndex).setCellValue(values.get(rowIndex));
+        }
+
+        String name = rangeName(values);
+        AreaReference area = new AreaReference(
+                new CellReference(SHEET_NAME, 0, columnIndex, true, true),
+                new CellReference(SHEET_NAME, values.size() - 1, columnIndex, true, true),
+                SpreadsheetVersion.EXCEL2007);
+        Name definedName = workbook.createName();
+        definedName.setNameName(name);
+        definedName.setRefersToFormula(area.formatAsString());
+        return name;
+    }
+
+    private Sheet getSheet() {
+        if (sheet == null) {
+            sheet = workbook.createSheet(SHEET_NAME);
+            sheet.protectSheet(SHEET_NAME);
+        }
+        return sheet;
+    }
+}
@@ -1,55 +1,73 @@
 package com.db.dbcover.service.sheet;
 
-import com.db.dbcover.template.ExcelTemplateDefinition.Column;
-import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.service.metrics.GenerationPhase;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.RowExtent;
+import com.db.dbcover.template.SheetPlan;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
+import java.util.List;
+
 public class SheetBuilder {
 
     private final Workbook workbook;
     private final SheetFormatter formatter;
     private final int headerRowIndex;
+    private final GenerationRecorder recorder;
 
     public SheetBuilder(Workbook workbook, SheetFormatter formatter, int headerRowIndex) {
+        this(workbook, formatter, headerRowIndex, GenerationRecorder.NOOP);
+    }
+
+    public SheetBuilder(Workbook workbook, SheetFormatter formatter, int headerRowIndex, GenerationRecorder recorder) {
         this.workbook = workbook;
         this.formatter = formatter;
         this.headerRowIndex = headerRowIndex;
+        this.recorder = recorder;
+    }
+
+    public void buildSheet(SheetPlan sheetPlan) {
+        buildSheet(sheetPlan, sheetPlan.dataRows(formatter.getDataRows()));
     }
 
-    public void buildSheet(TemplateSheet sheetDefinition) {
-        Sheet sheet = initializeSheet(sheetDefinition);
-        int columnCount = populateColumns(sheet, sheetDefinition);
-        formatter.finalizeSheet(sheet, columnCount);
+    public void buildSheet(SheetPlan sheetPlan, RowExtent dataRows) {
+        Sheet sheet = initializeSheet(sheetPlan);
+        populateColumns(sheet, sheetPlan, dataRows);
+        formatter.finalizeSheet(sheet, sheetPlan.columns());
+        recorder.sheetBuilt(sheetPlan.columnCount());
     }
 
-    private Sheet initializeSheet(TemplateSheet sheetDefinition) {
-        Sheet sheet = workbook.createSheet(sheetDefinition.getName());
+    private Sheet initializeSheet(SheetPlan sheetPlan) {
+        long started = recorder.start();
+        Sheet sheet = workbook.createSheet(sheetPlan.name());
         sheet.createRow(headerRowIndex);
-        sheet.protectSheet(sheetDefinition.getName());
+        sheet.protectSheet(sheetPlan.name());
+        recorder.stop(GenerationPhase.SHEET_SETUP, started);
         return sheet;
     }
 
-    private int populateColumns(Sheet sheet, TemplateSheet sheetDefinition) {
-        int columnIndex = 0;
-        for (Column column : sheetDefinition.getColumns()) {
-            processColumn(sheet, columnIndex, column);
-            columnIndex++;
+    private void populateColumns(Sheet sheet, SheetPlan sheetPlan, RowExtent dataRows) {
+        List<ColumnSpec> columns = sheetPlan.columns();
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            processColumn(sheet, columnIndex, columns.get(columnIndex), dataRows);
         }
-        return columnIndex;
     }
 
-    private void processColumn(Sheet sheet, int columnIndex, Column column) {
+    private void processColumn(Sheet sheet, int columnIndex, ColumnSpec column, RowExtent dataRows) {
         formatter.applyColumnFormat(sheet, columnIndex, column);
-        formatter.applyColumnValidation(sheet, columnIndex, column);
-        formatter.applyColumnTooltip(sheet, columnIndex, column);
+        formatter.applyColumnValidation(sheet, columnIndex, column, dataRows);
+        formatter.applyColumnTooltip(sheet, columnIndex, column, dataRows);
 
+        long started = recorder.start();
         Row headerRow = sheet.getRow(headerRowIndex);
         Cell headerCell = headerRow.createCell(columnIndex);
-        headerCell.setCellValue(column.getHeader());
-        formatter.applyHeaderStyle(headerCell, column.isRequired());
+        headerCell.setCellValue(column.header());
+        recorder.stop(GenerationPhase.SHEET_SETUP, started);
+        formatter.applyHeaderStyle(headerCell, column.required());
     }
 }
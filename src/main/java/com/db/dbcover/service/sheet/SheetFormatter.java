@@ -1,118 +1,124 @@
 package com.db.dbcover.service.sheet;
 
-import com.db.dbcover.template.ExcelTemplateDefinition.Column;
-import lombok.RequiredArgsConstructor;
+import com.db.dbcover.service.metrics.GenerationPhase;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.sheet.CellStylePool.StyleKey;
+import com.db.dbcover.template.ColumnSpec;
+import com.db.dbcover.template.ColumnWidthEstimator;
+import com.db.dbcover.template.RowExtent;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.DataFormat;
-import org.apache.poi.ss.usermodel.DataValidation;
-import org.apache.poi.ss.usermodel.DataValidationConstraint;
-import org.apache.poi.ss.usermodel.DataValidationHelper;
-import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.ss.util.CellRangeAddressList;
 
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
-@RequiredArgsConstructor
 public class SheetFormatter {
 
     private final Workbook workbook;
     private final DataFormat dataFormat;
     private final int headerRowIndex;
-    private final int initialDataRows;
+    private final RowExtent dataRows;
+    private final ColumnWidthMode columnWidthMode;
+    private final ColumnRules columnRules;
+    private final GenerationRecorder recorder;
+
+    private CellStylePool stylePool;
+    private LookupSheet lookupSheet;
+    private final Map<Sheet, SheetValidations> pendingValidations = new IdentityHashMap<>();
+
+    public SheetFormatter(Workbook workbook,
+                          DataFormat dataFormat,
+                          int headerRowIndex,
+                          RowExtent dataRows,
+                          ColumnWidthMode columnWidthMode,
+                          ListValidationMode listValidationMode) {
+        this(workbook, dataFormat, headerRowIndex, dataRows, columnWidthMode, listValidationMode,
+                GenerationRecorder.NOOP);
+    }
 
-    private CellStyle headerStyle;
-    private CellStyle requiredHeaderStyle;
+    public SheetFormatter(Workbook workbook,
+                          DataFormat dataFormat,
+                          int headerRowIndex,
+                          RowExtent dataRows,
+                          ColumnWidthMode columnWidthMode,
+                          ListValidationMode listValidationMode,
+                          GenerationRecorder recorder) {
+        this.workbook = workbook;
+        this.dataFormat = dataFormat;
+        this.headerRowIndex = headerRowIndex;
+        this.dataRows = dataRows;
+        this.columnWidthMode = columnWidthMode;
+        this.columnRules = new ColumnRules(headerRowIndex, listValidationMode);
+        this.recorder = recorder;
+    }
 
-    public void applyColumnFormat(Sheet sheet, int columnIndex, Column column) {
-        String normalizedFormat = column.resolvedFormat();
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(dataFormat.getFormat(normalizedFormat));
-        style.setLocked(false);
+    public void applyColumnFormat(Sheet sheet, int columnIndex, ColumnSpec column) {
+        long started = recorder.start();
+        CellStyle style = getStylePool().obtain(StyleKey.dataColumn(column.format()));
         sheet.setDefaultColumnStyle(columnIndex, style);
+        recorder.stop(GenerationPhase.STYLES, started);
+    }
+
+    public void applyColumnValidation(Sheet sheet, int columnIndex, ColumnSpec column) {
+        applyColumnValidation(sheet, columnIndex, column, dataRows);
     }
 
-    public void applyColumnValidation(Sheet sheet, int columnIndex, Column column) {
-        DataValidationConstraint constraint;
-
-        DataValidationHelper helper = sheet.getDataValidationHelper();
-        switch (column.resolvedType()) {
-            case LIST, BOOLEAN -> {
-                List<String> values = column.resolvedAllowedValues();
-                if (values.isEmpty()) {
-                    return;
-                }
-                constraint = helper.createExplicitListConstraint(values.toArray(String[]::new));
-            }
-            case DATE ->
-                    constraint = helper.createDateConstraint(
-                            DataValidationConstraint.OperatorType.BETWEEN,
-                            "DATE(1900,1,1)",
-                            "DATE(9999,12,31)",
-                            null
-                    );
-            case NUMBER ->
-                    constraint = helper.createNumericConstraint(
-                            DataValidationConstraint.ValidationType.DECIMAL,
-                            DataValidationConstraint.OperatorType.BETWEEN,
-                            "-1E307",
-                            "1E307"
-                    );
-            default -> {
-                return;
-            }
+    public void applyColumnValidation(Sheet sheet, int columnIndex, ColumnSpec column, RowExtent sheetDataRows) {
+        long started = recorder.start();
+        addColumnValidation(sheet, columnIndex, column, sheetDataRows);
+        recorder.stop(GenerationPhase.VALIDATIONS, started);
+    }
+
+    private void addColumnValidation(Sheet sheet, int columnIndex, ColumnSpec column, RowExtent sheetDataRows) {
+        ValidationRule rule = columnRules.valueRule(column, sheetDataRows, values -> getLookupSheet().nameFor(values));
+        if (rule != null) {
+            validationsFor(sheet).add(rule, columnIndex);
         }
+    }
 
-        int firstRow = headerRowIndex + 1;
-        CellRangeAddressList addressList = new CellRangeAddressList(
-                firstRow,
-                firstRow + initialDataRows,
-                columnIndex,
-                columnIndex
-        );
-        DataValidation validation = helper.createValidation(constraint, addressList);
-        validation.setShowErrorBox(true);
-        sheet.addValidationData(validation);
-    }
-
-    public void applyColumnTooltip(Sheet sheet, int columnIndex, Column column) {
-        String tooltip = resolveColumnTooltip(column);
-        if (tooltip.isBlank()) {
+    public void applyColumnTooltip(Sheet sheet, int columnIndex, ColumnSpec column) {
+        applyColumnTooltip(sheet, columnIndex, column, dataRows);
+    }
+
+    public void applyColumnTooltip(Sheet sheet, int columnIndex, ColumnSpec column, RowExtent sheetDataRows) {
+        ValidationRule rule = columnRules.tooltipRule(column, sheetDataRows);
+        if (rule == null) {
             return;
         }
 
-        DataValidationHelper dvHelper = sheet.getDataValidationHelper();
-        DataValidationConstraint dvConstraint = dvHelper.createCustomConstraint("ISNUMBER(" + columnIndex + ")");
+        long started = recorder.start();
+        validationsFor(sheet).add(rule, columnIndex);
+        recorder.stop(GenerationPhase.VALIDATIONS, started);
+    }
 
-        CellRangeAddressList addressList = new CellRangeAddressList(
-                headerRowIndex,
-                headerRowIndex + initialDataRows,
-                columnIndex,
-                columnIndex
-        );
+    public void applyHeaderStyle(Cell headerCell, boolean required) {
+        long started = recorder.start();
+        headerCell.setCellStyle(getStylePool().obtain(StyleKey.header(required)));
+        recorder.stop(GenerationPhase.STYLES, started);
+    }
 
-        DataValidation validation = dvHelper.createValidation(dvConstraint, addressList);
-        validation.createPromptBox("", tooltip);
-        validation.setShowPromptBox(true);
+    public RowExtent getDataRows() {
+        return dataRows;
+    }
 
-        sheet.addValidationData(validation);
+    public int distinctStyleCount() {
+        return stylePool != null ? stylePool.size() : 0;
     }
 
-    public void applyHeaderStyle(Cell headerCell, boolean required) {
-        CellStyle style = required ? getRequiredHeaderStyle() : getHeaderStyle();
-        headerCell.setCellStyle(style);
+    public void finalizeWorkbook() {
+        if (lookupSheet != null) {
+            lookupSheet.finish();
+        }
     }
 
-    public void finalizeSheet(Sheet sheet, int columnCount) {
+    public void finalizeSheet(Sheet sheet, List<ColumnSpec> columns) {
+        int columnCount = columns.size();
         if (columnCount > 0) {
             sheet.setAutoFilter(new CellRangeAddress(
                     headerRowIndex, headerRowIndex,
@@ -120,60 +126,49 @@ public class SheetFormatter {
         }
 
         sheet.createFreezePane(headerRowIndex, 1);
-        autoSizeWithFilterPadding(sheet, 0, columnCount - 1);
-    }
 
-    private CellStyle getHeaderStyle() {
-        if (headerStyle == null) {
-            headerStyle = createHeaderStyle(false);
-        }
-        return headerStyle;
-    }
+        long sizingStarted = recorder.start();
+        sizeWithFilterPadding(sheet, columns);
+        recorder.stop(GenerationPhase.COLUMN_SIZING, sizingStarted);
 
-    private CellStyle getRequiredHeaderStyle() {
-        if (requiredHeaderStyle == null) {
-            requiredHeaderStyle = createHeaderStyle(true);
+        SheetValidations validations = pendingValidations.remove(sheet);
+        if (validations != null) {
+            long validationsStarted = recorder.start();
+            recorder.validationsEmitted(validations.flush(sheet));
+            recorder.stop(GenerationPhase.VALIDATIONS, validationsStarted);
         }
-        return requiredHeaderStyle;
     }
 
-    private CellStyle createHeaderStyle(boolean required) {
-        CellStyle style = workbook.createCellStyle();
-        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        Font font = workbook.createFont();
-        font.setBold(true);
-        font.setColor(required ? IndexedColors.LIGHT_YELLOW.getIndex() : IndexedColors.WHITE.getIndex());
-        style.setFont(font);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        style.setAlignment(HorizontalAlignment.LEFT);
-        style.setLocked(true);
-
-        return style;
+    private SheetValidations validationsFor(Sheet sheet) {
+        return pendingValidations.computeIfAbsent(sheet, key -> new SheetValidations());
     }
 
-    private void autoSizeWithFilterPadding(Sheet sheet, int firstCol, int lastCol) {
-        final double FILTER_PADDING_PCT = 1.25;
-
-        for (int col = firstCol; col <= lastCol; col++) {
-            sheet.autoSizeColumn(col);
-            int currentWidth = sheet.getColumnWidth(col);
+    private LookupSheet getLookupSheet() {
+        if (lookupSheet == null) {
+            lookupSheet = new LookupSheet(workbook);
+        }
+        return lookupSheet;
+    }
 
-            int newWidth = (int) (currentWidth * FILTER_PADDING_PCT);
-            sheet.setColumnWidth(col, newWidth);
+    private CellStylePool getStylePool() {
+        if (stylePool == null) {
+            stylePool = new CellStylePool(workbook, dataFormat);
         }
+        return stylePool;
     }
 
-    private String resolveColumnTooltip(Column column) {
-        return Optional.ofNullable(column.getTooltip())
-                .filter(value -> !value.isBlank())
-                .orElseGet(() -> buildInfoCellValue(column));
+    private void sizeWithFilterPadding(Sheet sheet, List<ColumnSpec> columns) {
+        for (int col = 0; col < columns.size(); col++) {
+            int currentWidth = measureColumn(sheet, col, columns.get(col));
+            sheet.setColumnWidth(col, ColumnWidthEstimator.withFilterPadding(currentWidth));
+        }
     }
 
-    private String buildInfoCellValue(Column column) {
-        return Optional.ofNullable(column.getDescription())
-                .filter(value -> !value.isBlank())
-                .orElse("");
+    private int measureColumn(Sheet sheet, int columnIndex, ColumnSpec column) {
+        if (columnWidthMode == ColumnWidthMode.AUTO_SIZE) {
+            sheet.autoSizeColumn(columnIndex);
+            return sheet.getColumnWidth(columnIndex);
+        }
+        return column.widthHint();
     }
 }
@@ -0,0 +1,77 @@
+package com.db.dbcover.service.sheet;
+
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddressList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the validations of one sheet while its columns are processed and emits one
+ * validation per distinct rule, covering every column that uses it. Adjacent columns are
+ * folded into a single range.
+ */
+public class SheetValidations {
+
+    private final Map<ValidationRule, List<Integer>> columnsByRule = new LinkedHashMap<>();
+
+    public void add(ValidationRule rule, int columnIndex) {
+        columnsByRule.computeIfAbsent(rule, key -> new ArrayList<>()).add(columnIndex);
+    }
+
+    /**
+     * Returns every distinct rule, in the order it was first added, with the cell ranges it covers.
+     */
+    public Map<ValidationRule, CellRangeAddressList> merged() {
+        Map<ValidationRule, CellRangeAddressList> merged = new LinkedHashMap<>();
+        columnsByRule.forEach((rule, columns) -> merged.put(rule, toAddressList(rule, columns)));
+        return merged;
+    }
+
+    public boolean isEmpty() {
+        return columnsByRule.isEmpty();
+    }
+
+    public int flush(Sheet sheet) {
+        if (columnsByRule.isEmpty()) {
+            return 0;
+        }
+        DataValidationHelper helper = sheet.getDataValidationHelper();
+        for (Map.Entry<ValidationRule, CellRangeAddressList> entry : merged().entrySet()) {
+            ValidationRule rule = entry.getKey();
+            DataValidation validation = helper.createValidation(
+                    rule.toConstraint(helper),
+                    entry.getValue());
+            if (rule.hasPrompt()) {
+                validation.createPromptBox("", rule.promptText());
+                validation.setShowPromptBox(true);
+            } else {
+                validation.setShowErrorBox(true);
+            }
+            sheet.addValidationData(validation);
+        }
+        int emitted = columnsByRule.size();
+        columnsByRule.clear();
+        return emitted;
+    }
+
+    private static CellRangeAddressList toAddressList(ValidationRule rule, List<Integer> columns) {
+        CellRangeAddressList addressList = new CellRangeAddressList();
+        int start = columns.get(0);
+        int previous = start;
+        for (int i = 1; i < columns.size(); i++) {
+            int column = columns.get(i);
+            if (column != previous + 1) {
+                addressList.addCellRangeAddress(rule.firstRow(), start, rule.lastRow(), previous);
+                start = column;
+            }
+            previous = column;
+        }
+        addressList.addCellRangeAddress(rule.firstRow(), start, rule.lastRow(), previous);
+        return addressList;
+    }
+}
@@ -0,0 +1,79 @@
+package com.db.dbcover.service.sheet;
+
+import org.apache.poi.ss.usermodel.DataValidationConstraint;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Value description of a data validation, independent of the columns it applies to. Two columns
+ * with equal rules can share one {@code <dataValidation>} element.
+ */
+public record ValidationRule(Kind kind,
+                             List<String> listValues,
+                             String formula1,
+                             String formula2,
+                             String promptText,
+                             int firstRow,
+                             int lastRow) {
+
+    private static final int MAX_EXPLICIT_LIST_LENGTH = 255;
+
+    public enum Kind {
+        LIST, NAMED_LIST, DATE, DECIMAL, CUSTOM
+    }
+
+    public static ValidationRule list(List<String> values, int firstRow, int lastRow) {
+        return new ValidationRule(Kind.LIST, List.copyOf(values), null, null, null, firstRow, lastRow);
+    }
+
+    public static ValidationRule namedList(String rangeName, int firstRow, int lastRow) {
+        return new ValidationRule(Kind.NAMED_LIST, List.of(), rangeName, null, null, firstRow, lastRow);
+    }
+
+    public static ValidationRule date(String from, String to, int firstRow, int lastRow) {
+        return new ValidationRule(Kind.DATE, List.of(), from, to, null, firstRow, lastRow);
+    }
+
+    public static ValidationRule decimal(String min, String max, int firstRow, int lastRow) {
+        return new ValidationRule(Kind.DECIMAL, List.of(), min, max, null, firstRow, lastRow);
+    }
+
+    public static ValidationRule prompt(String formula, String promptText, int firstRow, int lastRow) {
+        return new ValidationRule(Kind.CUSTOM, List.of(), formula, null, promptText, firstRow, lastRow);
+    }
+
+    public boolean hasPrompt() {
+        return promptText != null;
+    }
+
+    /**
+     * Returns the quoted {@code formula1} of a {@link Kind#LIST} rule. Quotes inside values are
+     * doubled, and the joined values must stay within Excel's 255 character limit.
+     */
+    public String explicitListFormula() {
+        String joined = listValues.stream()
+                .map(value -> value.replace("\"", "\"\""))
+                .collect(Collectors.joining(","));
+        if (joined.length() > MAX_EXPLICIT_LIST_LENGTH) {
+            throw new IllegalArgumentException("A list of values must be less than or equal to "
+                    + MAX_EXPLICIT_LIST_LENGTH + " characters (including separators).");
+        }
+        return "\"" + joined + "\"";
+    }
+
+    public DataValidationConstraint toConstraint(DataValidationHelper helper) {
+        return switch (kind) {
+            // POI's explicit list constraint does not escape quotes, so the formula is built here.
+            case LIST -> helper.createFormulaListConstraint(explicitListFormula());
+            case NAMED_LIST -> helper.createFormulaListConstraint(formula1);
+            case DATE -> helper.createDateConstraint(
+                    DataValidationConstraint.OperatorType.BETWEEN, formula1, formula2, null);
+            case DECIMAL -> helper.createNumericConstraint(
+                    DataValidationConstraint.ValidationType.DECIMAL,
+                    DataValidationConstraint.OperatorType.BETWEEN, formula1, formula2);
+            case CUSTOM -> helper.createCustomConstraint(formula1);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.db.dbcover.service.upload;
+
+/**
+ * Raw value of a single uploaded cell as stored in the sheet XML, before any formatting.
+ * {@link Kind#DATE} values are ISO-8601 dates or date-times ({@code t="d"} cells).
+ */
+public record CellValue(Kind kind, String value) {
+
+    public enum Kind {
+        NUMBER, STRING, BOOLEAN, DATE, ERROR
+    }
+
+    public boolean isBlank() {
+        return value == null || value.isBlank();
+    }
+}
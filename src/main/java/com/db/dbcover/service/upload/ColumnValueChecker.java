@@ -0,0 +1,162 @@
+package com.db.dbcover.service.upload;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks uploaded cell values against one template column: required flag, resolved type,
+ * allowed values and, for dates entered as text, the column format.
+ */
+class ColumnValueChecker {
+
+    // Serial numbers of 1900-01-01 and 9999-12-31, the bounds used by the template validation.
+    private static final double MIN_DATE_SERIAL = 1;
+    private static final double MAX_DATE_SERIAL = 2958465;
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final Column column;
+    private final ColumnType type;
+    private final Set<String> allowedValues;
+    private final DateTimeFormatter dateFormatter;
+
+    ColumnValueChecker(Column column) {
+        this.column = column;
+        this.type = column.resolvedType();
+        List<String> values = column.resolvedAllowedValues();
+        this.allowedValues = values.isEmpty() ? Set.of() : new HashSet<>(values);
+        this.dateFormatter = type == ColumnType.DATE ? toDateFormatter(column.resolvedFormat()) : null;
+    }
+
+    Column column() {
+        return column;
+    }
+
+    /**
+     * Returns a description of the problem, or {@code null} when the value is acceptable.
+     */
+    String check(CellValue value) {
+        if (value == null || value.isBlank()) {
+            return column.isRequired() ? "Value is required" : null;
+        }
+        if (value.kind() == CellValue.Kind.ERROR) {
+            return "Cell contains an error value: " + value.value();
+        }
+        return switch (type) {
+            case NUMBER -> checkNumber(value);
+            case DATE -> checkDate(value);
+            case LIST, BOOLEAN -> checkAllowed(value);
+            case TEXT -> null;
+        };
+    }
+
+    private String checkNumber(CellValue value) {
+        if (value.kind() == CellValue.Kind.NUMBER || parsesAsNumber(value.value())) {
+            return null;
+        }
+        return "Expected a number but found '" + value.value() + "'";
+    }
+
+    private String checkDate(CellValue value) {
+        if (value.kind() == CellValue.Kind.NUMBER) {
+            double serial = Double.parseDouble(value.value());
+            return serial >= MIN_DATE_SERIAL && serial <= MAX_DATE_SERIAL
+                    ? null
+                    : "Date is outside the supported range";
+        }
+        if (value.kind() == CellValue.Kind.DATE) {
+            LocalDate date = isoDate(value.value());
+            if (date == null) {
+                return "Expected an ISO-8601 date but found '" + value.value() + "'";
+            }
+            return date.isBefore(MIN_DATE) || date.isAfter(MAX_DATE)
+                    ? "Date is outside the supported range"
+                    : null;
+        }
+        if (dateFormatter != null) {
+            try {
+                dateFormatter.parse(value.value().trim());
+                return null;
+            } catch (DateTimeParseException ignored) {
+                // reported below
+            }
+        }
+        return "Expected a date in format " + column.resolvedFormat() + " but found '" + value.value() + "'";
+    }
+
+    private String checkAllowed(CellValue value) {
+        if (allowedValues.isEmpty() || allowedValues.contains(value.value().trim())) {
+            return null;
+        }
+        return "Value '" + value.value() + "' is not one of " + column.resolvedAllowedValues();
+    }
+
+    /**
+     * Parses the value of a {@code t="d"} cell, which is an ISO-8601 date or date-time with an
+     * optional offset; returns {@code null} when it is neither.
+     */
+    private static LocalDate isoDate(String text) {
+        String trimmed = text.trim();
+        DateTimeFormatter formatter = trimmed.indexOf('T') < 0 ? DateTimeFormatter.ISO_DATE : DateTimeFormatter.ISO_DATE_TIME;
+        try {
+            return LocalDate.from(formatter.parse(trimmed));
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static boolean parsesAsNumber(String text) {
+        try {
+            new BigDecimal(text.trim().replace(",", ""));
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Translates an Excel date format such as {@code dd/mm/yyyy} to a strict
+     * {@link DateTimeFormatter}; returns {@code null} for formats that cannot be mapped.
+     */
+    static DateTimeFormatter toDateFormatter(String excelFormat) {
+        StringBuilder pattern = new StringBuilder();
+        int i = 0;
+        while (i < excelFormat.length()) {
+            char ch = Character.toLowerCase(excelFormat.charAt(i));
+            int run = 1;
+            while (i + run < excelFormat.length() && Character.toLowerCase(excelFormat.charAt(i + run)) == ch) {
+                run++;
+            }
+            switch (ch) {
+                case 'y' -> pattern.append(run <= 2 ? "uu" : "uuuu");
+                case 'm' -> pattern.append(run <= 2 ? "M".repeat(run) : run == 3 ? "MMM" : "MMMM");
+                case 'd' -> pattern.append(run <= 2 ? "d".repeat(run) : run == 3 ? "EEE" : "EEEE");
+                case '\\', '"', '[', 'h', 's' -> {
+                    return null;
+                }
+                default -> {
+                    if (Character.isLetter(ch)) {
+                        return null;
+                    }
+                    pattern.append('\'').append(excelFormat, i, i + run).append('\'');
+                }
+            }
+            i += run;
+        }
+        try {
+            return DateTimeFormatter.ofPattern(pattern.toString()).withResolverStyle(ResolverStyle.STRICT);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
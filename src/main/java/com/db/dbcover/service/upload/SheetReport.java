@@ -0,0 +1,4 @@
+package com.db.dbcover.service.upload;
+
+public record SheetReport(String sheet, long rowCount, long errorCount) {
+}
@@ -0,0 +1,12 @@
+package com.db.dbcover.service.upload;
+
+import java.util.Map;
+
+interface SheetRowListener {
+
+    /**
+     * Receives one parsed row. The map is keyed by 0-based column index, only contains non-empty
+     * cells and is reused for the next row, so it must not be retained.
+     */
+    void row(int rowIndex, Map<Integer, CellValue> cells);
+}
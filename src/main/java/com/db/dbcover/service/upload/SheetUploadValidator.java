@@ -0,0 +1,94 @@
+package com.db.dbcover.service.upload;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+
+import org.apache.poi.ss.util.CellReference;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates the rows of one uploaded sheet against its template definition. The header row is
+ * used to locate each template column, so uploaded columns may be reordered.
+ */
+class SheetUploadValidator implements SheetRowListener {
+
+    private final String sheetName;
+    private final int headerRowIndex;
+    private final ColumnValueChecker[] checkers;
+    private final int[] columnPositions;
+    private final UploadErrors errors;
+
+    private boolean headerSeen;
+    private long rowCount;
+
+    SheetUploadValidator(TemplateSheet sheetDefinition, int headerRowIndex, UploadErrors errors) {
+        this.sheetName = sheetDefinition.getName();
+        this.headerRowIndex = headerRowIndex;
+        this.errors = errors;
+        List<Column> columns = sheetDefinition.getColumns();
+        this.checkers = columns.stream().map(ColumnValueChecker::new).toArray(ColumnValueChecker[]::new);
+        this.columnPositions = new int[checkers.length];
+        Arrays.fill(columnPositions, -1);
+    }
+
+    @Override
+    public void row(int rowIndex, Map<Integer, CellValue> cells) {
+        if (rowIndex < headerRowIndex) {
+            return;
+        }
+        if (rowIndex == headerRowIndex) {
+            mapHeader(cells);
+            return;
+        }
+        if (!headerSeen || isEmpty(cells)) {
+            return;
+        }
+        rowCount++;
+        for (int i = 0; i < checkers.length; i++) {
+            int position = columnPositions[i];
+            if (position < 0) {
+                continue;
+            }
+            String problem = checkers[i].check(cells.get(position));
+            if (problem != null) {
+                String cell = new CellReference(rowIndex, position).formatAsString();
+                errors.add(new UploadError(sheetName, rowIndex + 1, cell, checkers[i].column().getHeader(), problem));
+            }
+        }
+    }
+
+    SheetReport finish() {
+        if (!headerSeen) {
+            errors.add(new UploadError(sheetName, headerRowIndex + 1, null, null, "Header row is missing"));
+        }
+        return new SheetReport(sheetName, rowCount, errors.count());
+    }
+
+    private void mapHeader(Map<Integer, CellValue> cells) {
+        headerSeen = true;
+        Map<String, Integer> positions = new HashMap<>();
+        cells.forEach((position, value) -> positions.putIfAbsent(value.value().trim(), position));
+        for (int i = 0; i < checkers.length; i++) {
+            Column column = checkers[i].column();
+            Integer position = positions.get(column.getHeader());
+            if (position == null) {
+                errors.add(new UploadError(sheetName, headerRowIndex + 1, null, column.getHeader(), "Column is missing"));
+            } else {
+                columnPositions[i] = position;
+            }
+        }
+    }
+
+    private boolean isEmpty(Map<Integer, CellValue> cells) {
+        for (int position : columnPositions) {
+            if (position >= 0 && cells.containsKey(position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
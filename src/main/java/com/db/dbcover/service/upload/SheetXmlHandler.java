@@ -0,0 +1,92 @@
+package com.db.dbcover.service.upload;
+
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SAX handler for a worksheet part that reports raw cell values row by row. Only the current row
+ * is held in memory, so parsing cost is independent of the sheet size.
+ */
+class SheetXmlHandler extends DefaultHandler {
+
+    private final SharedStrings sharedStrings;
+    private final SheetRowListener listener;
+
+    private final Map<Integer, CellValue> cells = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+
+    private int rowIndex = -1;
+    private int columnIndex = -1;
+    private String cellType;
+    private boolean capturing;
+
+    SheetXmlHandler(SharedStrings sharedStrings, SheetRowListener listener) {
+        this.sharedStrings = sharedStrings;
+        this.listener = listener;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row" -> {
+                String reference = attributes.getValue("r");
+                rowIndex = reference != null ? Integer.parseInt(reference) - 1 : rowIndex + 1;
+                columnIndex = -1;
+                cells.clear();
+            }
+            case "c" -> {
+                String reference = attributes.getValue("r");
+                columnIndex = reference != null ? new CellReference(reference).getCol() : columnIndex + 1;
+                cellType = attributes.getValue("t");
+                text.setLength(0);
+            }
+            case "v", "t" -> capturing = true;
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (capturing) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "v", "t" -> capturing = false;
+            case "c" -> {
+                CellValue value = toCellValue();
+                if (value != null && !value.isBlank()) {
+                    cells.put(columnIndex, value);
+                }
+            }
+            case "row" -> listener.row(rowIndex, cells);
+            default -> {
+            }
+        }
+    }
+
+    private CellValue toCellValue() {
+        String raw = text.toString();
+        if (cellType == null) {
+            return raw.isEmpty() ? null : new CellValue(CellValue.Kind.NUMBER, raw);
+        }
+        return switch (cellType) {
+            case "s" -> new CellValue(CellValue.Kind.STRING,
+                    sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString());
+            case "inlineStr", "str" -> new CellValue(CellValue.Kind.STRING, raw);
+            case "b" -> new CellValue(CellValue.Kind.BOOLEAN, "1".equals(raw) ? "TRUE" : "FALSE");
+            case "e" -> new CellValue(CellValue.Kind.ERROR, raw);
+            case "d" -> raw.isEmpty() ? null : new CellValue(CellValue.Kind.DATE, raw);
+            default -> raw.isEmpty() ? null : new CellValue(CellValue.Kind.NUMBER, raw);
+        };
+    }
+}
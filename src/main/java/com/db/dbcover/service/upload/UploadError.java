@@ -0,0 +1,8 @@
+package com.db.dbcover.service.upload;
+
+/**
+ * A single validation failure. {@code row} is the 1-based Excel row number and {@code cell} the
+ * A1-style reference, both {@code null} for sheet-level problems such as a missing column.
+ */
+public record UploadError(String sheet, Integer row, String cell, String column, String message) {
+}
@@ -0,0 +1,35 @@
+package com.db.dbcover.service.upload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Error sink that keeps the first {@code maxErrors} entries and only counts the rest, so memory
+ * stays bounded no matter how many rows fail.
+ */
+class UploadErrors {
+
+    private final int maxErrors;
+    private final List<UploadError> errors = new ArrayList<>();
+    private long count;
+
+    UploadErrors(int maxErrors) {
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    void add(UploadError error) {
+        count++;
+        if (errors.size() < maxErrors) {
+            errors.add(error);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    List<UploadError> errors() {
+        return Collections.unmodifiableList(errors);
+    }
+}
@@ -0,0 +1,17 @@
+package com.db.dbcover.service.upload;
+
+import java.util.List;
+
+/**
+ * Outcome of validating an uploaded workbook. At most {@code excel.upload.max-errors} errors are
+ * listed; {@code errorCount} always holds the full number and {@code truncated} tells whether
+ * the list was cut short.
+ */
+public record UploadReport(String instrumentType,
+                           boolean valid,
+                           long rowCount,
+                           long errorCount,
+                           boolean truncated,
+                           List<SheetReport> sheets,
+                           List<UploadError> errors) {
+}
@@ -0,0 +1,185 @@
+package com.db.dbcover.service.upload;
+
+import com.db.dbcover.config.ExcelUploadProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Validates filled-in templates using POI's event model: sheet parts are streamed through a SAX
+ * handler and only the current row is kept in memory.
+ */
+@Service
+public class UploadValidationService implements DisposableBean {
+
+    private static final int HEADER_ROW = 0;
+
+    private final ExcelGeneratorService excelGeneratorService;
+    private final ExcelUploadProperties uploadProperties;
+    private final ForkJoinPool sheetPool;
+
+    public UploadValidationService(ExcelGeneratorService excelGeneratorService, ExcelUploadProperties uploadProperties) {
+        this.excelGeneratorService = excelGeneratorService;
+        this.uploadProperties = uploadProperties;
+        this.sheetPool = uploadProperties.isParallel() ? new ForkJoinPool(resolveParallelism(uploadProperties)) : null;
+    }
+
+    @Override
+    public void destroy() {
+        if (sheetPool != null) {
+            sheetPool.shutdown();
+        }
+    }
+
+    public UploadReport validate(String instrumentType, Path workbook) throws IOException {
+        ExcelTemplateDefinition templateDefinition = excelGeneratorService.resolveTemplate(instrumentType);
+        try (OPCPackage pkg = OPCPackage.open(workbook.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            Map<String, TemplateSheet> expectedSheets = new HashMap<>();
+            templateDefinition.getSheets().forEach(sheet -> expectedSheets.put(sheet.getName(), sheet));
+
+            List<SheetPart> parts = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                TemplateSheet sheetDefinition = expectedSheets.get(sheets.getSheetName());
+                if (sheetDefinition != null) {
+                    parts.add(new SheetPart(sheetDefinition, sheets.getSheetPart()));
+                }
+            }
+
+            Map<String, SheetResult> results = sheetPool != null
+                    ? validateInParallel(parts, sharedStrings)
+                    : validateSequentially(parts, sharedStrings);
+            return buildReport(instrumentType, templateDefinition, results);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | POIXMLException ex) {
+            throw new IllegalArgumentException("Uploaded file is not a readable xlsx workbook", ex);
+        }
+    }
+
+    private Map<String, SheetResult> validateSequentially(List<SheetPart> parts, SharedStrings sharedStrings)
+            throws IOException, SAXException, ParserConfigurationException {
+        Map<String, SheetResult> results = new HashMap<>();
+        for (SheetPart part : parts) {
+            results.put(part.definition().getName(), validateSheet(part, sharedStrings));
+        }
+        return results;
+    }
+
+    /**
+     * Parses every sheet part on its own stream concurrently. The package is opened from a file,
+     * so each part stream reads its zip entry independently; shared strings are read-only.
+     */
+    private Map<String, SheetResult> validateInParallel(List<SheetPart> parts, SharedStrings sharedStrings)
+            throws IOException, SAXException, ParserConfigurationException {
+        Map<String, ForkJoinTask<SheetResult>> tasks = new LinkedHashMap<>();
+        for (SheetPart part : parts) {
+            tasks.put(part.definition().getName(), sheetPool.submit(() -> validateSheet(part, sharedStrings)));
+        }
+        Map<String, SheetResult> results = new HashMap<>();
+        try {
+            for (Map.Entry<String, ForkJoinTask<SheetResult>> task : tasks.entrySet()) {
+                results.put(task.getKey(), task.getValue().get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            tasks.values().forEach(task -> task.cancel(true));
+            throw new IOException("Interrupted while validating upload", ex);
+        } catch (ExecutionException ex) {
+            tasks.values().forEach(task -> task.cancel(true));
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            } else if (cause instanceof SAXException sax) {
+                throw sax;
+            } else if (cause instanceof ParserConfigurationException config) {
+                throw config;
+            } else if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to validate upload", cause);
+        }
+        return results;
+    }
+
+    private SheetResult validateSheet(SheetPart part, SharedStrings sharedStrings)
+            throws IOException, SAXException, ParserConfigurationException {
+        UploadErrors errors = new UploadErrors(uploadProperties.getMaxErrors());
+        SheetUploadValidator validator = new SheetUploadValidator(part.definition(), HEADER_ROW, errors);
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new SheetXmlHandler(sharedStrings, validator));
+        try (InputStream sheetData = part.part().getInputStream()) {
+            parser.parse(new InputSource(sheetData));
+        }
+        return new SheetResult(validator.finish(), errors);
+    }
+
+    private static int resolveParallelism(ExcelUploadProperties properties) {
+        int parallelism = properties.getParallelism();
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private UploadReport buildReport(String instrumentType,
+                                     ExcelTemplateDefinition templateDefinition,
+                                     Map<String, SheetResult> results) {
+        int maxErrors = uploadProperties.getMaxErrors();
+        List<SheetReport> sheetReports = new ArrayList<>();
+        List<UploadError> errors = new ArrayList<>();
+        long rowCount = 0;
+        long errorCount = 0;
+        for (TemplateSheet sheet : templateDefinition.getSheets()) {
+            SheetResult result = results.get(sheet.getName());
+            if (result == null) {
+                UploadErrors missing = new UploadErrors(maxErrors);
+                missing.add(new UploadError(sheet.getName(), null, null, null, "Sheet is missing"));
+                result = new SheetResult(new SheetReport(sheet.getName(), 0, missing.count()), missing);
+            }
+            sheetReports.add(result.report());
+            rowCount += result.report().rowCount();
+            errorCount += result.errors().count();
+            for (UploadError error : result.errors().errors()) {
+                if (errors.size() >= maxErrors) {
+                    break;
+                }
+                errors.add(error);
+            }
+        }
+        return new UploadReport(instrumentType, errorCount == 0, rowCount, errorCount,
+                errorCount > errors.size(), List.copyOf(sheetReports), List.copyOf(errors));
+    }
+
+    private record SheetPart(TemplateSheet definition, PackagePart part) {
+    }
+
+    private record SheetResult(SheetReport report, UploadErrors errors) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.db.dbcover.template;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+
+import java.util.List;
+
+/**
+ * Immutable, fully resolved column of a {@link RenderPlan}. Everything a renderer derives from a
+ * {@link Column} is computed once: the effective type, format and allowed values, the prompt text
+ * shown as tooltip, and the estimated column width.
+ *
+ * @param tooltip          prompt text, the tooltip or else the description; empty when neither is set
+ * @param inlineListLength length of the allowed values written as one comma-separated list, with
+ *                         quotes counted twice as they are escaped in the formula, or {@code -1}
+ *                         when a value contains a comma and cannot be listed inline
+ * @param widthHint        estimated width in 1/256 of a character, before filter padding
+ */
+public record ColumnSpec(String header,
+                         boolean required,
+                         ColumnType type,
+                         String format,
+                         List<String> allowedValues,
+                         String tooltip,
+                         int inlineListLength,
+                         int widthHint) {
+
+    public ColumnSpec {
+        allowedValues = List.copyOf(allowedValues);
+    }
+
+    public static ColumnSpec of(Column column) {
+        String format = column.resolvedFormat();
+        List<String> allowedValues = column.resolvedAllowedValues();
+        return new ColumnSpec(column.getHeader(), column.isRequired(), column.resolvedType(), format,
+                allowedValues, tooltip(column), inlineListLength(allowedValues),
+                ColumnWidthEstimator.estimate(column.getHeader(), format));
+    }
+
+    public boolean hasTooltip() {
+        return !tooltip.isEmpty();
+    }
+
+    private static String tooltip(Column column) {
+        if (column.getTooltip() != null && !column.getTooltip().isBlank()) {
+            return column.getTooltip();
+        }
+        return column.getDescription() != null && !column.getDescription().isBlank() ? column.getDescription() : "";
+    }
+
+    private static int inlineListLength(List<String> values) {
+        int length = values.size() - 1;
+        for (String value : values) {
+            if (value.indexOf(',') >= 0) {
+                return -1;
+            }
+            length += value.length();
+            for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+                length++;
+            }
+        }
+        return Math.max(length, 0);
+    }
+}
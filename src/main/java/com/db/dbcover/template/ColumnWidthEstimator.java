@@ -0,0 +1,234 @@
+package com.db.dbcover.template;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pure-Java replacement for {@code Sheet#autoSizeColumn}. Widths are computed from the advance
+ * widths of the default Calibri 11 font (bold for headers, regular for data) expressed in font
+ * units, relative to the width of the digit zero, which is the unit Excel uses for column widths.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ColumnWidthEstimator {
+
+    public static final int MAX_COLUMN_WIDTH = 255 * 256;
+    // Header cells carry a filter drop-down button that covers the end of the text.
+    public static final double FILTER_PADDING = 1.25;
+
+    private static final int FIRST_CHAR = 32;
+    private static final int DIGIT_ADVANCE = 1038;
+    // Autosized columns leave roughly one digit of space around the text.
+    private static final double CELL_PADDING_CHARS = 1.0;
+
+    // Advance widths for ASCII 32..126 in units of 1/2048 em.
+    private static final short[] REGULAR_ADVANCES = {
+            463, 548, 821, 1038, 1038, 1470, 1397, 452, 621, 621, 1038, 1038, 511, 627, 517, 791,
+            1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 548, 548, 1038, 1038, 1038, 949,
+            1834, 1185, 1114, 1092, 1260, 1000, 941, 1292, 1276, 516, 653, 1064, 861, 1751, 1322, 1356,
+            1058, 1378, 1112, 941, 998, 1314, 1162, 1822, 1063, 998, 959, 628, 791, 628, 1038, 1020,
+            585, 981, 1076, 866, 1076, 1019, 625, 964, 1076, 470, 490, 931, 470, 1636, 1076, 1080,
+            1076, 1076, 714, 801, 686, 1076, 925, 1464, 887, 927, 809, 640, 943, 640, 1038
+    };
+
+    private static final short[] BOLD_ADVANCES = {
+            463, 667, 1001, 1038, 1038, 1505, 1442, 452, 676, 676, 1038, 1038, 528, 627, 517, 793,
+            1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 565, 565, 1038, 1038, 1038, 946,
+            1835, 1220, 1151, 1076, 1291, 1000, 949, 1314, 1291, 546, 681, 1103, 861, 1771, 1322, 1384,
+            1095, 1400, 1154, 969, 1005, 1315, 1223, 1837, 1121, 1061, 957, 663, 793, 663, 1038, 1020,
+            612, 1008, 1096, 856, 1096, 1026, 647, 969, 1096, 503, 522, 985, 503, 1650, 1096, 1097,
+            1096, 1096, 727, 817, 708, 1096, 966, 1522, 935, 967, 804, 663, 1034, 663, 1038
+    };
+
+    /**
+     * Returns the column width, in 1/256 of a character, needed to display the header in the
+     * bold header font and a representative value rendered with the given data format.
+     */
+    public static int estimate(String header, String format) {
+        double headerChars = measure(header, BOLD_ADVANCES);
+        double sampleChars = measure(formatSample(format), REGULAR_ADVANCES);
+        int width = (int) Math.ceil((Math.max(headerChars, sampleChars) + CELL_PADDING_CHARS) * 256);
+        return Math.min(width, MAX_COLUMN_WIDTH);
+    }
+
+    /**
+     * Widens a measured column so the header text is not hidden behind the filter button.
+     */
+    public static int withFilterPadding(int width) {
+        return Math.min((int) (width * FILTER_PADDING), MAX_COLUMN_WIDTH);
+    }
+
+    static double measure(String text, short[] advances) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            int index = ch - FIRST_CHAR;
+            total += index >= 0 && index < advances.length ? advances[index] : DIGIT_ADVANCE;
+        }
+        return (double) total / DIGIT_ADVANCE;
+    }
+
+    /**
+     * Renders a representative value for the first section of an Excel number format, e.g.
+     * {@code 31/12/2099} for {@code dd/mm/yyyy} or {@code 1,234,567.00} for {@code #,##0.00}.
+     * Text formats yield an empty sample because template data cells start out empty.
+     */
+    static String formatSample(String format) {
+        if (format == null || format.isBlank()) {
+            return "";
+        }
+        String section = firstSection(format.trim());
+        if (section.equalsIgnoreCase("General") || section.equals("@")) {
+            return "";
+        }
+        return isDateFormat(section) ? dateSample(section) : numberSample(section);
+    }
+
+    private static String firstSection(String format) {
+        boolean quoted = false;
+        for (int i = 0; i < format.length(); i++) {
+            char ch = format.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (ch == '\\') {
+                i++;
+            } else if (ch == ';' && !quoted) {
+                return format.substring(0, i);
+            }
+        }
+        return format;
+    }
+
+    private static boolean isDateFormat(String section) {
+        String unquoted = literals(section, true);
+        for (int i = 0; i < unquoted.length(); i++) {
+            char ch = Character.toLowerCase(unquoted.charAt(i));
+            if (ch == 'y' || ch == 'm' || ch == 'd' || ch == 'h' || ch == 's') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String dateSample(String section) {
+        StringBuilder sample = new StringBuilder();
+        int i = 0;
+        while (i < section.length()) {
+            char ch = section.charAt(i);
+            int consumed = appendEscape(section, i, sample);
+            if (consumed > 0) {
+                i += consumed;
+                continue;
+            }
+            char token = Character.toLowerCase(ch);
+            int run = 1;
+            while (i + run < section.length() && Character.toLowerCase(section.charAt(i + run)) == token) {
+                run++;
+            }
+            switch (token) {
+                case 'y' -> sample.append(run <= 2 ? "99" : "2099");
+                case 'm' -> sample.append(run <= 2 ? "12" : run == 3 ? "Sep" : "September");
+                case 'd' -> sample.append(run <= 2 ? "31" : run == 3 ? "Wed" : "Wednesday");
+                case 'h', 's' -> sample.append("59");
+                default -> sample.append(String.valueOf(ch).repeat(run));
+            }
+            i += run;
+        }
+        return sample.toString();
+    }
+
+    private static String numberSample(String section) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < section.length(); i++) {
+            if (isDigitPlaceholder(section.charAt(i))) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if (first < 0) {
+            return literals(section, false);
+        }
+
+        String digits = section.substring(first, last + 1);
+        int decimalPoint = digits.indexOf('.');
+        String integerPart = decimalPoint >= 0 ? digits.substring(0, decimalPoint) : digits;
+        String fractionPart = decimalPoint >= 0 ? digits.substring(decimalPoint + 1) : "";
+
+        StringBuilder sample = new StringBuilder(literals(section.substring(0, first), false));
+        sample.append(integerPart.indexOf(',') >= 0 ? "1,234,567" : "1234567");
+        long mandatoryDecimals = fractionPart.chars().filter(ch -> ch == '0').count();
+        if (mandatoryDecimals > 0) {
+            sample.append('.').append("0".repeat((int) mandatoryDecimals));
+        }
+        sample.append(literals(section.substring(last + 1), false));
+        return sample.toString();
+    }
+
+    private static boolean isDigitPlaceholder(char ch) {
+        return ch == '0' || ch == '#' || ch == '?';
+    }
+
+    /**
+     * Collects the characters that are displayed verbatim. When {@code keepTokens} is set, format
+     * tokens are retained and only quoted text, escapes and bracketed sections are removed.
+     */
+    private static String literals(String text, boolean keepTokens) {
+        StringBuilder result = new StringBuilder();
+        StringBuilder discard = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int consumed = appendEscape(text, i, keepTokens ? discard : result);
+            if (consumed > 0) {
+                i += consumed;
+                continue;
+            }
+            char ch = text.charAt(i);
+            if (keepTokens || (!isDigitPlaceholder(ch) && ch != ',' && ch != '.')) {
+                result.append(ch);
+            }
+            i++;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Handles quoted text, backslash escapes, bracketed colour/condition blocks and the
+     * {@code _x} / {@code *x} spacing directives. Returns the number of characters consumed.
+     */
+    private static int appendEscape(String text, int index, StringBuilder target) {
+        char ch = text.charAt(index);
+        switch (ch) {
+            case '"' -> {
+                int end = text.indexOf('"', index + 1);
+                end = end < 0 ? text.length() : end;
+                target.append(text, index + 1, end);
+                return end - index + 1;
+            }
+            case '\\' -> {
+                if (index + 1 < text.length()) {
+                    target.append(text.charAt(index + 1));
+                }
+                return 2;
+            }
+            case '[' -> {
+                int end = text.indexOf(']', index);
+                return (end < 0 ? text.length() : end + 1) - index;
+            }
+            case '_' -> {
+                target.append(' ');
+                return 2;
+            }
+            case '*' -> {
+                return 2;
+            }
+            default -> {
+                return 0;
+            }
+        }
+    }
+}
@@ -16,6 +16,12 @@ public class ExcelTemplateDefinition {
 
     private List<TemplateSheet> sheets = new ArrayList<>();
 
+    /**
+     * Data-row extent for sheets that do not set their own, or {@code null} for the generator default.
+     */
+    @Setter
+    private RowExtent dataRows;
+
     public List<TemplateSheet> getSheets() {
         return Collections.unmodifiableList(sheets);
     }
@@ -34,9 +40,20 @@ public class ExcelTemplateDefinition {
                         .orElseThrow(() -> new IllegalArgumentException("Unknown template sheet: " + sheetName)))
                 .toList();
         definition.setSheets(resolvedSheets);
+        definition.setDataRows(settings.getDataRows());
         return definition;
     }
 
+    /**
+     * Returns the data-row extent of the sheet: its own setting, else the template setting, else
+     * {@code defaultRows}.
+     */
+    public RowExtent resolvedDataRows(TemplateSheet sheet, RowExtent defaultRows) {
+        return Optional.ofNullable(sheet.getDataRows())
+                .or(() -> Optional.ofNullable(dataRows))
+                .orElse(defaultRows);
+    }
+
     @Getter
     @Setter
     @Builder
@@ -46,6 +63,7 @@ public class ExcelTemplateDefinition {
         private List<String> baseSheets = new ArrayList<>();
         @Builder.Default
         private List<Column> columns = new ArrayList<>();
+        private RowExtent dataRows;
 
         public List<String> getBaseSheets() {
             return Collections.unmodifiableList(baseSheets != null ? baseSheets : List.of());
@@ -149,6 +167,7 @@ public class ExcelTemplateDefinition {
     @Setter
     public static class TemplateSettings {
         private List<String> sheets = new ArrayList<>();
+        private RowExtent dataRows;
 
         public void setSheets(List<String> sheets) {
             this.sheets = Optional.ofNullable(sheets)
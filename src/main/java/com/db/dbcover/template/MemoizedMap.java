@@ -0,0 +1,126 @@
+package com.db.dbcover.template;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Read-only map with a fixed key set whose values are computed on first access and then kept.
+ * Each key has its own lock, so a loader may read other keys of the same map, and concurrent
+ * callers of one key wait for a single computation. Iterating the entries computes every value.
+ * A key drops its loader once its value is computed, so the loader's captured state can be
+ * collected as soon as every key that needs it has been computed.
+ */
+final class MemoizedMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, Memo<K, V>> memos;
+
+    /**
+     * @param loader computes the value of a key; it receives this map to look up other keys
+     */
+    MemoizedMap(Collection<K> keys, BiFunction<MemoizedMap<K, V>, K, V> loader) {
+        Map<K, Memo<K, V>> memos = new LinkedHashMap<>();
+        keys.forEach(key -> memos.put(key, new Memo<>(this, key, loader)));
+        this.memos = Collections.unmodifiableMap(memos);
+    }
+
+    /**
+     * Returns {@code map.get(key)} without computing a memoized value that is not there yet.
+     */
+    static <K, V> V peek(Map<K, V> map, K key) {
+        if (map instanceof MemoizedMap<K, V> memoized) {
+            Memo<K, V> memo = memoized.memos.get(key);
+            return memo != null ? memo.value : null;
+        }
+        return map.get(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        Memo<K, V> memo = memos.get(key);
+        return memo != null ? memo.get() : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return memos.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return memos.size();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return memos.keySet();
+    }
+
+    /**
+     * Number of values computed so far.
+     */
+    int computedCount() {
+        return (int) memos.values().stream().filter(memo -> memo.value != null).count();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Memo<K, V>> iterator = memos.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        Memo<K, V> memo = iterator.next();
+                        return new SimpleImmutableEntry<>(memo.key, memo.get());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return memos.size();
+            }
+        };
+    }
+
+    private static final class Memo<K, V> {
+
+        private final MemoizedMap<K, V> owner;
+        private final K key;
+        private BiFunction<MemoizedMap<K, V>, K, V> loader;
+        private volatile V value;
+
+        private Memo(MemoizedMap<K, V> owner, K key, BiFunction<MemoizedMap<K, V>, K, V> loader) {
+            this.owner = owner;
+            this.key = key;
+            this.loader = loader;
+        }
+
+        private V get() {
+            V current = value;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (value == null) {
+                    value = loader.apply(owner, key);
+                    loader = null;
+                }
+                return value;
+            }
+        }
+    }
+}
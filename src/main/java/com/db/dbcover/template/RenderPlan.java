@@ -0,0 +1,20 @@
+package com.db.dbcover.template;
+
+import java.util.List;
+
+/**
+ * Compiled, immutable form of an {@link ExcelTemplateDefinition} that the renderers consume.
+ * {@link TemplateSheetResolver} builds one per instrument template when the configuration is
+ * resolved, so requests no longer re-derive formats, validation inputs, tooltips, widths and
+ * content hashes from the mutable definition. The lists are array-backed and returned as they
+ * are, without a wrapper per call.
+ *
+ * @param contentHash {@linkplain TemplateContentHash#of(ExcelTemplateDefinition) fingerprint} of the
+ *                    definition the plan was compiled from
+ */
+public record RenderPlan(List<SheetPlan> sheets, String contentHash) {
+
+    public RenderPlan {
+        sheets = List.copyOf(sheets);
+    }
+}
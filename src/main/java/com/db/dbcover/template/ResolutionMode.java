@@ -0,0 +1,16 @@
+package com.db.dbcover.template;
+
+/**
+ * When {@link TemplateSheetResolver} merges sheets and compiles render plans.
+ */
+public enum ResolutionMode {
+    /**
+     * Everything is resolved up front, so configuration errors of any kind fail startup.
+     */
+    EAGER,
+    /**
+     * Only the inheritance graph is validated up front; merged sheets, definitions and render
+     * plans are built on first use and kept. Suits large catalogs with rarely requested templates.
+     */
+    LAZY
+}
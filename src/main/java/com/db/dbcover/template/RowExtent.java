@@ -0,0 +1,80 @@
+package com.db.dbcover.template;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.util.Locale;
+
+/**
+ * How many data rows below the header the column validations and tooltips of a sheet cover:
+ * either a fixed number of rows or the {@linkplain #ENTIRE_COLUMN entire column}, which ends on
+ * the last row of the sheet and is written as a compact {@code A2:A1048576} style range.
+ * <p>
+ * Configuration values are either a positive row count or {@code ENTIRE_COLUMN}.
+ */
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RowExtent {
+
+    public static final RowExtent ENTIRE_COLUMN = new RowExtent(0);
+
+    private static final String ENTIRE_COLUMN_VALUE = "ENTIRE_COLUMN";
+    private static final int LAST_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    /**
+     * Number of covered data rows, {@code 0} for the entire column.
+     */
+    private final int rows;
+
+    public static RowExtent rows(int rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("data-rows must be positive or " + ENTIRE_COLUMN_VALUE + ": " + rows);
+        }
+        return new RowExtent(rows);
+    }
+
+    /**
+     * Parses a configuration value; used by Spring to bind {@code data-rows} properties.
+     */
+    public static RowExtent valueOf(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("data-rows must not be blank");
+        }
+        String trimmed = value.trim();
+        if (ENTIRE_COLUMN_VALUE.equals(trimmed.toUpperCase(Locale.ROOT).replace('-', '_'))) {
+            return ENTIRE_COLUMN;
+        }
+        try {
+            return rows(Integer.parseInt(trimmed));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                    "data-rows must be a row count or " + ENTIRE_COLUMN_VALUE + ": " + value, ex);
+        }
+    }
+
+    public static RowExtent valueOf(Integer rows) {
+        return rows(rows);
+    }
+
+    public boolean isEntireColumn() {
+        return rows == 0;
+    }
+
+    /**
+     * Returns the zero-based index of the last covered row when the data starts at
+     * {@code firstRowIndex}, capped at the last row of the sheet.
+     */
+    public int lastRowIndex(int firstRowIndex) {
+        if (isEntireColumn()) {
+            return LAST_ROW_INDEX;
+        }
+        return (int) Math.min((long) firstRowIndex + rows - 1, LAST_ROW_INDEX);
+    }
+
+    @Override
+    public String toString() {
+        return isEntireColumn() ? ENTIRE_COLUMN_VALUE : String.valueOf(rows);
+    }
+}
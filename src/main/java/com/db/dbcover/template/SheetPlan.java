@@ -0,0 +1,26 @@
+package com.db.dbcover.template;
+
+import java.util.List;
+
+/**
+ * Immutable sheet of a {@link RenderPlan}.
+ *
+ * @param dataRows    the sheet's own data-row extent, else the template's; {@code null} when the
+ *                    generator default applies
+ * @param contentHash {@linkplain TemplateContentHash#of(ExcelTemplateDefinition.TemplateSheet) fingerprint}
+ *                    of the sheet definition
+ */
+public record SheetPlan(String name, RowExtent dataRows, List<ColumnSpec> columns, String contentHash) {
+
+    public SheetPlan {
+        columns = List.copyOf(columns);
+    }
+
+    public RowExtent dataRows(RowExtent defaultRows) {
+        return dataRows != null ? dataRows : defaultRows;
+    }
+
+    public int columnCount() {
+        return columns.size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.db.dbcover.template;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes stable SHA-256 fingerprints of resolved template content. Two definitions that
+ * render to the same workbook produce the same hash, so the value can be used as a cache key.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TemplateContentHash {
+
+    public static String of(ExcelTemplateDefinition definition) {
+        MessageDigest digest = newDigest();
+        update(digest, Objects.toString(definition.getDataRows(), null));
+        List<TemplateSheet> sheets = definition.getSheets();
+        update(digest, sheets.size());
+        for (TemplateSheet sheet : sheets) {
+            updateSheet(digest, sheet);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String of(TemplateSheet sheet) {
+        MessageDigest digest = newDigest();
+        updateSheet(digest, sheet);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Fingerprint of a sheet as configured, before its base sheets are merged in: its own content
+     * plus the names of the sheets it extends.
+     */
+    public static String ofSource(TemplateSheet sheet) {
+        MessageDigest digest = newDigest();
+        updateSheet(digest, sheet);
+        List<String> baseSheets = sheet.getBaseSheets();
+        update(digest, baseSheets.size());
+        baseSheets.forEach(baseSheet -> update(digest, baseSheet));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String of(List<String> values) {
+        MessageDigest digest = newDigest();
+        update(digest, values.size());
+        values.forEach(value -> update(digest, value));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void updateSheet(MessageDigest digest, TemplateSheet sheet) {
+        update(digest, sheet.getName());
+        update(digest, Objects.toString(sheet.getDataRows(), null));
+        List<Column> columns = sheet.getColumns();
+        update(digest, columns.size());
+        for (Column column : columns) {
+            update(digest, column.getHeader());
+            update(digest, String.valueOf(column.isRequired()));
+            update(digest, column.getDescription());
+            update(digest, column.resolvedFormat());
+            update(digest, column.getTooltip());
+            update(digest, column.resolvedType().name());
+            List<String> values = column.resolvedAllowedValues();
+            update(digest, values.size());
+            values.forEach(value -> update(digest, value));
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            update(digest, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
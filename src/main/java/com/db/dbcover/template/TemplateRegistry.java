@@ -0,0 +1,171 @@
+package com.db.dbcover.template;
+
+import com.db.dbcover.template.TemplateSheetResolver.ResolvedTemplates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes resolved template catalogs as immutable snapshots. Readers take the current snapshot
+ * with a single atomic read and never block; publishers replace it with compare-and-set. Besides
+ * the current render plan, the last {@code retainedVersions} plans of every instrument template
+ * stay addressable by content hash, so a client pinned to an earlier version keeps receiving it
+ * while a newer one rolls out. The history of an instrument template that is removed from the
+ * catalog is dropped with it. Only plans that were actually compiled enter the history, so a
+ * lazily resolved catalog stays lazy.
+ */
+public final class TemplateRegistry {
+
+    public static final int DEFAULT_RETAINED_VERSIONS = 5;
+
+    private final int retainedVersions;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public TemplateRegistry(int retainedVersions) {
+        if (retainedVersions < 1) {
+            throw new IllegalArgumentException("retained-versions must be at least 1");
+        }
+        this.retainedVersions = retainedVersions;
+    }
+
+    /**
+     * Returns the current snapshot, or {@code null} before the first one is published.
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Publishes the first snapshot unless another caller already did.
+     *
+     * @return the snapshot that is current afterwards
+     */
+    public Snapshot publishInitial(ResolvedTemplates resolved) {
+        current.compareAndSet(null, Snapshot.initial(resolved));
+        return current.get();
+    }
+
+    /**
+     * Makes {@code resolved} current and moves the plans it replaces into the version history.
+     * The content hashes of the new plans that have a history are computed before each
+     * compare-and-set, and kept across retries, so a lazy plan is compiled at most once and
+     * never inside the atomic update.
+     */
+    public Snapshot publish(ResolvedTemplates resolved) {
+        Map<String, String> currentHashes = new HashMap<>();
+        while (true) {
+            Snapshot previous = current.get();
+            Snapshot next;
+            if (previous == null) {
+                next = Snapshot.initial(resolved);
+            } else {
+                for (String name : previous.withHistory(resolved)) {
+                    currentHashes.computeIfAbsent(name, key -> resolved.renderPlans().get(key).contentHash());
+                }
+                next = previous.next(resolved, currentHashes, retainedVersions);
+            }
+            if (current.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    public int retainedVersions() {
+        return retainedVersions;
+    }
+
+    /**
+     * @param resolved            the current catalog
+     * @param history             earlier render plans of every instrument template, newest first
+     * @param retainedSheetHashes content hashes of the sheets used by the earlier plans
+     * @param sequence            number of snapshots published before this one
+     */
+    public record Snapshot(ResolvedTemplates resolved,
+                           Map<String, List<RenderPlan>> history,
+                           Set<String> retainedSheetHashes,
+                           long sequence) {
+
+        private static Snapshot initial(ResolvedTemplates resolved) {
+            return of(resolved, Map.of(), 0);
+        }
+
+        private static Snapshot of(ResolvedTemplates resolved, Map<String, List<RenderPlan>> history, long sequence) {
+            Set<String> sheetHashes = history.values().stream()
+                    .flatMap(List::stream)
+                    .flatMap(plan -> plan.sheets().stream())
+                    .map(SheetPlan::contentHash)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new Snapshot(resolved, Collections.unmodifiableMap(history), sheetHashes, sequence);
+        }
+
+        /**
+         * Returns the instrument templates of {@code next} that will have a history once it
+         * replaces this snapshot, those whose current plan was compiled or that have a history.
+         */
+        private Set<String> withHistory(ResolvedTemplates next) {
+            Set<String> names = new LinkedHashSet<>();
+            for (String name : next.renderPlans().keySet()) {
+                if (MemoizedMap.peek(resolved.renderPlans(), name) != null || history.containsKey(name)) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }
+
+        /**
+         * Builds the snapshot following this one without compiling anything: {@code currentHashes}
+         * holds the content hash of every plan of {@code next} named by {@link #withHistory}.
+         */
+        private Snapshot next(ResolvedTemplates next, Map<String, String> currentHashes, int retainedVersions) {
+            Map<String, List<RenderPlan>> nextHistory = new LinkedHashMap<>();
+            for (String name : withHistory(next)) {
+                List<RenderPlan> earlier = new ArrayList<>();
+                RenderPlan replaced = MemoizedMap.peek(resolved.renderPlans(), name);
+                if (replaced != null) {
+                    earlier.add(replaced);
+                }
+                earlier.addAll(history.getOrDefault(name, List.of()));
+                Set<String> seen = new LinkedHashSet<>();
+                seen.add(currentHashes.get(name));
+                List<RenderPlan> kept = earlier.stream()
+                        .filter(plan -> seen.add(plan.contentHash()))
+                        .limit(retainedVersions - 1L)
+                        .toList();
+                if (!kept.isEmpty()) {
+                    nextHistory.put(name, kept);
+                }
+            }
+            return of(next, nextHistory, sequence + 1);
+        }
+
+        /**
+         * Returns the retained plans of {@code instrumentType}, newest (current) first; empty for
+         * unknown types.
+         */
+        public List<RenderPlan> versions(String instrumentType) {
+            RenderPlan currentPlan = resolved.renderPlans().get(instrumentType);
+            if (currentPlan == null) {
+                return List.of();
+            }
+            List<RenderPlan> versions = new ArrayList<>();
+            versions.add(currentPlan);
+            versions.addAll(history.getOrDefault(instrumentType, List.of()));
+            return List.copyOf(versions);
+        }
+
+        public Optional<RenderPlan> version(String instrumentType, String contentHash) {
+            return versions(instrumentType).stream()
+                    .filter(plan -> plan.contentHash().equals(contentHash))
+                    .findFirst();
+        }
+    }
+}
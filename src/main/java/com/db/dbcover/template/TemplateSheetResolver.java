@@ -1,12 +1,21 @@
 package com.db.dbcover.template;
 
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
 import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 
 public final class TemplateSheetResolver {
 
@@ -14,17 +23,119 @@ public final class TemplateSheetResolver {
     }
 
     public static ResolvedTemplates resolve(List<TemplateSheet> sheets,
-                                            Map<String, ExcelTemplateDefinition.TemplateSettings> instrumentTemplates) {
+                                            Map<String, TemplateSettings> instrumentTemplates) {
+        return resolve(sheets, instrumentTemplates, ResolutionMode.EAGER);
+    }
+
+    /**
+     * Validates the inheritance graph and resolves the catalog. In {@link ResolutionMode#LAZY}
+     * mode the returned maps merge sheets, build definitions and compile render plans on first
+     * access only; unknown and circular sheet references are still rejected here.
+     */
+    public static ResolvedTemplates resolve(List<TemplateSheet> sheets,
+                                            Map<String, TemplateSettings> instrumentTemplates,
+                                            ResolutionMode mode) {
+        requireTemplates(instrumentTemplates);
+        Map<String, TemplateSheet> source = indexSheets(sheets);
+        validate(source, instrumentTemplates);
+        return materialize(memoized(source, instrumentTemplates, Map.of(), Map.of()), mode);
+    }
+
+    public static TemplateUpdate update(ResolvedTemplates previous,
+                                        List<TemplateSheet> sheets,
+                                        Map<String, TemplateSettings> instrumentTemplates) {
+        return update(previous, sheets, instrumentTemplates, ResolutionMode.EAGER);
+    }
+
+    /**
+     * Re-resolves a changed configuration against the previous result. Only sheets whose source
+     * changed, and the sheets that extend them directly or transitively, are merged again; the
+     * others are carried over. Render plans are recompiled only for instrument templates whose
+     * content hash changed. In {@link ResolutionMode#LAZY} mode nothing that was not resolved
+     * before is resolved now, so an instrument template is reported as affected when its settings
+     * or sheets changed and no previous plan exists to compare with.
+     */
+    public static TemplateUpdate update(ResolvedTemplates previous,
+                                        List<TemplateSheet> sheets,
+                                        Map<String, TemplateSettings> instrumentTemplates,
+                                        ResolutionMode mode) {
+        requireTemplates(instrumentTemplates);
+        Map<String, TemplateSheet> source = indexSheets(sheets);
+        validate(source, instrumentTemplates);
+        Map<String, Set<String>> dependents = dependents(source);
+
+        Set<String> changed = new LinkedHashSet<>();
+        source.forEach((name, sheet) -> {
+            if (!previous.sourceHashes().containsKey(name)
+                    || !TemplateContentHash.ofSource(sheet).equals(previous.sourceHashes().get(name))) {
+                changed.add(name);
+            }
+        });
+        previous.sourceHashes().keySet().stream()
+                .filter(name -> !source.containsKey(name))
+                .forEach(changed::add);
+        // Old edges matter too: a sheet that used to extend a removed or renamed base is stale.
+        Set<String> dirty = withDependents(changed, previous.dependents(), dependents);
+
+        ResolvedTemplates resolved = memoized(source, instrumentTemplates,
+                computed(previous.sheetIndex(), name -> !dirty.contains(name)),
+                computed(previous.renderPlans(), name -> true));
+
+        Set<String> affected = new LinkedHashSet<>();
+        instrumentTemplates.forEach((name, settings) -> {
+            TemplateSettings before = previous.settings().get(name);
+            boolean touched = before == null
+                    || !sameSettings(before, settings)
+                    || sheetNames(settings).stream().anyMatch(dirty::contains);
+            if (!touched) {
+                return;
+            }
+            RenderPlan plan = MemoizedMap.peek(previous.renderPlans(), name);
+            if (plan == null || !plan.contentHash().equals(resolved.renderPlans().get(name).contentHash())) {
+                affected.add(name);
+            }
+        });
+        previous.settings().keySet().stream()
+                .filter(name -> !instrumentTemplates.containsKey(name))
+                .forEach(affected::add);
+
+        Set<String> staleSheetHashes = new LinkedHashSet<>();
+        for (String name : dirty) {
+            TemplateSheet before = MemoizedMap.peek(previous.sheetIndex(), name);
+            if (before == null) {
+                continue;
+            }
+            String beforeHash = TemplateContentHash.of(before);
+            TemplateSheet after = resolved.sheetIndex().get(name);
+            if (after == null || !beforeHash.equals(TemplateContentHash.of(after))) {
+                staleSheetHashes.add(beforeHash);
+            }
+        }
+
+        return new TemplateUpdate(materialize(resolved, mode), dirty, staleSheetHashes, affected);
+    }
+
+    /**
+     * Compiles a resolved definition into its immutable render plan. A sheet without its own
+     * data-row extent takes the definition's.
+     */
+    public static RenderPlan compile(ExcelTemplateDefinition definition) {
+        List<SheetPlan> sheets = new ArrayList<>(definition.getSheets().size());
+        for (TemplateSheet sheet : definition.getSheets()) {
+            List<ColumnSpec> columns = sheet.getColumns().stream().map(ColumnSpec::of).toList();
+            sheets.add(new SheetPlan(sheet.getName(), definition.resolvedDataRows(sheet, null), columns,
+                    TemplateContentHash.of(sheet)));
+        }
+        return new RenderPlan(sheets, TemplateContentHash.of(definition));
+    }
+
+    private static void requireTemplates(Map<String, TemplateSettings> instrumentTemplates) {
         if (instrumentTemplates == null || instrumentTemplates.isEmpty()) {
             throw new IllegalStateException("instrument-templates must not be empty");
         }
-
-        Map<String, TemplateSheet> sheetIndex = resolveSheets(sheets);
-        Map<String, ExcelTemplateDefinition> definitions = resolveInstrumentTemplates(sheetIndex, instrumentTemplates);
-        return new ResolvedTemplates(sheetIndex, definitions);
     }
 
-    private static Map<String, TemplateSheet> resolveSheets(List<TemplateSheet> sheets) {
+    private static Map<String, TemplateSheet> indexSheets(List<TemplateSheet> sheets) {
         Map<String, TemplateSheet> source = new LinkedHashMap<>();
         if (sheets != null) {
             for (TemplateSheet sheet : sheets) {
@@ -35,63 +146,192 @@ public final class TemplateSheetResolver {
                 source.put(name, sheet);
             }
         }
+        return source;
+    }
 
-        Map<String, TemplateSheet> resolved = new LinkedHashMap<>();
-        Set<String> stack = new LinkedHashSet<>();
+    /**
+     * Rejects unknown and circular sheet references by walking the base-sheet graph, without
+     * merging any columns.
+     */
+    private static void validate(Map<String, TemplateSheet> source, Map<String, TemplateSettings> templates) {
+        Map<String, Boolean> visited = new HashMap<>();
         for (String name : source.keySet()) {
-            resolveSheet(name, source, resolved, stack);
+            visit(name, source, visited);
         }
-        return resolved;
+        templates.values().forEach(settings -> sheetNames(settings).forEach(sheetName -> {
+            if (!source.containsKey(sheetName)) {
+                throw new IllegalArgumentException("Unknown template sheet: " + sheetName);
+            }
+        }));
     }
 
-    private static TemplateSheet resolveSheet(String name,
-                                              Map<String, TemplateSheet> source,
-                                              Map<String, TemplateSheet> resolved,
-                                              Set<String> stack) {
-        TemplateSheet cached = resolved.get(name);
-        if (cached != null) {
-            return cached;
+    /**
+     * @param visited {@code false} while a sheet's bases are being walked, {@code true} once done
+     */
+    private static void visit(String name, Map<String, TemplateSheet> source, Map<String, Boolean> visited) {
+        Boolean done = visited.get(name);
+        if (Boolean.TRUE.equals(done)) {
+            return;
+        }
+        if (done != null) {
+            throw new IllegalArgumentException("Circular sheet reference: " + name);
         }
-
         TemplateSheet sheet = source.get(name);
         if (sheet == null) {
             throw new IllegalArgumentException("Unknown template sheet: " + name);
         }
+        visited.put(name, false);
+        for (String baseName : sheet.getBaseSheets()) {
+            visit(baseName, source, visited);
+        }
+        visited.put(name, true);
+    }
 
-        if (!stack.add(name)) {
-            throw new IllegalArgumentException("Circular sheet reference: " + name);
+    /**
+     * Builds a resolution whose values are computed on first access. Merged sheets in
+     * {@code reusableSheets} and render plans in {@code reusablePlans} with an unchanged content
+     * hash are taken over instead of being built again. Only these plain maps are captured, never
+     * the previous resolution, so a chain of reloads does not keep earlier catalogs reachable.
+     */
+    private static ResolvedTemplates memoized(Map<String, TemplateSheet> source,
+                                              Map<String, TemplateSettings> templates,
+                                              Map<String, TemplateSheet> reusableSheets,
+                                              Map<String, RenderPlan> reusablePlans) {
+        MemoizedMap<String, TemplateSheet> sheetIndex = new MemoizedMap<>(source.keySet(), (index, name) -> {
+            TemplateSheet reused = reusableSheets.get(name);
+            return reused != null ? reused : merge(source.get(name), index);
+        });
+        Map<String, TemplateSettings> settings = Collections.unmodifiableMap(new LinkedHashMap<>(templates));
+        MemoizedMap<String, ExcelTemplateDefinition> definitions = new MemoizedMap<>(settings.keySet(),
+                (index, name) -> ExcelTemplateDefinition.fromSettings(settings.get(name), sheetIndex));
+        MemoizedMap<String, RenderPlan> renderPlans = new MemoizedMap<>(settings.keySet(), (index, name) -> {
+            ExcelTemplateDefinition definition = definitions.get(name);
+            RenderPlan reused = reusablePlans.get(name);
+            if (reused != null && reused.contentHash().equals(TemplateContentHash.of(definition))) {
+                return reused;
+            }
+            return compile(definition);
+        });
+        MemoizedMap<String, String> sourceHashes = new MemoizedMap<>(source.keySet(),
+                (index, name) -> TemplateContentHash.ofSource(source.get(name)));
+        return new ResolvedTemplates(sheetIndex, definitions, renderPlans, sourceHashes, dependents(source), settings);
+    }
+
+    /**
+     * Copies the values of {@code resolved} that are already computed and whose key matches.
+     */
+    private static <V> Map<String, V> computed(Map<String, V> resolved, Predicate<String> reusable) {
+        Map<String, V> computed = new HashMap<>();
+        for (String name : resolved.keySet()) {
+            V value = reusable.test(name) ? MemoizedMap.peek(resolved, name) : null;
+            if (value != null) {
+                computed.put(name, value);
+            }
         }
+        return computed;
+    }
 
+    private static ResolvedTemplates materialize(ResolvedTemplates resolved, ResolutionMode mode) {
+        if (mode == ResolutionMode.LAZY) {
+            return resolved;
+        }
+        return new ResolvedTemplates(
+                Collections.unmodifiableMap(new LinkedHashMap<>(resolved.sheetIndex())),
+                Collections.unmodifiableMap(new LinkedHashMap<>(resolved.instrumentTemplates())),
+                Collections.unmodifiableMap(new LinkedHashMap<>(resolved.renderPlans())),
+                Collections.unmodifiableMap(new LinkedHashMap<>(resolved.sourceHashes())),
+                resolved.dependents(),
+                resolved.settings());
+    }
+
+    private static TemplateSheet merge(TemplateSheet sheet, Map<String, TemplateSheet> sheetIndex) {
         LinkedHashMap<String, ExcelTemplateDefinition.Column> columns = new LinkedHashMap<>();
+        RowExtent dataRows = sheet.getDataRows();
+        RowExtent inheritedDataRows = null;
         for (String baseName : sheet.getBaseSheets()) {
-            TemplateSheet base = resolveSheet(baseName, source, resolved, stack);
+            TemplateSheet base = sheetIndex.get(baseName);
             for (ExcelTemplateDefinition.Column column : base.getColumns()) {
                 columns.put(column.getHeader(), column);
             }
+            if (base.getDataRows() != null) {
+                inheritedDataRows = base.getDataRows();
+            }
         }
 
         for (ExcelTemplateDefinition.Column column : sheet.getColumns()) {
             columns.put(column.getHeader(), column);
         }
 
-        TemplateSheet merged = TemplateSheet.builder()
+        return TemplateSheet.builder()
                 .name(sheet.getName())
                 .columns(columns.values().stream().toList())
+                .dataRows(dataRows != null ? dataRows : inheritedDataRows)
                 .build();
-        resolved.put(name, merged);
-        stack.remove(name);
-        return merged;
     }
 
-    private static Map<String, ExcelTemplateDefinition> resolveInstrumentTemplates(Map<String, TemplateSheet> sheetIndex,
-                                                                                   Map<String, ExcelTemplateDefinition.TemplateSettings> templates) {
-        Map<String, ExcelTemplateDefinition> definitions = new LinkedHashMap<>();
-        templates.forEach((name, settings) ->
-                definitions.put(name, ExcelTemplateDefinition.fromSettings(settings, sheetIndex)));
-        return definitions;
+    /**
+     * Maps every sheet name to the sheets that list it among their base sheets.
+     */
+    private static Map<String, Set<String>> dependents(Map<String, TemplateSheet> source) {
+        Map<String, Set<String>> dependents = new LinkedHashMap<>();
+        source.forEach((name, sheet) -> sheet.getBaseSheets().forEach(baseName ->
+                dependents.computeIfAbsent(baseName, key -> new LinkedHashSet<>()).add(name)));
+        return dependents;
     }
 
+    @SafeVarargs
+    private static Set<String> withDependents(Set<String> names, Map<String, Set<String>>... graphs) {
+        Set<String> closure = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(names);
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (!closure.add(name)) {
+                continue;
+            }
+            for (Map<String, Set<String>> graph : graphs) {
+                pending.addAll(graph.getOrDefault(name, Set.of()));
+            }
+        }
+        return closure;
+    }
+
+    private static List<String> sheetNames(TemplateSettings settings) {
+        return Optional.ofNullable(settings.getSheets()).orElseGet(List::of);
+    }
+
+    private static boolean sameSettings(TemplateSettings left, TemplateSettings right) {
+        return sheetNames(left).equals(sheetNames(right)) && Objects.equals(left.getDataRows(), right.getDataRows());
+    }
+
+    /**
+     * The maps are read-only; in {@link ResolutionMode#LAZY} mode their values are computed on
+     * first access.
+     *
+     * @param sourceHashes {@linkplain TemplateContentHash#ofSource source hash} of every configured sheet
+     * @param dependents   sheets that extend each sheet directly
+     * @param settings     the instrument template settings the resolution was built from
+     */
     public record ResolvedTemplates(Map<String, TemplateSheet> sheetIndex,
-                                    Map<String, ExcelTemplateDefinition> instrumentTemplates) {
+                                    Map<String, ExcelTemplateDefinition> instrumentTemplates,
+                                    Map<String, RenderPlan> renderPlans,
+                                    Map<String, String> sourceHashes,
+                                    Map<String, Set<String>> dependents,
+                                    Map<String, TemplateSettings> settings) {
+    }
+
+    /**
+     * @param resolved                the new resolution
+     * @param changedSheets           sheets that were re-resolved or removed
+     * @param staleSheetHashes        content hashes of merged sheets that no longer exist
+     * @param affectedInstrumentTypes instrument templates whose content changed, appeared or disappeared
+     */
+    public record TemplateUpdate(ResolvedTemplates resolved,
+                                 Set<String> changedSheets,
+                                 Set<String> staleSheetHashes,
+                                 Set<String> affectedInstrumentTypes) {
+
+        public boolean hasChanges() {
+            return !changedSheets.isEmpty() || !affectedInstrumentTypes.isEmpty();
+        }
     }
 }
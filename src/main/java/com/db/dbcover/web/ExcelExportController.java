@@ -0,0 +1,54 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.DownloadFilenames;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.admission.GenerationRejectedException;
+import com.db.dbcover.service.export.PrefilledExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/excel")
+public class ExcelExportController {
+
+    private final ExcelGeneratorService excelGeneratorService;
+    private final PrefilledExportService prefilledExportService;
+
+    public ExcelExportController(ExcelGeneratorService excelGeneratorService,
+                                 PrefilledExportService prefilledExportService) {
+        this.excelGeneratorService = excelGeneratorService;
+        this.prefilledExportService = prefilledExportService;
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam("instrumentType") String instrumentType) {
+        if (!prefilledExportService.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "No export row source is configured");
+        }
+        try {
+            excelGeneratorService.resolveTemplate(instrumentType);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        // Admission happens before the first byte is written, so a rejection still becomes a 503.
+        StreamingResponseBody body = outputStream -> {
+            try {
+                prefilledExportService.export(instrumentType, outputStream);
+            } catch (GenerationRejectedException ex) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + DownloadFilenames.export(instrumentType))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+}
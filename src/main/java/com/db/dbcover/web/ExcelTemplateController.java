@@ -1,49 +1,223 @@
 package com.db.dbcover.web;
 
+import com.db.dbcover.service.DownloadFilenames;
 import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.ExcelGeneratorService.VersionedPlan;
+import com.db.dbcover.service.admission.GenerationRejectedException;
+import com.db.dbcover.service.batch.TemplateBatchService;
+import com.db.dbcover.service.buffer.PooledBuffer;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 
+/**
+ * Template downloads carry a weak ETag derived from the {@linkplain ExcelGeneratorService#templateVersion
+ * template version}: a matching {@code If-None-Match} is answered with {@code 304} before the
+ * generator is invoked. The ETag is weak because a re-rendered workbook is equivalent but not
+ * byte-identical (zip entry timestamps). {@code /template/{instrumentType}/{version}} serves the
+ * same workbook under a URL that never changes meaning, so it is marked immutable; it keeps
+ * serving an earlier version as long as the template registry retains it, so clients pinned to
+ * that URL are unaffected while a newer version rolls out.
+ */
 @RestController
 @RequestMapping("/excel")
 public class ExcelTemplateController {
 
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
     private final ExcelGeneratorService excelGeneratorService;
 
-    public ExcelTemplateController(ExcelGeneratorService excelGeneratorService) {
+    private final TemplateBatchService templateBatchService;
+
+    public ExcelTemplateController(ExcelGeneratorService excelGeneratorService,
+                                   TemplateBatchService templateBatchService) {
         this.excelGeneratorService = excelGeneratorService;
+        this.templateBatchService = templateBatchService;
     }
 
     @GetMapping(value = "/template", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<byte[]> downloadTemplate(@RequestParam("instrumentType") String instrumentType) {
+    public ResponseEntity<StreamingResponseBody> downloadTemplate(@RequestParam("instrumentType") String instrumentType,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                                  String ifNoneMatch) {
+        VersionedPlan current = currentPlan(instrumentType);
+        return download(instrumentType, current.version(), ifNoneMatch, REVALIDATE,
+                () -> excelGeneratorService.generateBuffered(instrumentType, current.plan()));
+    }
+
+    @GetMapping(value = "/template/{instrumentType}/{version}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> downloadTemplateVersion(@PathVariable("instrumentType") String instrumentType,
+                                                                         @PathVariable("version") String version,
+                                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                                         String ifNoneMatch) {
+        String current = currentPlan(instrumentType).version();
+        if (excelGeneratorService.findPlan(instrumentType, version).isEmpty()) {
+            throw versionNotAvailable(instrumentType, version, current, null);
+        }
+        // Always rendered from the pinned plan, even when it is the current one: a reload between
+        // the lookups must not put a different workbook behind this immutable URL and ETag.
+        return download(instrumentType, version, ifNoneMatch, IMMUTABLE, () -> {
+            try {
+                return excelGeneratorService.generateBuffered(instrumentType, version);
+            } catch (IllegalArgumentException ex) {
+                throw versionNotAvailable(instrumentType, version, current, ex);
+            }
+        });
+    }
+
+    private static ResponseStatusException versionNotAvailable(String instrumentType, String version, String current,
+                                                               Throwable cause) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Template version " + version + " of " + instrumentType + " is not available; current version is "
+                        + current, cause);
+    }
+
+    @GetMapping(value = "/template/stream", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTemplate(@RequestParam("instrumentType") String instrumentType,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                                String ifNoneMatch) {
+        VersionedPlan current = currentPlan(instrumentType);
+        String version = current.version();
+        if (matches(ifNoneMatch, version)) {
+            return notModified(instrumentType, version, REVALIDATE);
+        }
+        // Admission happens before the first byte is written, so a rejection still becomes a 503.
+        // The body renders the plan the ETag was derived from, even if a reload lands meanwhile.
+        StreamingResponseBody body = outputStream -> {
+            try {
+                excelGeneratorService.generateTemplate(instrumentType, current.plan(), outputStream);
+            } catch (GenerationRejectedException ex) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+            }
+        };
+        return ResponseEntity.ok()
+                .headers(validators(instrumentType, version, REVALIDATE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + DownloadFilenames.template(instrumentType))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    /**
+     * Streams the workbooks of several instrument types, or of {@code all} configured ones, as one
+     * zip archive. Every type is checked before the first byte is written, so unknown types still
+     * yield {@code 400}.
+     */
+    @GetMapping(value = "/template/batch", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> downloadTemplates(@RequestParam("instrumentType") List<String> instrumentTypes) {
+        List<String> resolved;
+        try {
+            resolved = templateBatchService.resolveInstrumentTypes(instrumentTypes);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        StreamingResponseBody body = outputStream -> templateBatchService.writeZip(resolved, outputStream, DownloadFilenames::template);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + DownloadFilenames.batch())
+                .contentType(APPLICATION_ZIP)
+                .body(body);
+    }
+
+    /**
+     * Generates the workbook before answering, so failures still map to a status code and the
+     * length is known; the body then hands the buffer to the response and releases it, or the
+     * request releases it on completion when the body never runs.
+     */
+    private ResponseEntity<StreamingResponseBody> download(String instrumentType,
+                                                           String version,
+                                                           String ifNoneMatch,
+                                                           CacheControl cacheControl,
+                                                           BufferedWorkbook generator) {
+        if (matches(ifNoneMatch, version)) {
+            return notModified(instrumentType, version, cacheControl);
+        }
         try {
-            byte[] file = excelGeneratorService.generateTemplate(instrumentType);
-            String filename = buildFilename(instrumentType);
+            PooledBuffer workbook = generator.generate();
+            StreamingResponseBody body = PooledBufferBody.of(workbook);
+            String filename = DownloadFilenames.template(instrumentType);
             return ResponseEntity.ok()
+                    .headers(validators(instrumentType, version, cacheControl))
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(file.length)
-                    .body(file);
+                    .contentLength(workbook.size())
+                    .body(body);
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (GenerationRejectedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate Excel template", ex);
         }
     }
 
-    private String buildFilename(String instrumentType) {
-        String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        return String.format("%s_bulk_upload_%s.xlsx", instrumentType.toLowerCase(), date);
+    @FunctionalInterface
+    private interface BufferedWorkbook {
+        PooledBuffer generate() throws IOException;
+    }
+
+    private VersionedPlan currentPlan(String instrumentType) {
+        try {
+            return excelGeneratorService.currentPlan(instrumentType);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    private static <T> ResponseEntity<T> notModified(String instrumentType, String version, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .headers(validators(instrumentType, version, cacheControl))
+                .build();
+    }
+
+    private static HttpHeaders validators(String instrumentType, String version, CacheControl cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag(version));
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.CONTENT_LOCATION,
+                "/excel/template/" + UriUtils.encodePathSegment(instrumentType, StandardCharsets.UTF_8) + "/" + version);
+        return headers;
+    }
+
+    private static String eTag(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison as required for {@code If-None-Match}: the {@code W/} prefix is ignored.
+     */
+    private static boolean matches(String ifNoneMatch, String version) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("\"" + version + "\"")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,56 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.upload.UploadReport;
+import com.db.dbcover.service.upload.UploadValidationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/excel")
+public class ExcelUploadController {
+
+    private final UploadValidationService uploadValidationService;
+
+    public ExcelUploadController(UploadValidationService uploadValidationService) {
+        this.uploadValidationService = uploadValidationService;
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadReport> upload(@RequestParam("instrumentType") String instrumentType,
+                                               @RequestParam("file") MultipartFile file) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("excel-upload-", ".xlsx");
+            file.transferTo(spooled);
+            return ResponseEntity.ok(uploadValidationService.validate(instrumentType, spooled));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to read uploaded workbook", ex);
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // the temp directory is cleaned up by the OS eventually
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.admission.GenerationRejectedException;
+import com.db.dbcover.service.job.GenerationJobService;
+import com.db.dbcover.service.job.JobArtifact;
+import com.db.dbcover.service.job.JobDownload;
+import com.db.dbcover.service.job.JobStatus;
+import com.db.dbcover.service.job.JobType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Job API around background generation: submit, poll the status, and download the artifact once
+ * the job has succeeded. Full downloads are handed to Tomcat's sendfile support when the connector
+ * offers it, so the file is copied to the socket by the kernel; range requests and other
+ * containers go through Spring's resource handling, which answers {@code Range} with {@code 206}.
+ */
+@RestController
+@RequestMapping("/excel/jobs")
+public class GenerationJobController {
+
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String DOWNLOAD_ATTRIBUTE = GenerationJobController.class.getName() + ".download";
+
+    private final GenerationJobService generationJobService;
+
+    public GenerationJobController(GenerationJobService generationJobService) {
+        this.generationJobService = generationJobService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JobStatus> submit(@RequestBody JobRequest request) {
+        try {
+            JobStatus status = generationJobService.submit(request.type(), request.instrumentTypes());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/excel/jobs/" + status.id()))
+                    .body(status);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (UnsupportedOperationException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, ex.getMessage(), ex);
+        } catch (GenerationRejectedException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+        }
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public JobStatus status(@PathVariable("id") String id) {
+        return generationJobService.status(id).orElseThrow(() -> unknownJob(id));
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> download(@PathVariable("id") String id, HttpServletRequest request) {
+        JobStatus status = status(id);
+        JobDownload download = generationJobService.openDownload(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Job " + id + " is " + status.state() + (status.error() != null ? ": " + status.error() : "")));
+        // The body is written before the request completes, so the file is not deleted mid-transfer.
+        RequestContextHolder.currentRequestAttributes()
+                .registerDestructionCallback(DOWNLOAD_ATTRIBUTE, download::close, RequestAttributes.SCOPE_REQUEST);
+        JobArtifact artifact = download.artifact();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment().filename(artifact.filename()).build());
+        headers.setContentType(MediaType.parseMediaType(artifact.contentType()));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, artifact.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, artifact.size());
+            return ResponseEntity.ok().headers(headers).contentLength(artifact.size()).build();
+        }
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(artifact.file()));
+    }
+
+    private static ResponseStatusException unknownJob(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired job: " + id);
+    }
+
+    public record JobRequest(JobType type, List<String> instrumentTypes) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.buffer.PooledBuffer;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Response body that sends a {@link PooledBuffer} and gives its chunks back to the pool exactly
+ * once. Normally the body releases the buffer after writing it. When the body never runs, because
+ * the request fails before the async dispatch starts, times out, or the client goes away first,
+ * the buffer is released when the request completes.
+ */
+final class PooledBufferBody implements StreamingResponseBody {
+
+    private static final String CALLBACK_NAME = PooledBufferBody.class.getName();
+    private static final boolean TOMCAT_PRESENT = ClassUtils.isPresent(
+            "org.apache.catalina.connector.CoyoteOutputStream", PooledBufferBody.class.getClassLoader());
+
+    private final PooledBuffer buffer;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private PooledBufferBody(PooledBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Wraps {@code buffer} and, within a servlet request, registers its release on completion.
+     */
+    static PooledBufferBody of(PooledBuffer buffer) {
+        PooledBufferBody body = new PooledBufferBody(buffer);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            body.releaseOnCompletion(attributes);
+        }
+        return body;
+    }
+
+    /**
+     * On Tomcat the chunks are handed to the connector as they are; other containers get them
+     * through a small transfer array.
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (!claimed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Response buffer has already been released");
+        }
+        try (buffer) {
+            WritableByteChannel channel = TOMCAT_PRESENT ? TomcatResponseChannel.of(outputStream) : null;
+            if (channel != null) {
+                buffer.writeTo(channel);
+            } else {
+                buffer.writeTo(outputStream);
+            }
+        }
+    }
+
+    /**
+     * Releases the buffer unless the body has already taken it over.
+     */
+    void release() {
+        if (claimed.compareAndSet(false, true)) {
+            buffer.close();
+        }
+    }
+
+    private void releaseOnCompletion(ServletRequestAttributes attributes) {
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(attributes.getRequest());
+        asyncManager.registerCallableInterceptor(CALLBACK_NAME, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                release();
+            }
+        });
+        attributes.registerDestructionCallback(CALLBACK_NAME, () -> {
+            if (!asyncManager.isConcurrentHandlingStarted()) {
+                release();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+}
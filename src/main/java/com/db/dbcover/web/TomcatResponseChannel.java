@@ -0,0 +1,49 @@
+package com.db.dbcover.web;
+
+import org.apache.catalina.connector.CoyoteOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Channel onto Tomcat's response stream, which accepts {@link ByteBuffer}s as they are, so direct
+ * buffers reach the connector without being copied into a heap array. This is the only class
+ * that depends on Tomcat; it is only loaded when Tomcat is on the classpath. Closing the channel
+ * leaves the response open.
+ */
+final class TomcatResponseChannel implements WritableByteChannel {
+
+    private final CoyoteOutputStream outputStream;
+    private boolean open = true;
+
+    private TomcatResponseChannel(CoyoteOutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Returns a channel when {@code outputStream} is Tomcat's own response stream, otherwise {@code null}.
+     */
+    static WritableByteChannel of(OutputStream outputStream) {
+        return outputStream instanceof CoyoteOutputStream coyote ? new TomcatResponseChannel(coyote) : null;
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        int count = source.remaining();
+        outputStream.write(source);
+        source.position(source.limit());
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
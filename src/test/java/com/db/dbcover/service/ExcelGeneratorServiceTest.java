@@ -1,24 +1,43 @@
 package com.db.dbcover.service;
 
+import com.db.dbcover.config.ExcelGeneratorProperties;
 import com.db.dbcover.config.ExcelTemplateProperties;
-import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.buffer.PooledBuffer;
+import com.db.dbcover.service.buffer.WorkbookBufferPool;
+import com.db.dbcover.service.cache.GenerationCoalescer;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.metrics.GenerationPhase;
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.service.render.SheetRenderPool;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.service.sheet.LookupSheet;
 import com.db.dbcover.service.sheet.SheetFormatter;
+import com.db.dbcover.template.ColumnSpec;
 import com.db.dbcover.template.DefaultExcelTemplates;
 import com.db.dbcover.template.ExcelTemplateDefinition;
 import com.db.dbcover.template.ExcelTemplateDefinition.Column;
 import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
 import com.db.dbcover.template.ExcelTemplateDefinition.RequiredStatus;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
 import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RowExtent;
+import com.db.dbcover.template.SheetPlan;
+import com.db.dbcover.template.TemplateContentHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.DataValidation;
 import org.apache.poi.ss.usermodel.DataValidationConstraint;
 import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.SheetVisibility;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
 import org.apache.poi.ss.util.PaneInformation;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,8 +45,12 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -49,12 +72,25 @@ import static com.db.dbcover.template.ExcelTemplateDefinition.RequiredStatus.REQ
 class ExcelGeneratorServiceTest {
 
     private ExcelTemplateProperties properties;
+    private RenderedWorkbookCache workbookCache;
+    private GenerationCoalescer coalescer;
+    private SimpleMeterRegistry meterRegistry;
     private ExcelGeneratorService service;
 
     @BeforeEach
     void setUp() {
         properties = DefaultExcelTemplates.properties();
-        service = new ExcelGeneratorService(properties);
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        workbookCache = new RenderedWorkbookCache(generatorProperties);
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new GenerationCoalescer(true, meterRegistry);
+        service = TestGeneratorServices.builder()
+                .templates(properties)
+                .generatorProperties(generatorProperties)
+                .meterRegistry(meterRegistry)
+                .workbookCache(workbookCache)
+                .coalescer(coalescer)
+                .build();
     }
 
     @Test
@@ -80,8 +116,8 @@ class ExcelGeneratorServiceTest {
 
                     final int finalColumnIndex = columnIndex;
                     String tooltip = sheet.getDataValidations().stream().filter(
-                            v -> v.getValidationConstraint().getFormula1().contains("ISNUMBER(" + finalColumnIndex +")"
-                    )).findFirst().map(DataValidation::getPromptBoxText).orElse("");
+                            v -> v.getShowPromptBox() && covers(v, finalColumnIndex)
+                    ).findFirst().map(DataValidation::getPromptBoxText).orElse("");
 
                     String expectedTooltip = tooltip;
                     if (expectedTooltip.isBlank()) {
@@ -121,7 +157,7 @@ class ExcelGeneratorServiceTest {
             Sheet workbookSheet = workbook.getSheet("VALIDATIONS");
             assertThat(workbookSheet).isNotNull();
             List<? extends DataValidation> validations = workbookSheet.getDataValidations().stream().filter(
-                    v -> !v.getValidationConstraint().getFormula1().contains("ISNUMBER")
+                    v -> !v.getShowPromptBox()
             ).toList();
             assertThat(validations).hasSize(4);
 
@@ -140,6 +176,255 @@ class ExcelGeneratorServiceTest {
         }
     }
 
+    @Test
+    void shouldShareTooltipValidationAcrossAdjacentColumns() throws IOException {
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(List.of(TemplateSheet.builder()
+                .name("TOOLTIPS")
+                .columns(List.of(
+                        column("FIRST", TEXT, NOT_REQUIRED, null, null, "Free text", null),
+                        column("SECOND", TEXT, NOT_REQUIRED, null, null, "Free text", null),
+                        column("THIRD", TEXT, NOT_REQUIRED, null, null, "Other", null)))
+                .build()));
+
+        byte[] workbookBytes = service.generateTemplate(definition);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+            assertThat(validationRegions(workbook.getSheet("TOOLTIPS")))
+                    .containsExactly("A1:B10001", "C1:C10001");
+        }
+    }
+
+    @Test
+    void shouldShareColumnStylesAcrossSheets() throws IOException {
+        ExcelTemplateDefinition definition = properties.resolvedInstrumentTemplates().get("MORTGAGE");
+        byte[] workbookBytes = service.generateTemplate(definition);
+
+        // two header styles plus one per distinct format (@, dd/mm/yyyy, dd.mm.yyyy, #,##0.00, default number)
+        assertThat(meterRegistry.get("excel.generation.cell.styles").summary().max()).isEqualTo(7);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+            assertThat(workbook.getNumCellStyles()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    void shouldRecordPhaseTimingsPerInstrumentType() throws IOException {
+        byte[] workbookBytes = service.generateTemplate("MORTGAGE");
+
+        assertThat(meterRegistry.get("excel.generation").tag("instrumentType", "MORTGAGE").timer().count())
+                .isEqualTo(1);
+        for (GenerationPhase phase : GenerationPhase.values()) {
+            assertThat(meterRegistry.get("excel.generation.phase")
+                    .tag("instrumentType", "MORTGAGE")
+                    .tag("phase", phase.name())
+                    .timer().count()).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get("excel.generation.output.size").summary().totalAmount())
+                .isEqualTo(workbookBytes.length);
+        int expectedSheets = properties.resolvedInstrumentTemplates().get("MORTGAGE").getSheets().size();
+        assertThat(meterRegistry.get("excel.generation.sheets").counter().count()).isEqualTo(expectedSheets);
+    }
+
+    @Test
+    void shouldMergeMeasurementsOfSheetsRenderedInParallel() throws IOException {
+        SimpleMeterRegistry sequentialRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry parallelRegistry = new SimpleMeterRegistry();
+        ExcelGeneratorProperties sequential = streamingProperties(false);
+        ExcelGeneratorProperties parallel = streamingProperties(true);
+        SheetRenderPool pool = new SheetRenderPool(parallel);
+        try {
+            TestGeneratorServices.builder()
+                    .templates(properties)
+                    .generatorProperties(sequential)
+                    .meterRegistry(sequentialRegistry)
+                    .build()
+                    .generateTemplate("MORTGAGE");
+            TestGeneratorServices.builder()
+                    .templates(properties)
+                    .generatorProperties(parallel)
+                    .meterRegistry(parallelRegistry)
+                    .sheetRenderPool(pool)
+                    .build()
+                    .generateTemplate("MORTGAGE");
+        } finally {
+            pool.destroy();
+        }
+        for (String counter : List.of("excel.generation.sheets", "excel.generation.columns", "excel.generation.validations")) {
+            assertThat(parallelRegistry.get(counter).counter().count())
+                    .as(counter)
+                    .isEqualTo(sequentialRegistry.get(counter).counter().count());
+        }
+        assertThat(parallelRegistry.get("excel.generation.phase")
+                .tag("phase", GenerationPhase.SHEET_SETUP.name())
+                .timer().totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    @Test
+    void shouldServeRepeatedInstrumentRequestsFromCache() throws IOException {
+        byte[] first = service.generateTemplate("MORTGAGE");
+        byte[] second = service.generateTemplate("MORTGAGE");
+
+        assertThat(second).isSameAs(first);
+        assertThat(workbookCache.missCount()).isEqualTo(1);
+        assertThat(workbookCache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServePinnedVersionsAfterReload() throws IOException {
+        String pinned = service.templateVersion("MORTGAGE");
+        byte[] pinnedWorkbook = service.generateTemplate("MORTGAGE");
+        TemplateSettings reduced = new TemplateSettings();
+        reduced.setSheets(List.of("INSTRUMENT_DETAILS"));
+        properties.reload(ExcelTemplateProperties.builder()
+                .templateSheets(properties.resolvedInstrumentTemplates().get("MORTGAGE").getSheets())
+                .instrumentTemplates(Map.of("MORTGAGE", reduced))
+                .build());
+
+        String current = service.templateVersion("MORTGAGE");
+        assertThat(current).isNotEqualTo(pinned);
+        assertThat(service.templateVersions("MORTGAGE")).containsExactly(current, pinned);
+        assertThat(service.generateTemplate("MORTGAGE", pinned)).isSameAs(pinnedWorkbook);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(service.generateTemplate("MORTGAGE", current)))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(1);
+        }
+        assertThatThrownBy(() -> service.generateTemplate("MORTGAGE", "stale"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not available");
+        assertThatThrownBy(() -> service.templateVersions("UNKNOWN"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        ExcelGeneratorService.ResolvedTemplate resolved = service.resolveCurrent("MORTGAGE");
+        assertThat(resolved.definition().getSheets()).extracting(TemplateSheet::getName)
+                .containsExactlyElementsOf(resolved.plan().sheets().stream().map(SheetPlan::name).toList());
+        assertThat(resolved.plan().contentHash()).isEqualTo(TemplateContentHash.of(resolved.definition()));
+    }
+
+    @Test
+    void shouldRenderUncachedWorkbooksIntoPooledBuffers() throws IOException {
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        generatorProperties.getCache().setEnabled(false);
+        WorkbookBufferPool bufferPool = new WorkbookBufferPool(generatorProperties.getBuffers(), meterRegistry);
+        ExcelGeneratorService uncached = TestGeneratorServices.builder()
+                .templates(properties)
+                .generatorProperties(generatorProperties)
+                .meterRegistry(meterRegistry)
+                .coalescer(new GenerationCoalescer(false, meterRegistry))
+                .bufferPool(bufferPool)
+                .build();
+
+        try (PooledBuffer buffer = uncached.generateBuffered("MORTGAGE")) {
+            assertThat(buffer.chunks()).allMatch(ByteBuffer::isDirect);
+            assertThat(bufferPool.borrowedChunks()).isEqualTo(buffer.chunks().size());
+            try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(buffer.toByteArray()))) {
+                assertThat(workbook.getNumberOfSheets()).isEqualTo(6);
+            }
+        }
+        assertThat(bufferPool.borrowedChunks()).isZero();
+        assertThat(uncached.generateTemplate("MORTGAGE")).isNotEmpty();
+        assertThat(bufferPool.fallbackCount()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWorkbooks() throws IOException {
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        generatorProperties.getCache().setMaxEntries(1);
+        RenderedWorkbookCache cache = new RenderedWorkbookCache(generatorProperties);
+
+        cache.getOrRender(new RenderedWorkbookCache.CacheKey("A", "1"), () -> new byte[]{1});
+        cache.getOrRender(new RenderedWorkbookCache.CacheKey("B", "1"), () -> new byte[]{2});
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        byte[] reloaded = cache.getOrRender(new RenderedWorkbookCache.CacheKey("A", "1"), () -> new byte[]{3});
+        assertThat(reloaded).containsExactly(3);
+    }
+
+    @Test
+    void shouldMergeIdenticalValidationsAcrossColumns() throws IOException {
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        TemplateSheet sheet = TemplateSheet.builder()
+                .name("MERGED")
+                .columns(List.of(
+                        column("START", DATE, NOT_REQUIRED, null, null, null, null),
+                        column("END", DATE, NOT_REQUIRED, null, null, null, null),
+                        column("NOTE", TEXT, NOT_REQUIRED, null, null, null, null),
+                        column("MATURITY", DATE, NOT_REQUIRED, null, null, null, null)
+                ))
+                .build();
+        definition.setSheets(List.of(sheet));
+
+        byte[] workbookBytes = service.generateTemplate(definition);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+            List<? extends DataValidation> validations = workbook.getSheet("MERGED").getDataValidations();
+            assertThat(validations).hasSize(1);
+
+            CellRangeAddress[] regions = validations.get(0).getRegions().getCellRangeAddresses();
+            assertThat(regions).extracting(CellRangeAddress::formatAsString)
+                    .containsExactlyInAnyOrder("A2:B10001", "D2:D10001");
+        }
+    }
+
+    @Test
+    void shouldCoverConfiguredDataRowExtents() throws IOException {
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setDataRows(RowExtent.rows(500));
+        TemplateSheet templateExtent = TemplateSheet.builder()
+                .name("TEMPLATE_EXTENT")
+                .columns(List.of(column("AMOUNT", NUMBER, NOT_REQUIRED, null, null, null, null)))
+                .build();
+        TemplateSheet entireColumn = TemplateSheet.builder()
+                .name("ENTIRE_COLUMN")
+                .dataRows(RowExtent.ENTIRE_COLUMN)
+                .columns(List.of(column("AMOUNT", NUMBER, NOT_REQUIRED, "Amount", null, null, null)))
+                .build();
+        definition.setSheets(List.of(templateExtent, entireColumn));
+
+        byte[] workbookBytes = service.generateTemplate(definition);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+            assertThat(validationRegions(workbook.getSheet("TEMPLATE_EXTENT")))
+                    .containsExactly("A2:A501");
+            assertThat(validationRegions(workbook.getSheet("ENTIRE_COLUMN")))
+                    .containsExactlyInAnyOrder("A2:A1048576", "A1:A1048576");
+        }
+    }
+
+    @Test
+    void shouldMoveLongListsToSharedLookupSheet() throws IOException {
+        List<String> countries = IntStream.range(0, 100)
+                .mapToObj(index -> String.format("C%03d", index))
+                .toList();
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(List.of(
+                TemplateSheet.builder().name("FIRST")
+                        .columns(List.of(column("COUNTRY", LIST, REQUIRED, null, null, null, countries)))
+                        .build(),
+                TemplateSheet.builder().name("SECOND")
+                        .columns(List.of(
+                                column("FLAG", BOOLEAN, REQUIRED, null, null, null, null),
+                                column("COUNTRY", LIST, REQUIRED, null, null, null, countries)))
+                        .build()));
+
+        byte[] workbookBytes = service.generateTemplate(definition);
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(workbook.getSheetName(2)).isEqualTo(LookupSheet.SHEET_NAME);
+            assertThat(workbook.getSheetVisibility(2)).isEqualTo(SheetVisibility.VERY_HIDDEN);
+            String rangeName = LookupSheet.rangeName(countries);
+            assertThat(workbook.getAllNames())
+                    .filteredOn(name -> !name.getNameName().startsWith("_xlnm."))
+                    .extracting(Name::getNameName)
+                    .containsExactly(rangeName);
+            assertThat(workbook.getName(rangeName).getRefersToFormula()).isEqualTo("_LOOKUPS!$A$1:$A$100");
+            for (String sheetName : List.of("FIRST", "SECOND")) {
+                assertThat(workbook.getSheet(sheetName).getDataValidations())
+                        .extracting(validation -> validation.getValidationConstraint().getFormula1())
+                        .contains(rangeName);
+            }
+            assertThat(workbook.getSheet("SECOND").getDataValidations())
+                    .extracting(validation -> validation.getValidationConstraint().getExplicitListValues())
+                    .anySatisfy(values -> assertThat(values).containsExactly("YES", "NO"));
+        }
+    }
+
     @Test
     void shouldRequireInstrumentType() {
         assertThatThrownBy(() -> service.generateTemplate(" "))
@@ -163,7 +448,7 @@ class ExcelGeneratorServiceTest {
         Workbook workbook = mock(Workbook.class);
         DataFormat dataFormat = mock(DataFormat.class);
         when(sheet.getDataValidationHelper()).thenReturn(helper);
-        when(helper.createExplicitListConstraint(any(String[].class))).thenReturn(constraint);
+        when(helper.createFormulaListConstraint("\"A,B\"")).thenReturn(constraint);
         when(helper.createValidation(eq(constraint), any(CellRangeAddressList.class))).thenReturn(validation);
 
         Column listColumn = Column.builder()
@@ -172,10 +457,12 @@ class ExcelGeneratorServiceTest {
                 .build();
         listColumn.setAllowedValues(List.of("A", "B"));
 
-        SheetFormatter formatter = new SheetFormatter(workbook, dataFormat, 0, 10_000);
-        formatter.applyColumnValidation(sheet, 0, listColumn);
+        SheetFormatter formatter = new SheetFormatter(workbook, dataFormat, 0, RowExtent.rows(10_000),
+                ColumnWidthMode.ESTIMATE, ListValidationMode.AUTO);
+        formatter.applyColumnValidation(sheet, 0, ColumnSpec.of(listColumn));
+        formatter.finalizeSheet(sheet, List.of(ColumnSpec.of(listColumn)));
 
-        verify(helper).createExplicitListConstraint(any(String[].class));
+        verify(helper).createFormulaListConstraint("\"A,B\"");
         verify(helper).createValidation(eq(constraint), any(CellRangeAddressList.class));
         verify(sheet).addValidationData(validation);
     }
@@ -193,13 +480,36 @@ class ExcelGeneratorServiceTest {
                 .type(TEXT)
                 .build();
 
-        SheetFormatter formatter = new SheetFormatter(workbook, dataFormat, 0, 10_000);
-        formatter.applyColumnValidation(sheet, 0, textColumn);
+        SheetFormatter formatter = new SheetFormatter(workbook, dataFormat, 0, RowExtent.rows(10_000),
+                ColumnWidthMode.ESTIMATE, ListValidationMode.AUTO);
+        formatter.applyColumnValidation(sheet, 0, ColumnSpec.of(textColumn));
 
         verify(helper, never()).createValidation(any(), any());
         verify(sheet, never()).addValidationData(any());
     }
 
+    private static ExcelGeneratorProperties streamingProperties(boolean parallel) {
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        generatorProperties.setRenderer(RendererType.STREAMING);
+        generatorProperties.getCache().setEnabled(false);
+        generatorProperties.getSheetCache().setEnabled(false);
+        generatorProperties.setParallel(parallel);
+        generatorProperties.setParallelism(3);
+        return generatorProperties;
+    }
+
+    private static List<String> validationRegions(Sheet sheet) {
+        return sheet.getDataValidations().stream()
+                .flatMap(validation -> Arrays.stream(validation.getRegions().getCellRangeAddresses()))
+                .map(CellRangeAddress::formatAsString)
+                .toList();
+    }
+
+    private static boolean covers(DataValidation validation, int columnIndex) {
+        return Arrays.stream(validation.getRegions().getCellRangeAddresses())
+                .anyMatch(region -> region.getFirstColumn() <= columnIndex && columnIndex <= region.getLastColumn());
+    }
+
     private static Column column(String header,
                                  ColumnType type,
                                  RequiredStatus requiredStatus,
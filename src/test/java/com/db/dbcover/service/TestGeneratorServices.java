@@ -0,0 +1,100 @@
+package com.db.dbcover.service;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import com.db.dbcover.service.buffer.WorkbookBufferPool;
+import com.db.dbcover.service.cache.GenerationCoalescer;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.metrics.GenerationMetrics;
+import com.db.dbcover.service.render.SheetPartCache;
+import com.db.dbcover.service.render.SheetRenderPool;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds {@link ExcelGeneratorService}s for tests. Collaborators that a test does not set are
+ * created from the generator properties and the meter registry, so adding a collaborator to the
+ * service only changes this class.
+ */
+public final class TestGeneratorServices {
+
+    private ExcelTemplateProperties templates;
+    private ExcelGeneratorProperties generatorProperties;
+    private MeterRegistry meterRegistry;
+    private RenderedWorkbookCache workbookCache;
+    private GenerationCoalescer coalescer;
+    private SheetRenderPool sheetRenderPool;
+    private WorkbookBufferPool bufferPool;
+    private GenerationBulkhead bulkhead;
+
+    private TestGeneratorServices() {
+    }
+
+    /**
+     * Starts from the default templates, default generator properties and a fresh registry.
+     */
+    public static TestGeneratorServices builder() {
+        return new TestGeneratorServices();
+    }
+
+    public static ExcelGeneratorService defaults() {
+        return builder().build();
+    }
+
+    public TestGeneratorServices templates(ExcelTemplateProperties templates) {
+        this.templates = templates;
+        return this;
+    }
+
+    public TestGeneratorServices generatorProperties(ExcelGeneratorProperties generatorProperties) {
+        this.generatorProperties = generatorProperties;
+        return this;
+    }
+
+    public TestGeneratorServices meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    public TestGeneratorServices workbookCache(RenderedWorkbookCache workbookCache) {
+        this.workbookCache = workbookCache;
+        return this;
+    }
+
+    public TestGeneratorServices coalescer(GenerationCoalescer coalescer) {
+        this.coalescer = coalescer;
+        return this;
+    }
+
+    public TestGeneratorServices sheetRenderPool(SheetRenderPool sheetRenderPool) {
+        this.sheetRenderPool = sheetRenderPool;
+        return this;
+    }
+
+    public TestGeneratorServices bufferPool(WorkbookBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        return this;
+    }
+
+    public TestGeneratorServices bulkhead(GenerationBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    public ExcelGeneratorService build() {
+        ExcelGeneratorProperties generator = generatorProperties != null ? generatorProperties : new ExcelGeneratorProperties();
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : new SimpleMeterRegistry();
+        return new ExcelGeneratorService(
+                templates != null ? templates : DefaultExcelTemplates.properties(),
+                generator,
+                workbookCache != null ? workbookCache : new RenderedWorkbookCache(generator),
+                coalescer != null ? coalescer : new GenerationCoalescer(true, registry),
+                new SheetPartCache(generator),
+                sheetRenderPool != null ? sheetRenderPool : new SheetRenderPool(generator),
+                bufferPool != null ? bufferPool : new WorkbookBufferPool(generator.getBuffers(), registry),
+                bulkhead != null ? bulkhead : new GenerationBulkhead(generator.getBulkhead(), registry),
+                new GenerationMetrics(registry));
+    }
+}
@@ -0,0 +1,101 @@
+package com.db.dbcover.service.admission;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.render.RendererType;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class GenerationBulkheadTest {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private ExcelGeneratorProperties.Bulkhead settings;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ExcelGeneratorProperties().getBulkhead();
+        settings.setMaxMemory(DataSize.ofMegabytes(4));
+        settings.setTimeout(Duration.ofMillis(50));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRejectWhenNoBudgetFreesUpWithinTimeout() {
+        GenerationBulkhead bulkhead = new GenerationBulkhead(settings, registry);
+
+        GenerationBulkhead.Permit first = bulkhead.acquire(3 * MEGABYTE);
+        assertThat(registry.get(GenerationBulkhead.IN_FLIGHT).gauge().value()).isEqualTo(1);
+        assertThat(registry.get(GenerationBulkhead.RESERVED).gauge().value()).isEqualTo(3 * MEGABYTE);
+
+        assertThatThrownBy(() -> bulkhead.acquire(2 * MEGABYTE))
+                .isInstanceOf(GenerationRejectedException.class)
+                .hasMessageContaining("within");
+        assertThat(registry.get(GenerationBulkhead.REJECTED).tag(GenerationBulkhead.REASON_TAG, "timeout")
+                .counter().count()).isEqualTo(1);
+
+        first.close();
+        first.close();
+        try (GenerationBulkhead.Permit second = bulkhead.acquire(2 * MEGABYTE)) {
+            assertThat(bulkhead.inFlight()).isEqualTo(1);
+        }
+        assertThat(bulkhead.reservedBytes()).isZero();
+    }
+
+    @Test
+    void shouldQueueWaitersAndRejectBeyondMaxQueued() throws Exception {
+        settings.setTimeout(Duration.ofSeconds(10));
+        settings.setMaxQueued(1);
+        GenerationBulkhead bulkhead = new GenerationBulkhead(settings, registry);
+        GenerationBulkhead.Permit running = bulkhead.acquire(4 * MEGABYTE);
+
+        CompletableFuture<GenerationBulkhead.Permit> waiting = CompletableFuture.supplyAsync(
+                () -> bulkhead.acquire(MEGABYTE));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> bulkhead.queued() == 1);
+        assertThat(registry.get(GenerationBulkhead.QUEUED).gauge().value()).isEqualTo(1);
+
+        assertThatThrownBy(() -> bulkhead.acquire(MEGABYTE))
+                .isInstanceOf(GenerationRejectedException.class)
+                .hasMessageContaining("waiting");
+
+        running.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertThat(bulkhead.queued()).isZero();
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void shouldAdmitGenerationsLargerThanTheBudgetAlone() {
+        GenerationBulkhead bulkhead = new GenerationBulkhead(settings, registry);
+
+        try (GenerationBulkhead.Permit permit = bulkhead.acquire(64 * MEGABYTE)) {
+            assertThat(bulkhead.reservedBytes()).isEqualTo(4 * MEGABYTE);
+            assertThatThrownBy(() -> bulkhead.acquire(1))
+                    .isInstanceOf(GenerationRejectedException.class);
+        }
+    }
+
+    @Test
+    void shouldEstimateCostFromTemplateShapeAndRenderer() {
+        ExcelTemplateDefinition mortgage = DefaultExcelTemplates.properties().resolvedInstrumentTemplates().get("MORTGAGE");
+
+        long poi = GenerationCost.estimateBytes(mortgage, RendererType.POI);
+        long streaming = GenerationCost.estimateBytes(mortgage, RendererType.STREAMING);
+
+        assertThat(poi).isBetween(2 * MEGABYTE, 4 * MEGABYTE);
+        assertThat(streaming).isLessThan(poi / 4);
+        assertThat(GenerationCost.estimateBytes(new ExcelTemplateDefinition(), RendererType.POI)).isPositive();
+    }
+}
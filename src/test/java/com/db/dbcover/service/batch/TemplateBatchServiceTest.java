@@ -0,0 +1,98 @@
+package com.db.dbcover.service.batch;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.TestGeneratorServices;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemplateBatchServiceTest {
+
+    private TemplateBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        List<TemplateSheet> sheets = DefaultExcelTemplates.properties()
+                .resolvedInstrumentTemplates().get("MORTGAGE").getSheets();
+        Map<String, TemplateSettings> instrumentTemplates = new LinkedHashMap<>();
+        instrumentTemplates.put("MORTGAGE", settings(sheets.stream().map(TemplateSheet::getName).toList()));
+        instrumentTemplates.put("LOAN", settings(List.of("INSTRUMENT_DETAILS", "LINKED_PARTIES")));
+        instrumentTemplates.put("BOND", settings(List.of("INSTRUMENT_DETAILS", "PERSISTED_IDS", "LINKED_ASSETS")));
+        ExcelTemplateProperties properties = ExcelTemplateProperties.builder()
+                .templateSheets(sheets)
+                .instrumentTemplates(instrumentTemplates)
+                .build();
+
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        generatorProperties.getBatch().setParallelism(2);
+        ExcelGeneratorService generatorService = TestGeneratorServices.builder()
+                .templates(properties)
+                .generatorProperties(generatorProperties)
+                .build();
+        batchService = new TemplateBatchService(generatorService, generatorProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.destroy();
+    }
+
+    @Test
+    void shouldExpandAllAndDropDuplicates() {
+        assertThat(batchService.resolveInstrumentTypes(List.of("LOAN", "all", "BOND")))
+                .containsExactly("LOAN", "MORTGAGE", "BOND");
+        assertThatThrownBy(() -> batchService.resolveInstrumentTypes(List.of("LOAN", "UNKNOWN")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("UNKNOWN");
+        assertThatThrownBy(() -> batchService.resolveInstrumentTypes(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldWriteOneStoredWorkbookEntryPerInstrumentType() throws IOException {
+        List<String> instrumentTypes = batchService.resolveInstrumentTypes(List.of(TemplateBatchService.ALL));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        batchService.writeZip(instrumentTypes, outputStream, instrumentType -> instrumentType + ".xlsx");
+
+        Map<String, Integer> sheetCounts = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(zip.readAllBytes()))) {
+                    sheetCounts.put(entry.getName(), workbook.getNumberOfSheets());
+                }
+            }
+        }
+        assertThat(sheetCounts).containsOnly(
+                Map.entry("MORTGAGE.xlsx", 6),
+                Map.entry("LOAN.xlsx", 2),
+                Map.entry("BOND.xlsx", 3));
+    }
+
+    private static TemplateSettings settings(List<String> sheetNames) {
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(sheetNames);
+        return settings;
+    }
+}
@@ -0,0 +1,95 @@
+package com.db.dbcover.service.buffer;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkbookBufferPoolTest {
+
+    private SimpleMeterRegistry registry;
+    private WorkbookBufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        ExcelGeneratorProperties.Buffers settings = new ExcelGeneratorProperties.Buffers();
+        settings.setChunkSize(DataSize.ofBytes(16));
+        settings.setMaxPooled(DataSize.ofBytes(64));
+        registry = new SimpleMeterRegistry();
+        pool = new WorkbookBufferPool(settings, registry);
+    }
+
+    @Test
+    void shouldCollectWritesAcrossChunksAndReuseThemAfterClose() throws IOException {
+        byte[] content = sequence(40);
+
+        try (PooledBuffer buffer = pool.newBuffer()) {
+            buffer.write(content, 0, 35);
+            buffer.write(content[35]);
+            buffer.write(content, 36, 4);
+
+            assertThat(buffer.size()).isEqualTo(40);
+            assertThat(buffer.chunks()).hasSize(3).allMatch(ByteBuffer::isDirect);
+            assertThat(buffer.toByteArray()).isEqualTo(content);
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            buffer.writeTo(copy);
+            assertThat(copy.toByteArray()).isEqualTo(content);
+            assertThat(registry.get(WorkbookBufferPool.IN_USE).gauge().value()).isEqualTo(48);
+        }
+        assertThat(pool.borrowedChunks()).isZero();
+
+        try (PooledBuffer buffer = pool.newBuffer()) {
+            buffer.write(content, 0, 20);
+            assertThat(buffer.toByteArray()).isEqualTo(sequence(20));
+        }
+        assertThat(pool.pooledChunks()).isEqualTo(3);
+        assertThat(registry.get(WorkbookBufferPool.POOLED).gauge().value()).isEqualTo(48);
+        assertThat(pool.fallbackCount()).isZero();
+    }
+
+    @Test
+    void shouldFallBackToHeapChunksWhenExhausted() {
+        try (PooledBuffer buffer = pool.newBuffer()) {
+            buffer.write(sequence(100), 0, 100);
+
+            assertThat(buffer.chunks()).hasSize(7).filteredOn(ByteBuffer::isDirect).hasSize(4);
+            assertThat(buffer.toByteArray()).isEqualTo(sequence(100));
+        }
+        assertThat(pool.fallbackCount()).isEqualTo(3);
+        assertThat(registry.get(WorkbookBufferPool.FALLBACKS).counter().count()).isEqualTo(3);
+        assertThat(pool.borrowedChunks()).isZero();
+        assertThat(pool.pooledChunks()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldWrapSerializedContentWithoutPooling() throws IOException {
+        byte[] content = sequence(10);
+        PooledBuffer wrapped = PooledBuffer.wrap(content);
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        wrapped.writeTo(copy);
+        assertThat(copy.toByteArray()).isEqualTo(content);
+        assertThat(wrapped.chunks()).singleElement().satisfies(chunk -> assertThat(chunk.array()).isSameAs(content));
+        assertThatThrownBy(() -> wrapped.write(1)).isInstanceOf(IllegalStateException.class);
+
+        wrapped.close();
+        assertThatThrownBy(wrapped::chunks).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.pooledChunks()).isZero();
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,112 @@
+package com.db.dbcover.service.cache;
+
+import com.db.dbcover.service.cache.RenderedWorkbookCache.CacheKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class GenerationCoalescerTest {
+
+    private static final CacheKey MORTGAGE = new CacheKey("MORTGAGE", "v1");
+
+    private SimpleMeterRegistry registry;
+    private GenerationCoalescer coalescer;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new GenerationCoalescer(true, registry);
+        callers = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        byte[] workbook = {1, 2, 3};
+
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(() -> coalescer.load(MORTGAGE, () -> {
+                loads.incrementAndGet();
+                awaitRelease(release);
+                return workbook;
+            })));
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> coalescer.coalescedCount() == 3);
+        assertThat(registry.get(GenerationCoalescer.IN_FLIGHT).gauge().value()).isEqualTo(1);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(workbook);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(registry.get(GenerationCoalescer.COALESCED)
+                .tag(GenerationCoalescer.INSTRUMENT_TYPE_TAG, "MORTGAGE")
+                .counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldPropagateFailureToJoinedCallersAndLoadAgainAfterwards() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<byte[]> leader = callers.submit(() -> coalescer.load(MORTGAGE, () -> {
+            awaitRelease(release);
+            throw new IOException("render failed");
+        }));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> coalescer.inFlightCount() == 1);
+        Future<byte[]> follower = callers.submit(() -> coalescer.load(MORTGAGE, () -> new byte[]{9}));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> coalescer.coalescedCount() == 1);
+        release.countDown();
+
+        for (Future<byte[]> result : List.of(leader, follower)) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseInstanceOf(IOException.class)
+                    .hasRootCauseMessage("render failed");
+        }
+        assertThat(coalescer.load(MORTGAGE, () -> new byte[]{7})).containsExactly(7);
+    }
+
+    @Test
+    void shouldNotShareLoadsOfDifferentTemplateVersions() throws IOException {
+        GenerationCoalescer disabled = new GenerationCoalescer(false, registry);
+
+        assertThat(coalescer.load(MORTGAGE, () -> new byte[]{1})).containsExactly(1);
+        assertThat(coalescer.load(new CacheKey("MORTGAGE", "v2"), () -> new byte[]{2})).containsExactly(2);
+        assertThat(disabled.load(MORTGAGE, () -> new byte[]{3})).containsExactly(3);
+        assertThat(coalescer.coalescedCount()).isZero();
+    }
+
+    private static void awaitRelease(CountDownLatch release) throws IOException {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JdbcRowSourceTest {
+
+    private static final TemplateSheet DEALS = TemplateSheet.builder()
+            .name("LINKED_DEALS")
+            .columns(List.of(
+                    Column.builder().header("DEAL_ID").build(),
+                    Column.builder().header("NOTIONAL").build(),
+                    Column.builder().header("DEAL_DATE").build()))
+            .build();
+
+    @Test
+    void shouldMapResultColumnsToHeadersByLabel() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("deal_id");
+        when(metaData.getColumnLabel(2)).thenReturn("NOTIONAL");
+        when(metaData.getColumnLabel(3)).thenReturn("INTERNAL_KEY");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getObject(1)).thenReturn("D-1", "D-2");
+        when(resultSet.getObject(2)).thenReturn(100, 200);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        ExcelExportProperties.Jdbc settings = new ExcelExportProperties().getJdbc();
+        settings.setFetchSize(500);
+        settings.setQueries(Map.of("MORTGAGE", Map.of("LINKED_DEALS", "select * from deals")));
+        List<List<Object>> rows = new ArrayList<>();
+
+        new JdbcRowSource(dataSource, settings).readRows("MORTGAGE", DEALS,
+                values -> rows.add(Arrays.asList(values.get("DEAL_ID"), values.get("NOTIONAL"), values.get("DEAL_DATE"))));
+
+        assertThat(rows).containsExactly(Arrays.asList("D-1", 100, null), Arrays.asList("D-2", 200, null));
+        verify(statement).setFetchSize(500);
+        verify(connection).setAutoCommit(false);
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+        verify(connection).close();
+    }
+
+    @Test
+    void shouldSkipSheetsWithoutQuery() throws IOException, SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        List<Object> rows = new ArrayList<>();
+
+        new JdbcRowSource(dataSource, new ExcelExportProperties().getJdbc()).readRows("MORTGAGE", DEALS, rows::add);
+
+        assertThat(rows).isEmpty();
+        verify(dataSource, never()).getConnection();
+    }
+}
@@ -0,0 +1,124 @@
+package com.db.dbcover.service.export;
+
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.TestGeneratorServices;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrefilledExportServiceTest {
+
+    private ExcelGeneratorService generatorService;
+    private ExcelGeneratorProperties generatorProperties;
+    private ExcelExportProperties exportProperties;
+    private GenerationBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        generatorProperties = new ExcelGeneratorProperties();
+        exportProperties = new ExcelExportProperties();
+        exportProperties.setRowWindow(50);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead = new GenerationBulkhead(generatorProperties.getBulkhead(), registry);
+        generatorService = TestGeneratorServices.builder()
+                .generatorProperties(generatorProperties)
+                .meterRegistry(registry)
+                .bulkhead(bulkhead)
+                .build();
+    }
+
+    @Test
+    void shouldWriteSourceRowsBelowTemplateHeaderByColumnHeader() throws IOException {
+        InMemoryRowSource source = new InMemoryRowSource()
+                .put("MORTGAGE", "INSTRUMENT_DETAILS", List.of(
+                        Map.of("INSTRUMENT_NAME", "First mortgage", "INSTRUMENT_ID", "M-1",
+                                "CURRENCY", "PLN", "ISSUE_DATE", LocalDate.of(2024, 3, 15)),
+                        Map.of("INSTRUMENT_ID", "M-2", "UNMAPPED", "ignored")))
+                .put("MORTGAGE", "LINKED_DEALS", List.of(
+                        Map.of("DEAL_ID", "D-1", "NOTIONAL", new BigDecimal("1250000.50"))));
+
+        try (Workbook workbook = export(source, "MORTGAGE")) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(6);
+            Sheet details = workbook.getSheet("INSTRUMENT_DETAILS");
+            assertThat(details.getRow(0).getCell(0).getStringCellValue()).isEqualTo("INSTRUMENT_ID");
+            assertThat(details.getPaneInformation().getHorizontalSplitPosition()).isEqualTo((short) 1);
+            assertThat(details.getLastRowNum()).isEqualTo(2);
+
+            Row first = details.getRow(1);
+            assertThat(first.getCell(0).getStringCellValue()).isEqualTo("M-1");
+            assertThat(first.getCell(1).getStringCellValue()).isEqualTo("First mortgage");
+            assertThat(first.getCell(2).getStringCellValue()).isEqualTo("PLN");
+            assertThat(DateUtil.getLocalDateTime(first.getCell(3).getNumericCellValue()).toLocalDate())
+                    .isEqualTo(LocalDate.of(2024, 3, 15));
+            assertThat(first.getCell(3).getCellStyle().getDataFormatString()).isEqualTo("dd/mm/yyyy");
+            assertThat(first.getCell(0).getCellStyle().getLocked()).isFalse();
+            assertThat(details.getRow(2).getCell(1)).isNull();
+
+            Sheet deals = workbook.getSheet("LINKED_DEALS");
+            assertThat(deals.getRow(1).getCell(3).getNumericCellValue()).isEqualTo(1250000.50);
+            assertThat(workbook.getSheet("LINKED_PARTIES").getLastRowNum()).isZero();
+
+            List<String> regions = details.getDataValidations().stream()
+                    .map(DataValidation::getRegions)
+                    .flatMap(regionList -> Arrays.stream(regionList.getCellRangeAddresses()))
+                    .map(CellRangeAddress::formatAsString)
+                    .toList();
+            assertThat(regions).contains("C2:C1048576", "D2:D1048576");
+        }
+    }
+
+    @Test
+    void shouldStreamRowsBeyondTheRowWindow() throws IOException {
+        List<Map<String, ?>> rows = IntStream.range(0, 5_000)
+                .<Map<String, ?>>mapToObj(i -> Map.of("PARTY_ID", "P-" + i, "PARTY_ROLE", "ISSUER"))
+                .toList();
+        InMemoryRowSource source = new InMemoryRowSource().put("MORTGAGE", "LINKED_PARTIES", rows);
+
+        try (Workbook workbook = export(source, "MORTGAGE")) {
+            Sheet parties = workbook.getSheet("LINKED_PARTIES");
+            assertThat(parties.getLastRowNum()).isEqualTo(5_000);
+            assertThat(parties.getRow(5_000).getCell(0).getStringCellValue()).isEqualTo("P-4999");
+        }
+    }
+
+    @Test
+    void shouldRejectExportsWithoutRowSource() {
+        PrefilledExportService service = new PrefilledExportService(generatorService, generatorProperties,
+                exportProperties, bulkhead, (RowSource) null);
+
+        assertThat(service.isAvailable()).isFalse();
+        assertThatThrownBy(() -> service.export("MORTGAGE", new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Workbook export(RowSource source, String instrumentType) throws IOException {
+        PrefilledExportService service = new PrefilledExportService(generatorService, generatorProperties,
+                exportProperties, bulkhead, source);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        service.export(instrumentType, outputStream);
+        return new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
@@ -0,0 +1,218 @@
+package com.db.dbcover.service.job;
+
+import com.db.dbcover.config.ExcelExportProperties;
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelJobProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.TestGeneratorServices;
+import com.db.dbcover.service.admission.GenerationBulkhead;
+import com.db.dbcover.service.batch.TemplateBatchService;
+import com.db.dbcover.service.export.PrefilledExportService;
+import com.db.dbcover.service.export.RowSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class GenerationJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private ExcelJobProperties properties;
+    private ExcelGeneratorService generatorService;
+    private PrefilledExportService exportService;
+    private TemplateBatchService batchService;
+    private GenerationJobService jobService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clock = new MutableClock(Instant.parse("2024-06-01T10:00:00Z"));
+        properties = new ExcelJobProperties();
+        properties.setDirectory(directory.toString());
+        properties.setTtl(Duration.ofMinutes(30));
+
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GenerationBulkhead bulkhead = new GenerationBulkhead(generatorProperties.getBulkhead(), registry);
+        generatorService = TestGeneratorServices.builder()
+                .generatorProperties(generatorProperties)
+                .meterRegistry(registry)
+                .bulkhead(bulkhead)
+                .build();
+        exportService = new PrefilledExportService(generatorService, generatorProperties,
+                new ExcelExportProperties(), bulkhead, (RowSource) null);
+        batchService = new TemplateBatchService(generatorService, generatorProperties);
+        jobService = newJobService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.destroy();
+        batchService.destroy();
+    }
+
+    @Test
+    void shouldSpoolTemplateToDiskAndExposeArtifact() throws IOException {
+        JobStatus submitted = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE"));
+        assertThat(submitted.state()).isIn(JobState.QUEUED, JobState.RUNNING);
+
+        JobStatus finished = awaitFinished(submitted.id());
+        assertThat(finished.state()).isEqualTo(JobState.SUCCEEDED);
+        assertThat(finished.finishedAt()).isEqualTo(clock.instant());
+
+        JobArtifact artifact = jobService.artifact(submitted.id()).orElseThrow();
+        assertThat(artifact.file()).startsWith(directory).hasExtension("xlsx");
+        assertThat(artifact.size()).isEqualTo(finished.sizeBytes()).isEqualTo(Files.size(artifact.file()));
+        assertThat(artifact.filename()).startsWith("mortgage_bulk_upload_");
+        try (InputStream inputStream = Files.newInputStream(artifact.file());
+             Workbook workbook = new XSSFWorkbook(inputStream)) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void shouldEvictFinishedJobsAfterTtl() {
+        String id = jobService.submit(JobType.BATCH, List.of("all")).id();
+        Path file = awaitArtifact(id);
+
+        clock.advance(Duration.ofMinutes(29));
+        jobService.evictExpired();
+        assertThat(jobService.status(id)).isPresent();
+
+        clock.advance(Duration.ofMinutes(2));
+        jobService.evictExpired();
+        assertThat(jobService.status(id)).isEmpty();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void shouldEvictOldestArtifactsBeyondDiskQuota() throws IOException {
+        String first = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE")).id();
+        long artifactSize = Files.size(awaitArtifact(first));
+        jobService.destroy();
+        properties.setMaxDisk(DataSize.ofBytes(artifactSize + artifactSize / 2));
+        jobService = newJobService();
+
+        String older = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE")).id();
+        Path olderFile = awaitArtifact(older);
+        clock.advance(Duration.ofSeconds(1));
+        String newer = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE")).id();
+        awaitArtifact(newer);
+
+        assertThat(jobService.status(older)).isEmpty();
+        assertThat(olderFile).doesNotExist();
+
+        jobService.destroy();
+        properties.setMaxDisk(DataSize.ofBytes(artifactSize));
+        jobService = newJobService();
+        String kept = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE")).id();
+        awaitArtifact(kept);
+        String oversized = jobService.submit(JobType.BATCH, List.of("all")).id();
+        JobStatus failed = awaitFinished(oversized);
+        assertThat(failed.state()).isEqualTo(JobState.FAILED);
+        assertThat(failed.error()).contains("quota");
+        assertThat(jobService.artifact(oversized)).isEmpty();
+        assertThat(jobService.artifact(kept)).isPresent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "job-" + oversized + "*")) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldKeepEvictedArtifactWhileItIsDownloaded() {
+        properties.setSweepInterval(Duration.ofMinutes(1));
+        String id = jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE")).id();
+        Path file = awaitArtifact(id);
+        JobDownload download = jobService.openDownload(id).orElseThrow();
+
+        clock.advance(Duration.ofMinutes(31));
+        jobService.evictExpired();
+        assertThat(jobService.status(id)).isEmpty();
+        assertThat(jobService.openDownload(id)).isEmpty();
+        assertThat(file).exists();
+
+        download.close();
+        download.close();
+        jobService.evictExpired();
+        assertThat(file).exists();
+
+        clock.advance(Duration.ofMinutes(1));
+        jobService.evictExpired();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void shouldValidateSubmissions() {
+        assertThatThrownBy(() -> jobService.submit(JobType.TEMPLATE, List.of("UNKNOWN")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE", "MORTGAGE")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jobService.submit(JobType.EXPORT, List.of("MORTGAGE")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private GenerationJobService newJobService() throws IOException {
+        return new GenerationJobService(generatorService, exportService, batchService, properties, clock);
+    }
+
+    private JobStatus awaitFinished(String id) {
+        await().atMost(30, TimeUnit.SECONDS).until(() -> jobService.status(id).orElseThrow().state().isFinished());
+        return jobService.status(id).orElseThrow();
+    }
+
+    private Path awaitArtifact(String id) {
+        assertThat(awaitFinished(id).state()).isEqualTo(JobState.SUCCEEDED);
+        return jobService.artifact(id).orElseThrow().file();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
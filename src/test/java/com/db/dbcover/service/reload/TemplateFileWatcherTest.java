@@ -0,0 +1,205 @@
+package com.db.dbcover.service.reload;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
+import com.db.dbcover.service.cache.RenderedWorkbookCache;
+import com.db.dbcover.service.cache.RenderedWorkbookCache.CacheKey;
+import com.db.dbcover.service.render.RenderOptions;
+import com.db.dbcover.service.render.SheetPartCache;
+import com.db.dbcover.service.render.SheetPartCache.SheetPart;
+import com.db.dbcover.service.render.SheetPartCache.SheetPartKey;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RowExtent;
+import com.db.dbcover.template.TemplateSheetResolver.TemplateUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TemplateFileWatcherTest {
+
+    private static final RenderOptions OPTIONS =
+            new RenderOptions(0, RowExtent.rows(10_000), ColumnWidthMode.ESTIMATE, ListValidationMode.AUTO);
+
+    private static final String TEMPLATES = """
+            excel:
+              template:
+                template-sheets:
+                  - name: BASE
+                    columns:
+                      - { header: ID, type: TEXT, required: REQUIRED }
+                  - name: LOAN
+                    base-sheets: [BASE]
+                    columns:
+                      - { header: PRINCIPAL, type: NUMBER, required: REQUIRED }
+                  - name: BOND
+                    columns:
+                      - { header: ISIN, type: TEXT, required: REQUIRED }
+                instrument-templates:
+                  MORTGAGE:
+                    sheets: [LOAN]
+                  BOND:
+                    sheets: [BOND]
+            """;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private ExcelTemplateProperties templateProperties;
+    private RenderedWorkbookCache workbookCache;
+    private SheetPartCache sheetPartCache;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry registry;
+    private TemplateFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("excel-templates.yml");
+        Files.writeString(file, TEMPLATES);
+        templateProperties = properties(1);
+        ExcelGeneratorProperties generatorProperties = new ExcelGeneratorProperties();
+        workbookCache = new RenderedWorkbookCache(generatorProperties);
+        sheetPartCache = new SheetPartCache(generatorProperties);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (watcher != null) {
+            watcher.destroy();
+        }
+    }
+
+    @Test
+    void shouldDropOnlyCachesOfChangedTemplates() throws IOException {
+        watcher = watcher(false);
+        watcher.reload(file);
+        String mortgage = plan("MORTGAGE");
+        String bond = plan("BOND");
+        String loanSheet = sheetHash("LOAN");
+        String bondSheet = sheetHash("BOND");
+        cacheWorkbook("MORTGAGE", mortgage);
+        cacheWorkbook("BOND", bond);
+        cachePart(loanSheet);
+        cachePart(bondSheet);
+
+        Files.writeString(file, TEMPLATES.replace("header: ID,", "header: LOAN_ID,"));
+        TemplateUpdate update = watcher.reload(file);
+
+        assertThat(update.changedSheets()).containsExactlyInAnyOrder("BASE", "LOAN");
+        assertThat(update.affectedInstrumentTypes()).containsExactly("MORTGAGE");
+        assertThat(plan("MORTGAGE")).isNotEqualTo(mortgage);
+        assertThat(plan("BOND")).isEqualTo(bond);
+        assertThat(workbookCache.size()).isEqualTo(1);
+        assertThat(sheetPartCache.size()).isEqualTo(1);
+        assertThat(cacheWorkbook("BOND", bond)).isFalse();
+        assertThat(cachePart(bondSheet)).isFalse();
+        verify(eventPublisher).publishEvent(new TemplatesReloadedEvent(Set.of("BASE", "LOAN"), Set.of("MORTGAGE")));
+        assertThat(registry.get(TemplateFileWatcher.RELOADS).tag(TemplateFileWatcher.OUTCOME_TAG, "applied")
+                .counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepCachesOfRetainedVersions() throws IOException {
+        templateProperties = properties(2);
+        watcher = watcher(false);
+        watcher.reload(file);
+        String mortgage = plan("MORTGAGE");
+        String loanSheet = sheetHash("LOAN");
+        cacheWorkbook("MORTGAGE", mortgage);
+        cachePart(loanSheet);
+
+        Files.writeString(file, TEMPLATES.replace("header: ID,", "header: LOAN_ID,"));
+        watcher.reload(file);
+
+        assertThat(templateProperties.snapshot().versions("MORTGAGE")).hasSize(2);
+        assertThat(cacheWorkbook("MORTGAGE", mortgage)).isFalse();
+        assertThat(cachePart(loanSheet)).isFalse();
+    }
+
+    @Test
+    void shouldApplyFileChangesAndKeepPreviousTemplatesWhenInvalid() throws IOException {
+        watcher = watcher(true);
+        assertThat(watcher.isWatching()).isTrue();
+        watcher.reload(file);
+        String mortgage = plan("MORTGAGE");
+
+        Files.writeString(file, TEMPLATES.replace("name: BASE\n", "name: BASE\n        base-sheets: [LOAN]\n"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> registry.get(TemplateFileWatcher.RELOADS)
+                .tag(TemplateFileWatcher.OUTCOME_TAG, "failed").counter().count() >= 1);
+        assertThat(plan("MORTGAGE")).isEqualTo(mortgage);
+
+        Files.writeString(file, TEMPLATES.replace("type: NUMBER", "type: TEXT"));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> !plan("MORTGAGE").equals(mortgage));
+        assertThat(templateProperties.resolvedInstrumentTemplates()).containsOnlyKeys("MORTGAGE", "BOND");
+    }
+
+    private static ExcelTemplateProperties properties(int retainedVersions) {
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(List.of("PLACEHOLDER"));
+        return ExcelTemplateProperties.builder()
+                .templateSheets(List.of(TemplateSheet.builder().name("PLACEHOLDER").build()))
+                .instrumentTemplates(Map.of("PLACEHOLDER", settings))
+                .retainedVersions(retainedVersions)
+                .build();
+    }
+
+    private TemplateFileWatcher watcher(boolean enabled) throws IOException {
+        ExcelGeneratorProperties.TemplateReload settings = new ExcelGeneratorProperties.TemplateReload();
+        settings.setEnabled(enabled);
+        settings.setLocation(file.toUri().toString());
+        settings.setDebounce(Duration.ofMillis(50));
+        return new TemplateFileWatcher(settings, templateProperties, workbookCache, sheetPartCache, eventPublisher,
+                registry);
+    }
+
+    private String plan(String instrumentType) {
+        return templateProperties.renderPlans().get(instrumentType).contentHash();
+    }
+
+    private String sheetHash(String sheetName) {
+        return templateProperties.renderPlans().values().stream()
+                .flatMap(plan -> plan.sheets().stream())
+                .filter(sheet -> sheet.name().equals(sheetName))
+                .findFirst()
+                .orElseThrow()
+                .contentHash();
+    }
+
+    /**
+     * Caches a workbook and reports whether it had to be loaded.
+     */
+    private boolean cacheWorkbook(String instrumentType, String contentHash) throws IOException {
+        long misses = workbookCache.missCount();
+        workbookCache.getOrRender(new CacheKey(instrumentType, contentHash), () -> new byte[]{1});
+        return workbookCache.missCount() > misses;
+    }
+
+    private boolean cachePart(String sheetContentHash) throws IOException {
+        long misses = sheetPartCache.missCount();
+        sheetPartCache.getOrRender(new SheetPartKey(sheetContentHash, OPTIONS, RowExtent.rows(10), true, List.of()),
+                () -> new SheetPart(new byte[]{1}, List.of(), 0));
+        return sheetPartCache.missCount() > misses;
+    }
+}
@@ -0,0 +1,111 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RowExtent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SheetPartCacheTest {
+
+    private static final RenderOptions OPTIONS =
+            new RenderOptions(0, RowExtent.rows(10_000), ColumnWidthMode.ESTIMATE, ListValidationMode.AUTO);
+
+    private SheetPartCache partCache;
+    private StreamingWorkbookRenderer cachedRenderer;
+    private StreamingWorkbookRenderer uncachedRenderer;
+
+    @BeforeEach
+    void setUp() {
+        partCache = new SheetPartCache(new ExcelGeneratorProperties());
+        cachedRenderer = new StreamingWorkbookRenderer(OPTIONS, partCache);
+        uncachedRenderer = new StreamingWorkbookRenderer(OPTIONS);
+    }
+
+    @Test
+    void shouldReuseSharedSheetsAcrossInstrumentTemplates() throws IOException {
+        TemplateSheet details = sheet("DETAILS", column("ID", ColumnType.TEXT, null, List.of()));
+        TemplateSheet otherDetails = sheet("OTHER_DETAILS", column("CODE", ColumnType.NUMBER, null, List.of()));
+        TemplateSheet parties = sheet("PARTIES",
+                column("PARTY_ID", ColumnType.TEXT, null, List.of()),
+                column("ROLE", ColumnType.LIST, null, List.of("ISSUER", "GUARANTOR")),
+                column("SINCE", ColumnType.DATE, null, List.of()));
+
+        render(cachedRenderer, definition(details, parties));
+        assertThat(partCache.missCount()).isEqualTo(2);
+
+        ExcelTemplateDefinition second = definition(otherDetails, parties);
+        byte[] assembled = render(cachedRenderer, second);
+
+        assertThat(partCache.hitCount()).isEqualTo(1);
+        assertThat(partCache.missCount()).isEqualTo(3);
+        assertThat(WorkbookSnapshot.of(assembled)).isEqualTo(WorkbookSnapshot.of(render(uncachedRenderer, second)));
+    }
+
+    @Test
+    void shouldCarryLookupListsOfCachedParts() throws IOException {
+        List<String> longList = IntStream.range(0, 60).mapToObj(i -> "VALUE_" + i).toList();
+        TemplateSheet shared = sheet("SHARED", column("CHOICE", ColumnType.LIST, null, longList));
+
+        render(cachedRenderer, definition(sheet("FIRST"), shared));
+        ExcelTemplateDefinition second = definition(sheet("OTHER_FIRST"), shared);
+        byte[] assembled = render(cachedRenderer, second);
+
+        assertThat(partCache.hitCount()).isEqualTo(1);
+        assertThat(WorkbookSnapshot.of(assembled))
+                .contains("sheet 2 _LOOKUPS VERY_HIDDEN")
+                .isEqualTo(WorkbookSnapshot.of(render(uncachedRenderer, second)));
+    }
+
+    @Test
+    void shouldNotReusePartsWhenStyleIndexesDiffer() throws IOException {
+        TemplateSheet shared = sheet("SHARED", column("AMOUNT", ColumnType.NUMBER, "0.000", List.of()));
+        TemplateSheet customFirst = sheet("FIRST", column("RATE", ColumnType.NUMBER, "0.0%", List.of()));
+
+        render(cachedRenderer, definition(sheet("EMPTY"), shared));
+        ExcelTemplateDefinition second = definition(customFirst, shared);
+        byte[] assembled = render(cachedRenderer, second);
+
+        assertThat(partCache.hitCount()).isZero();
+        assertThat(WorkbookSnapshot.of(assembled)).isEqualTo(WorkbookSnapshot.of(render(uncachedRenderer, second)));
+    }
+
+    private static byte[] render(WorkbookRenderer renderer, ExcelTemplateDefinition definition) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        renderer.render(definition, outputStream, GenerationRecorder.NOOP);
+        return outputStream.toByteArray();
+    }
+
+    private static ExcelTemplateDefinition definition(TemplateSheet... sheets) {
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(List.of(sheets));
+        return definition;
+    }
+
+    private static TemplateSheet sheet(String name, Column... columns) {
+        return TemplateSheet.builder().name(name).columns(List.of(columns)).build();
+    }
+
+    private static Column column(String header, ColumnType type, String format, List<String> allowedValues) {
+        Column column = Column.builder()
+                .header(header)
+                .type(type)
+                .format(format)
+                .build();
+        column.setAllowedValues(allowedValues);
+        return column;
+    }
+}
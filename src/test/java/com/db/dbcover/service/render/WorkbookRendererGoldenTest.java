@@ -0,0 +1,161 @@
+package com.db.dbcover.service.render;
+
+import com.db.dbcover.service.metrics.GenerationRecorder;
+import com.db.dbcover.service.sheet.ColumnWidthMode;
+import com.db.dbcover.service.sheet.ListValidationMode;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import com.db.dbcover.template.ExcelTemplateDefinition;
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.ColumnType;
+import com.db.dbcover.template.ExcelTemplateDefinition.RequiredStatus;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.RowExtent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renders the same definitions with every backend, and with sheets rendered in parallel, and compares what POI reads back against the
+ * snapshots in {@code src/test/resources/golden}. Run with {@code -Dgolden.update=true} to rewrite
+ * the snapshots from the POI backend after an intentional layout change.
+ */
+class WorkbookRendererGoldenTest {
+
+    private static final Path GOLDEN_DIR = Path.of("src/test/resources/golden");
+
+    private static ExecutorService sheetExecutor;
+
+    @BeforeAll
+    static void startSheetExecutor() {
+        sheetExecutor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterAll
+    static void stopSheetExecutor() {
+        sheetExecutor.shutdown();
+    }
+
+    static Stream<Arguments> cases() {
+        ExcelTemplateDefinition mortgage = DefaultExcelTemplates.properties().resolvedInstrumentTemplates().get("MORTGAGE");
+        return Stream.of(
+                Arguments.of("mortgage-auto", mortgage, ListValidationMode.AUTO),
+                Arguments.of("mortgage-lookup", mortgage, ListValidationMode.LOOKUP_SHEET),
+                Arguments.of("mixed-auto", mixedDefinition(), ListValidationMode.AUTO),
+                Arguments.of("mixed-lookup", mixedDefinition(), ListValidationMode.LOOKUP_SHEET),
+                Arguments.of("mixed-extents", extentsDefinition(), ListValidationMode.AUTO),
+                Arguments.of("quoted-auto", quotedDefinition(), ListValidationMode.AUTO));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("cases")
+    void shouldMatchGoldenSnapshotWithEveryRenderer(String name,
+                                                    ExcelTemplateDefinition definition,
+                                                    ListValidationMode listValidation) throws IOException {
+        RenderOptions options = new RenderOptions(0, RowExtent.rows(10_000), ColumnWidthMode.ESTIMATE, listValidation);
+        String poiSnapshot = WorkbookSnapshot.of(render(new PoiWorkbookRenderer(options), definition));
+        String streamingSnapshot = WorkbookSnapshot.of(render(new StreamingWorkbookRenderer(options), definition));
+        String parallelSnapshot = WorkbookSnapshot.of(
+                render(new StreamingWorkbookRenderer(options, null, sheetExecutor), definition));
+
+        Path golden = GOLDEN_DIR.resolve(name + ".txt");
+        if (Boolean.getBoolean("golden.update")) {
+            Files.createDirectories(GOLDEN_DIR);
+            Files.writeString(golden, poiSnapshot, StandardCharsets.UTF_8);
+        }
+        String expected = Files.readString(golden, StandardCharsets.UTF_8);
+
+        assertThat(poiSnapshot).as("POI renderer").isEqualTo(expected);
+        assertThat(streamingSnapshot).as("streaming renderer").isEqualTo(expected);
+        assertThat(parallelSnapshot).as("streaming renderer, parallel sheets").isEqualTo(expected);
+    }
+
+    private static byte[] render(WorkbookRenderer renderer, ExcelTemplateDefinition definition) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        renderer.render(definition, outputStream, GenerationRecorder.NOOP);
+        return outputStream.toByteArray();
+    }
+
+    private static ExcelTemplateDefinition mixedDefinition() {
+        List<String> longList = IntStream.range(0, 60).mapToObj(i -> "VALUE_" + i).toList();
+        TemplateSheet first = sheet("Mixed & <Special>",
+                column("FLAG", ColumnType.BOOLEAN, RequiredStatus.REQUIRED, "Yes or no", null, List.of()),
+                column("SHORT_LIST", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, null, null, List.of("A", "B")),
+                column("COMMA_LIST", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, null, null, List.of("A, B", "C")),
+                column("LONG_LIST", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, "\"Quoted\" tip", null, longList),
+                column("AMOUNT", ColumnType.NUMBER, RequiredStatus.REQUIRED, null, "0.0000", List.of()),
+                column("TRADE_DATE", ColumnType.DATE, RequiredStatus.NOT_REQUIRED, "Trade date", "yyyy-mm-dd", List.of()),
+                column("NOTES", ColumnType.TEXT, RequiredStatus.NOT_REQUIRED, null, null, List.of()));
+        TemplateSheet second = sheet("Second Sheet",
+                column("OTHER_FLAG", ColumnType.BOOLEAN, RequiredStatus.NOT_REQUIRED, null, null, List.of()),
+                column("REUSED_LONG_LIST", ColumnType.LIST, RequiredStatus.REQUIRED, null, null, longList));
+        TemplateSheet empty = sheet("EMPTY");
+
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(List.of(first, second, empty));
+        return definition;
+    }
+
+    private static ExcelTemplateDefinition extentsDefinition() {
+        ExcelTemplateDefinition definition = mixedDefinition();
+        definition.setDataRows(RowExtent.rows(250));
+        List<TemplateSheet> sheets = new ArrayList<>(definition.getSheets());
+        sheets.get(1).setDataRows(RowExtent.ENTIRE_COLUMN);
+        definition.setSheets(sheets);
+        return definition;
+    }
+
+    /**
+     * Lists whose values contain quotes, which take two characters each in the list formula: one
+     * at exactly 255 characters once escaped stays inline, one of 249 raw characters does not.
+     */
+    private static ExcelTemplateDefinition quotedDefinition() {
+        List<String> quoted = IntStream.range(0, 42).mapToObj(i -> "Q\"%02d".formatted(i)).toList();
+        List<String> atLimit = Stream.concat(quoted.stream(), Stream.of("ABC")).toList();
+        List<String> overLimit = IntStream.range(0, 50).mapToObj(i -> "Q\"%02d".formatted(i)).toList();
+        TemplateSheet sheet = sheet("Quoted",
+                column("PIPE_SIZE", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, null, null, List.of("6\" pipe", "8\" pipe")),
+                column("AT_LIMIT", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, null, null, atLimit),
+                column("OVER_LIMIT", ColumnType.LIST, RequiredStatus.NOT_REQUIRED, null, null, overLimit));
+
+        ExcelTemplateDefinition definition = new ExcelTemplateDefinition();
+        definition.setSheets(List.of(sheet));
+        return definition;
+    }
+
+    private static TemplateSheet sheet(String name, Column... columns) {
+        return TemplateSheet.builder().name(name).columns(List.of(columns)).build();
+    }
+
+    private static Column column(String header,
+                                 ColumnType type,
+                                 RequiredStatus required,
+                                 String tooltip,
+                                 String format,
+                                 List<String> allowedValues) {
+        Column column = Column.builder()
+                .header(header)
+                .type(type)
+                .required(required)
+                .tooltip(tooltip)
+                .format(format)
+                .build();
+        column.setAllowedValues(allowedValues);
+        return column;
+    }
+}
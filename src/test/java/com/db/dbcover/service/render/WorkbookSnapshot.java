@@ -0,0 +1,117 @@
+package com.db.dbcover.service.render;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationConstraint;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.PaneInformation;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Text description of everything a template workbook carries, as read back by POI. Two workbooks
+ * with equal snapshots look and behave the same in Excel, whatever wrote their XML.
+ */
+final class WorkbookSnapshot {
+
+    private WorkbookSnapshot() {
+    }
+
+    static String of(byte[] workbookBytes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(workbookBytes))) {
+            for (int sheetIndex = 0; sheetIndex < workbook.getNumberOfSheets(); sheetIndex++) {
+                describeSheet(workbook, workbook.getSheetAt(sheetIndex), sheetIndex, lines);
+            }
+            workbook.getAllNames().stream()
+                    .map(WorkbookSnapshot::describeName)
+                    .sorted()
+                    .forEach(lines::add);
+        }
+        return String.join("\n", lines) + "\n";
+    }
+
+    private static void describeSheet(Workbook workbook, XSSFSheet sheet, int sheetIndex, List<String> lines) {
+        lines.add("sheet " + sheetIndex + " " + sheet.getSheetName() + " " + workbook.getSheetVisibility(sheetIndex));
+        lines.add("  protected=" + sheet.getProtect()
+                + " password=" + sheet.validateSheetPassword(sheet.getSheetName()));
+
+        PaneInformation pane = sheet.getPaneInformation();
+        lines.add(pane == null
+                ? "  pane none"
+                : "  pane frozen=" + pane.isFreezePane()
+                + " rows=" + pane.getHorizontalSplitPosition()
+                + " columns=" + pane.getVerticalSplitPosition());
+        if (sheet.getCTWorksheet().isSetAutoFilter()) {
+            lines.add("  autofilter " + sheet.getCTWorksheet().getAutoFilter().getRef());
+        }
+
+        Row headerRow = sheet.getRow(0);
+        int columnCount = headerRow == null ? 0 : Math.max(0, headerRow.getLastCellNum());
+        for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            CellStyle columnStyle = sheet.getColumnStyle(columnIndex);
+            lines.add("  column " + columnIndex
+                    + " width=" + sheet.getColumnWidth(columnIndex)
+                    + " style=" + (columnStyle == null ? "none" : describeStyle(workbook, columnStyle)));
+        }
+
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                lines.add("  cell " + cell.getAddress().formatAsString()
+                        + " \"" + cell.getStringCellValue() + "\""
+                        + " style=" + describeStyle(workbook, cell.getCellStyle()));
+            }
+        }
+
+        sheet.getDataValidations().stream()
+                .map(WorkbookSnapshot::describeValidation)
+                .sorted()
+                .forEach(lines::add);
+    }
+
+    private static String describeStyle(Workbook workbook, CellStyle style) {
+        Font font = workbook.getFontAt(style.getFontIndex());
+        return "[format=" + style.getDataFormatString()
+                + " locked=" + style.getLocked()
+                + " bold=" + font.getBold()
+                + " fontColor=" + font.getColor()
+                + " fill=" + style.getFillPattern() + "/" + style.getFillForegroundColor()
+                + " align=" + style.getAlignment() + "/" + style.getVerticalAlignment() + "]";
+    }
+
+    private static String describeValidation(DataValidation validation) {
+        DataValidationConstraint constraint = validation.getValidationConstraint();
+        String regions = Arrays.stream(validation.getRegions().getCellRangeAddresses())
+                .map(CellRangeAddress::formatAsString)
+                .collect(Collectors.joining(" "));
+        String explicitValues = constraint.getExplicitListValues() == null
+                ? "none"
+                : String.join("|", constraint.getExplicitListValues());
+        return "  validation " + regions
+                + " type=" + constraint.getValidationType()
+                + " operator=" + constraint.getOperator()
+                + " formula1=" + constraint.getFormula1()
+                + " formula2=" + constraint.getFormula2()
+                + " values=" + explicitValues
+                + " allowBlank=" + validation.getEmptyCellAllowed()
+                + " showPrompt=" + validation.getShowPromptBox()
+                + " prompt=" + validation.getPromptBoxText()
+                + " showError=" + validation.getShowErrorBox();
+    }
+
+    private static String describeName(Name name) {
+        return "name " + name.getNameName() + " sheet=" + name.getSheetIndex() + " " + name.getRefersToFormula();
+    }
+}
@@ -0,0 +1,189 @@
+package com.db.dbcover.service.upload;
+
+import com.db.dbcover.config.ExcelUploadProperties;
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.TestGeneratorServices;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.xmlbeans.XmlCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UploadValidationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExcelGeneratorService generatorService;
+    private ExcelUploadProperties uploadProperties;
+    private UploadValidationService service;
+
+    @BeforeEach
+    void setUp() {
+        generatorService = TestGeneratorServices.defaults();
+        uploadProperties = new ExcelUploadProperties();
+        service = new UploadValidationService(generatorService, uploadProperties);
+    }
+
+    @Test
+    void shouldAcceptValidRows() throws IOException {
+        Path upload = fill(workbook -> {
+            Sheet details = workbook.getSheet("INSTRUMENT_DETAILS");
+            row(details, 1, "ID-1", "First", "PLN", LocalDate.of(2024, 1, 15));
+            row(details, 2, "ID-2", "Second", "EUR", "15/01/2024");
+        });
+
+        UploadReport report = service.validate("MORTGAGE", upload);
+
+        assertThat(report.valid()).isTrue();
+        assertThat(report.rowCount()).isEqualTo(2);
+        assertThat(report.errors()).isEmpty();
+    }
+
+    @Test
+    void shouldReportRequiredTypeAndAllowedValueViolations() throws IOException {
+        Path upload = fill(workbook -> {
+            Sheet details = workbook.getSheet("INSTRUMENT_DETAILS");
+            row(details, 1, null, "Second", "GBP", "31/02/2024");
+            Sheet deals = workbook.getSheet("LINKED_DEALS");
+            row(deals, 1, "DEAL-1", "PRIMARY", LocalDate.of(2024, 3, 1), "abc");
+        });
+
+        UploadReport report = service.validate("MORTGAGE", upload);
+
+        assertThat(report.valid()).isFalse();
+        assertThat(report.errors())
+                .extracting(UploadError::sheet, UploadError::cell, UploadError::column)
+                .containsExactly(
+                        tuple("INSTRUMENT_DETAILS", "A2", "INSTRUMENT_ID"),
+                        tuple("INSTRUMENT_DETAILS", "C2", "CURRENCY"),
+                        tuple("INSTRUMENT_DETAILS", "D2", "ISSUE_DATE"),
+                        tuple("LINKED_DEALS", "D2", "NOTIONAL"));
+    }
+
+    @Test
+    void shouldValidateIsoDateCells() throws IOException {
+        Path upload = fill(workbook -> {
+            Sheet details = workbook.getSheet("INSTRUMENT_DETAILS");
+            row(details, 1, "ID-1", "First", "PLN");
+            isoDate(details.getRow(1), 3, "2024-01-15T00:00:00");
+            row(details, 2, "ID-2", "Second", "EUR");
+            isoDate(details.getRow(2), 3, "1899-12-31");
+            row(details, 3, "ID-3", "Third", "PLN");
+            isoDate(details.getRow(3), 3, "2024-02-30");
+        });
+
+        UploadReport report = service.validate("MORTGAGE", upload);
+
+        assertThat(report.errors())
+                .extracting(UploadError::cell, UploadError::column)
+                .containsExactly(tuple("D3", "ISSUE_DATE"), tuple("D4", "ISSUE_DATE"));
+    }
+
+    @Test
+    void shouldReportMissingSheetsAndTruncateErrors() throws IOException {
+        uploadProperties.setMaxErrors(1);
+        Path upload = fill(workbook -> {
+            workbook.removeSheetAt(workbook.getSheetIndex("LINKED_PARTIES"));
+            Sheet details = workbook.getSheet("INSTRUMENT_DETAILS");
+            row(details, 1, null, null, null, null);
+            row(details, 2, "ID-3", null, "PLN", null);
+        });
+
+        UploadReport report = service.validate("MORTGAGE", upload);
+
+        assertThat(report.errorCount()).isEqualTo(2);
+        assertThat(report.truncated()).isTrue();
+        assertThat(report.errors()).hasSize(1);
+        assertThat(report.sheets())
+                .filteredOn(sheet -> sheet.sheet().equals("LINKED_PARTIES"))
+                .singleElement()
+                .extracting(SheetReport::errorCount)
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void shouldMergeParallelSheetResultsInDefinitionOrder() throws Exception {
+        Path upload = fill(workbook -> {
+            row(workbook.getSheet("LINKED_PARTIES"), 1, "P-1", null, "Party");
+            row(workbook.getSheet("INSTRUMENT_DETAILS"), 1, "ID-1", "First", "CHF");
+            row(workbook.getSheet("LINKED_ASSETS"), 1, "A-1", "BOND", "n/a");
+        });
+        UploadReport sequential = service.validate("MORTGAGE", upload);
+
+        ExcelUploadProperties parallelProperties = new ExcelUploadProperties();
+        parallelProperties.setParallel(true);
+        parallelProperties.setParallelism(3);
+        UploadValidationService parallelService = new UploadValidationService(generatorService, parallelProperties);
+        try {
+            UploadReport parallel = parallelService.validate("MORTGAGE", upload);
+
+            assertThat(parallel).isEqualTo(sequential);
+            assertThat(parallel.errors()).extracting(UploadError::sheet)
+                    .containsExactly("INSTRUMENT_DETAILS", "LINKED_ASSETS", "LINKED_PARTIES");
+        } finally {
+            parallelService.destroy();
+        }
+    }
+
+    @Test
+    void shouldRejectFilesThatAreNotWorkbooks() throws IOException {
+        Path upload = Files.writeString(tempDir.resolve("not-a-workbook.xlsx"), "plain text");
+
+        assertThatThrownBy(() -> service.validate("MORTGAGE", upload))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path fill(WorkbookFiller filler) throws IOException {
+        Path target = tempDir.resolve("upload.xlsx");
+        byte[] template = generatorService.generateTemplate("MORTGAGE");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(template));
+             OutputStream outputStream = Files.newOutputStream(target)) {
+            filler.fill(workbook);
+            workbook.write(outputStream);
+        }
+        return target;
+    }
+
+    private static void row(Sheet sheet, int rowIndex, Object... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value instanceof String text) {
+                row.createCell(i).setCellValue(text);
+            } else if (value instanceof LocalDate date) {
+                row.createCell(i).setCellValue(date);
+            }
+        }
+    }
+
+    private static void isoDate(Row row, int columnIndex, String value) {
+        // t="d" is not part of the schema POI compiles against, so the attribute is set directly.
+        CTCell cell = ((XSSFCell) row.createCell(columnIndex)).getCTCell();
+        cell.setV(value);
+        try (XmlCursor cursor = cell.newCursor()) {
+            cursor.setAttributeText(new QName("t"), "d");
+        }
+    }
+
+    @FunctionalInterface
+    private interface WorkbookFiller {
+        void fill(XSSFWorkbook workbook);
+    }
+}
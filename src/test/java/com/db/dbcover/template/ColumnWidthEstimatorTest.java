@@ -0,0 +1,34 @@
+package com.db.dbcover.template;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnWidthEstimatorTest {
+
+    @Test
+    void shouldRenderRepresentativeSamplesForFormats() {
+        assertThat(ColumnWidthEstimator.formatSample("dd/mm/yyyy")).isEqualTo("31/12/2099");
+        assertThat(ColumnWidthEstimator.formatSample("dd.mm.yy")).isEqualTo("31.12.99");
+        assertThat(ColumnWidthEstimator.formatSample("#,##0.00############")).isEqualTo("1,234,567.00");
+        assertThat(ColumnWidthEstimator.formatSample("0%;[Red]-0%")).isEqualTo("1234567%");
+        assertThat(ColumnWidthEstimator.formatSample("@")).isEmpty();
+        assertThat(ColumnWidthEstimator.formatSample("General")).isEmpty();
+    }
+
+    @Test
+    void shouldSizeColumnsByWiderOfHeaderAndFormatSample() {
+        int shortHeaderDate = ColumnWidthEstimator.estimate("D", "dd/mm/yyyy");
+        int shortHeaderText = ColumnWidthEstimator.estimate("D", "@");
+        int longHeaderDate = ColumnWidthEstimator.estimate("RELATED_INSTRUMENT_ID", "dd/mm/yyyy");
+
+        assertThat(shortHeaderDate).isGreaterThan(shortHeaderText);
+        assertThat(longHeaderDate).isEqualTo(ColumnWidthEstimator.estimate("RELATED_INSTRUMENT_ID", "@"));
+    }
+
+    @Test
+    void shouldCapWidthAtExcelMaximum() {
+        assertThat(ColumnWidthEstimator.estimate("W".repeat(400), "@"))
+                .isEqualTo(ColumnWidthEstimator.MAX_COLUMN_WIDTH);
+    }
+}
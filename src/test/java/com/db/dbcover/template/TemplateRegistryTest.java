@@ -0,0 +1,72 @@
+package com.db.dbcover.template;
+
+import com.db.dbcover.template.ExcelTemplateDefinition.Column;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
+import com.db.dbcover.template.TemplateSheetResolver.ResolvedTemplates;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemplateRegistryTest {
+
+    @Test
+    void shouldRetainTheLastVersionsOfEveryInstrumentTemplate() {
+        TemplateRegistry registry = new TemplateRegistry(2);
+        ResolvedTemplates first = resolve("A1", "BOND");
+        ResolvedTemplates second = resolve("A2", "BOND");
+        ResolvedTemplates third = resolve("A3", null);
+
+        assertThat(registry.snapshot()).isNull();
+        assertThat(registry.publishInitial(first).resolved()).isSameAs(first);
+        assertThat(registry.publishInitial(second).resolved()).isSameAs(first);
+        registry.publish(second);
+        registry.publish(second);
+        TemplateRegistry.Snapshot snapshot = registry.publish(third);
+
+        assertThat(snapshot.sequence()).isEqualTo(3);
+        assertThat(snapshot.resolved()).isSameAs(third);
+        assertThat(snapshot.versions("MORTGAGE")).containsExactly(
+                third.renderPlans().get("MORTGAGE"), second.renderPlans().get("MORTGAGE"));
+        assertThat(snapshot.version("MORTGAGE", first.renderPlans().get("MORTGAGE").contentHash())).isEmpty();
+        assertThat(snapshot.versions("BOND")).isEmpty();
+        assertThat(snapshot.retainedSheetHashes()).containsExactly(
+                second.renderPlans().get("MORTGAGE").sheets().get(0).contentHash());
+        assertThatThrownBy(() -> new TemplateRegistry(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCompileOnlyTheLazyPlansThatEnterTheHistory() {
+        TemplateRegistry registry = new TemplateRegistry(2);
+        ResolvedTemplates first = resolve("A1", "BOND", ResolutionMode.LAZY);
+        RenderPlan firstMortgage = first.renderPlans().get("MORTGAGE");
+        registry.publishInitial(first);
+        ResolvedTemplates second = resolve("A2", "BOND", ResolutionMode.LAZY);
+
+        TemplateRegistry.Snapshot snapshot = registry.publish(second);
+
+        assertThat(MemoizedMap.peek(second.renderPlans(), "MORTGAGE")).isNotNull();
+        assertThat(MemoizedMap.peek(second.renderPlans(), "BOND")).isNull();
+        assertThat(snapshot.history().keySet()).containsExactly("MORTGAGE");
+        assertThat(snapshot.versions("MORTGAGE")).containsExactly(second.renderPlans().get("MORTGAGE"), firstMortgage);
+    }
+
+    private static ResolvedTemplates resolve(String header, String bond) {
+        return resolve(header, bond, ResolutionMode.EAGER);
+    }
+
+    private static ResolvedTemplates resolve(String header, String bond, ResolutionMode mode) {
+        TemplateSheet sheet = TemplateSheet.builder()
+                .name("LOAN")
+                .columns(List.of(Column.builder().header(header).build()))
+                .build();
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(List.of("LOAN"));
+        return TemplateSheetResolver.resolve(List.of(sheet),
+                bond != null ? Map.of("MORTGAGE", settings, bond, settings) : Map.of("MORTGAGE", settings), mode);
+    }
+}
@@ -6,11 +6,18 @@ import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSheet;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TemplateSheetResolverTest {
 
@@ -42,6 +49,210 @@ class TemplateSheetResolverTest {
                 .containsExactly("A1", "A2", "B1", "C1");
     }
 
+    @Test
+    @DisplayName("inherits the data-row extent from base sheets and carries the template extent")
+    void shouldResolveDataRowExtents() {
+        TemplateSheet base = sheet("BASE", List.of(), List.of(column("A1")));
+        base.setDataRows(RowExtent.ENTIRE_COLUMN);
+        TemplateSheet derived = sheet("DERIVED", List.of("BASE"), List.of(column("C1")));
+        TemplateSheet standalone = sheet("STANDALONE", List.of(), List.of(column("S1")));
+
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(List.of("DERIVED", "STANDALONE"));
+        settings.setDataRows(RowExtent.valueOf("500"));
+
+        ExcelTemplateDefinition definition = TemplateSheetResolver.resolve(
+                List.of(base, derived, standalone),
+                Map.of("COMBINED", settings)
+        ).instrumentTemplates().get("COMBINED");
+
+        RowExtent defaultRows = RowExtent.rows(10_000);
+        assertThat(definition.resolvedDataRows(definition.getSheets().get(0), defaultRows))
+                .isEqualTo(RowExtent.ENTIRE_COLUMN);
+        assertThat(definition.resolvedDataRows(definition.getSheets().get(1), defaultRows))
+                .isEqualTo(RowExtent.rows(500));
+        assertThat(TemplateContentHash.of(definition))
+                .isNotEqualTo(TemplateContentHash.of(definitionWithoutExtent(definition)));
+    }
+
+    @Test
+    @DisplayName("compiles every instrument template into an immutable, pre-resolved render plan")
+    void shouldCompileRenderPlans() {
+        Column flag = Column.builder()
+                .header("FLAG")
+                .type(ExcelTemplateDefinition.ColumnType.BOOLEAN)
+                .required(ExcelTemplateDefinition.RequiredStatus.REQUIRED)
+                .description("Set when active")
+                .build();
+        Column choice = column("CHOICE");
+        choice.setType(ExcelTemplateDefinition.ColumnType.LIST);
+        choice.setAllowedValues(List.of("A,B", "C"));
+        choice.setTooltip("Pick one");
+        TemplateSheet sheet = sheet("SHEET", List.of(), List.of(flag, choice, column("FREE")));
+
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(List.of("SHEET"));
+        settings.setDataRows(RowExtent.rows(50));
+
+        TemplateSheetResolver.ResolvedTemplates resolved = TemplateSheetResolver.resolve(
+                List.of(sheet), Map.of("COMBINED", settings));
+        ExcelTemplateDefinition definition = resolved.instrumentTemplates().get("COMBINED");
+        RenderPlan plan = resolved.renderPlans().get("COMBINED");
+
+        assertThat(plan.contentHash()).isEqualTo(TemplateContentHash.of(definition));
+        SheetPlan sheetPlan = plan.sheets().get(0);
+        assertThat(sheetPlan.contentHash()).isEqualTo(TemplateContentHash.of(definition.getSheets().get(0)));
+        assertThat(sheetPlan.dataRows()).isEqualTo(RowExtent.rows(50));
+        assertThat(sheetPlan.columns())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("widthHint")
+                .containsExactly(
+                        new ColumnSpec("FLAG", true, ExcelTemplateDefinition.ColumnType.BOOLEAN, "@",
+                                List.of("YES", "NO"), "Set when active", 6, 0),
+                        new ColumnSpec("CHOICE", false, ExcelTemplateDefinition.ColumnType.LIST, "@",
+                                List.of("A,B", "C"), "Pick one", -1, 0),
+                        new ColumnSpec("FREE", false, ExcelTemplateDefinition.ColumnType.TEXT, "@",
+                                List.of(), "", 0, 0));
+        assertThat(sheetPlan.columns()).allMatch(column -> column.widthHint() > 0);
+        assertThat(plan.sheets()).isSameAs(plan.sheets());
+        assertThatThrownBy(() -> sheetPlan.columns().add(sheetPlan.columns().get(0)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("re-resolves only changed sheets and their dependents and reports the affected templates")
+    void shouldUpdateIncrementally() {
+        TemplateSheet base = sheet("BASE", List.of(), List.of(column("A1")));
+        TemplateSheet derived = sheet("DERIVED", List.of("BASE"), List.of(column("D1")));
+        TemplateSheet other = sheet("OTHER", List.of(), List.of(column("O1")));
+        Map<String, TemplateSettings> templates = new LinkedHashMap<>();
+        templates.put("DERIVED_TEMPLATE", settings("DERIVED"));
+        templates.put("OTHER_TEMPLATE", settings("OTHER"));
+        TemplateSheetResolver.ResolvedTemplates previous = TemplateSheetResolver.resolve(
+                List.of(base, derived, other), templates);
+
+        TemplateSheet editedBase = sheet("BASE", List.of(), List.of(column("A1"), column("A2")));
+        TemplateSheetResolver.TemplateUpdate update = TemplateSheetResolver.update(previous,
+                List.of(editedBase, derived, sheet("OTHER", List.of(), List.of(column("O1")))), templates);
+
+        TemplateSheetResolver.ResolvedTemplates resolved = update.resolved();
+        assertThat(update.changedSheets()).containsExactlyInAnyOrder("BASE", "DERIVED");
+        assertThat(update.affectedInstrumentTypes()).containsExactly("DERIVED_TEMPLATE");
+        assertThat(update.staleSheetHashes()).containsExactlyInAnyOrder(
+                TemplateContentHash.of(previous.sheetIndex().get("BASE")),
+                TemplateContentHash.of(previous.sheetIndex().get("DERIVED")));
+        assertThat(resolved.sheetIndex()).containsOnlyKeys("BASE", "DERIVED", "OTHER");
+        assertThat(resolved.sheetIndex().get("DERIVED").getColumns())
+                .extracting(Column::getHeader)
+                .containsExactly("A1", "A2", "D1");
+        assertThat(resolved.sheetIndex().get("OTHER")).isSameAs(previous.sheetIndex().get("OTHER"));
+        assertThat(resolved.renderPlans().get("OTHER_TEMPLATE")).isSameAs(previous.renderPlans().get("OTHER_TEMPLATE"));
+        assertThat(resolved.renderPlans().get("DERIVED_TEMPLATE").contentHash())
+                .isEqualTo(TemplateContentHash.of(resolved.instrumentTemplates().get("DERIVED_TEMPLATE")));
+
+        TemplateSheet cyclicBase = sheet("BASE", List.of("DERIVED"), List.of(column("A1")));
+        assertThatThrownBy(() -> TemplateSheetResolver.update(resolved, List.of(cyclicBase, derived, other), templates))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Circular sheet reference");
+        assertThat(TemplateSheetResolver.update(resolved, List.of(editedBase, derived, other), templates).hasChanges())
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("lazy mode validates references up front and resolves each template once on first use")
+    void shouldResolveLazilyOnFirstAccess() throws Exception {
+        TemplateSheet base = sheet("BASE", List.of(), List.of(column("A1")));
+        TemplateSheet derived = sheet("DERIVED", List.of("BASE"), List.of(column("D1")));
+        TemplateSheet other = sheet("OTHER", List.of(), List.of(column("O1")));
+        Map<String, TemplateSettings> templates = new LinkedHashMap<>();
+        templates.put("DERIVED_TEMPLATE", settings("DERIVED"));
+        templates.put("OTHER_TEMPLATE", settings("OTHER"));
+
+        TemplateSheetResolver.ResolvedTemplates lazy = TemplateSheetResolver.resolve(
+                List.of(base, derived, other), templates, ResolutionMode.LAZY);
+        MemoizedMap<String, TemplateSheet> sheetIndex = (MemoizedMap<String, TemplateSheet>) lazy.sheetIndex();
+        assertThat(sheetIndex.computedCount()).isZero();
+        assertThat(lazy.renderPlans().keySet()).containsExactly("DERIVED_TEMPLATE", "OTHER_TEMPLATE");
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<RenderPlan>> plans = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                plans.add(callers.submit(() -> lazy.renderPlans().get("DERIVED_TEMPLATE")));
+            }
+            RenderPlan plan = plans.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<RenderPlan> concurrent : plans) {
+                assertThat(concurrent.get(10, TimeUnit.SECONDS)).isSameAs(plan);
+            }
+            assertThat(plan.contentHash()).isEqualTo(TemplateSheetResolver.resolve(List.of(base, derived, other), templates)
+                    .renderPlans().get("DERIVED_TEMPLATE").contentHash());
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(sheetIndex.computedCount()).isEqualTo(2);
+        assertThat(MemoizedMap.peek(sheetIndex, "OTHER")).isNull();
+
+        TemplateSheetResolver.TemplateUpdate update = TemplateSheetResolver.update(lazy,
+                List.of(base, derived, sheet("OTHER", List.of(), List.of(column("O2")))), templates, ResolutionMode.LAZY);
+        assertThat(update.affectedInstrumentTypes()).containsExactly("OTHER_TEMPLATE");
+        assertThat(update.staleSheetHashes()).isEmpty();
+        assertThat(MemoizedMap.peek(update.resolved().sheetIndex(), "DERIVED")).isNull();
+        assertThat(update.resolved().renderPlans().get("DERIVED_TEMPLATE"))
+                .isSameAs(lazy.renderPlans().get("DERIVED_TEMPLATE"));
+
+        TemplateSheet cyclicBase = sheet("BASE", List.of("DERIVED"), List.of(column("A1")));
+        assertThatThrownBy(() -> TemplateSheetResolver.resolve(List.of(cyclicBase, derived, other), templates,
+                ResolutionMode.LAZY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Circular sheet reference");
+        assertThatThrownBy(() -> TemplateSheetResolver.resolve(List.of(derived, other), templates, ResolutionMode.LAZY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown template sheet: BASE");
+    }
+
+    @Test
+    @DisplayName("lazy reloads do not keep earlier resolutions reachable")
+    void shouldReleaseEarlierLazyResolutions() throws InterruptedException {
+        Map<String, TemplateSettings> templates = new LinkedHashMap<>();
+        templates.put("DERIVED_TEMPLATE", settings("DERIVED"));
+        templates.put("OTHER_TEMPLATE", settings("OTHER"));
+        List<WeakReference<TemplateSheetResolver.ResolvedTemplates>> earlier = new ArrayList<>();
+
+        TemplateSheetResolver.ResolvedTemplates current = TemplateSheetResolver.resolve(lazyCatalog(0), templates,
+                ResolutionMode.LAZY);
+        current.renderPlans().get("DERIVED_TEMPLATE");
+        for (int revision = 1; revision <= 5; revision++) {
+            earlier.add(new WeakReference<>(current));
+            current = TemplateSheetResolver.update(current, lazyCatalog(revision), templates, ResolutionMode.LAZY)
+                    .resolved();
+            current.renderPlans().get("DERIVED_TEMPLATE");
+        }
+
+        for (int attempt = 0; attempt < 50 && earlier.stream().anyMatch(ref -> ref.get() != null); attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertThat(earlier).allSatisfy(ref -> assertThat(ref.get()).isNull());
+        assertThat(current.renderPlans().get("OTHER_TEMPLATE").sheets()).hasSize(1);
+    }
+
+    private static List<TemplateSheet> lazyCatalog(int revision) {
+        return List.of(
+                sheet("BASE", List.of(), List.of(column("A1"))),
+                sheet("DERIVED", List.of("BASE"), List.of(column("D" + revision))),
+                sheet("OTHER", List.of(), List.of(column("O1"))));
+    }
+
+    private static TemplateSettings settings(String... sheets) {
+        TemplateSettings settings = new TemplateSettings();
+        settings.setSheets(List.of(sheets));
+        return settings;
+    }
+
+    private static ExcelTemplateDefinition definitionWithoutExtent(ExcelTemplateDefinition definition) {
+        ExcelTemplateDefinition copy = new ExcelTemplateDefinition();
+        copy.setSheets(definition.getSheets());
+        return copy;
+    }
 
     private static TemplateSheet sheet(String name, List<String> baseSheets, List<Column> columns) {
         return TemplateSheet.builder()
@@ -0,0 +1,56 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.export.PrefilledExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExcelExportControllerTest {
+
+    private final ExcelGeneratorService generatorService = mock(ExcelGeneratorService.class);
+    private final PrefilledExportService exportService = mock(PrefilledExportService.class);
+    private final ExcelExportController controller = new ExcelExportController(generatorService, exportService);
+
+    @Test
+    void export_WithoutRowSource_Returns501() {
+        when(exportService.isAvailable()).thenReturn(false);
+
+        assertThatThrownBy(() -> controller.export("MORTGAGE"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_IMPLEMENTED));
+    }
+
+    @Test
+    void export_UnknownInstrument_RejectedBeforeStreaming() {
+        when(exportService.isAvailable()).thenReturn(true);
+        when(generatorService.resolveTemplate("UNKNOWN")).thenThrow(new IllegalArgumentException("Unknown instrument type: UNKNOWN"));
+
+        assertThatThrownBy(() -> controller.export("UNKNOWN"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void export_StreamsPrefilledWorkbook() throws Exception {
+        when(exportService.isAvailable()).thenReturn(true);
+
+        ResponseEntity<StreamingResponseBody> response = controller.export("MORTGAGE");
+        OutputStream outputStream = OutputStream.nullOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        verify(exportService).export(eq("MORTGAGE"), any(OutputStream.class));
+    }
+}
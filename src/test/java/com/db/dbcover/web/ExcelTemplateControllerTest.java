@@ -1,6 +1,19 @@
 package com.db.dbcover.web;
 
+import com.db.dbcover.config.ExcelGeneratorProperties;
+import com.db.dbcover.config.ExcelTemplateProperties;
 import com.db.dbcover.service.ExcelGeneratorService;
+import com.db.dbcover.service.ExcelGeneratorService.VersionedPlan;
+import com.db.dbcover.service.TestGeneratorServices;
+import com.db.dbcover.service.admission.GenerationRejectedException;
+import com.db.dbcover.service.batch.TemplateBatchService;
+import com.db.dbcover.service.buffer.PooledBuffer;
+import com.db.dbcover.service.buffer.WorkbookBufferPool;
+import com.db.dbcover.template.DefaultExcelTemplates;
+import com.db.dbcover.template.ExcelTemplateDefinition.TemplateSettings;
+import com.db.dbcover.template.RenderPlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.catalina.connector.CoyoteOutputStream;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -11,20 +24,39 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +65,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @TestPropertySource(locations = "classpath:application.yml")
 class ExcelTemplateControllerTest {
 
+    private static final RenderPlan PLAN = new RenderPlan(List.of(), "h1");
+
     @Autowired
     private ExcelTemplateController excelTemplateController;
 
@@ -42,11 +76,11 @@ class ExcelTemplateControllerTest {
         String instrumentType = "MORTGAGE";
 
         // When
-        ResponseEntity<byte[]> response = excelTemplateController.downloadTemplate(instrumentType);
-        byte[] excelData = response.getBody();
+        ResponseEntity<StreamingResponseBody> response = excelTemplateController.downloadTemplate(instrumentType, null);
+        byte[] excelData = body(response);
 
         // Then
-        assertThat(excelData).isNotNull();
+        assertThat(excelData).hasSize((int) response.getHeaders().getContentLength());
         
         // Verify filename in Content-Disposition header
         String contentDisposition = response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION);
@@ -94,4 +128,225 @@ class ExcelTemplateControllerTest {
             assertThat(assetsHeaderRow.getCell(2).getStringCellValue()).isEqualTo("ASSET_VALUE");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamTemplate_MORTGAGE_WritesWorkbookToOutputStream() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = excelTemplateController.streamTemplate("MORTGAGE", null);
+        assertThat(response.getBody()).isNotNull();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(6);
+            assertThat(workbook.getSheetName(0)).isEqualTo("INSTRUMENT_DETAILS");
+        }
+    }
+
+    @Test
+    void streamTemplate_UnknownInstrument_RejectedBeforeStreaming() {
+        assertThatThrownBy(() -> excelTemplateController.streamTemplate("UNKNOWN", null))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Unknown instrument type");
+    }
+
+    @Test
+    void downloadTemplate_RejectedByBulkhead_Returns503() throws IOException {
+        ExcelGeneratorService busyService = mock(ExcelGeneratorService.class);
+        when(busyService.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v1", PLAN));
+        when(busyService.generateBuffered(anyString(), any(RenderPlan.class))).thenThrow(new GenerationRejectedException("busy"));
+        ExcelTemplateController controller = new ExcelTemplateController(busyService, mock(TemplateBatchService.class));
+
+        assertThatThrownBy(() -> controller.downloadTemplate("MORTGAGE", null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    void downloadTemplate_HandsPooledChunksToTomcat() throws IOException {
+        ExcelGeneratorProperties.Buffers settings = new ExcelGeneratorProperties.Buffers();
+        settings.setChunkSize(DataSize.ofBytes(4));
+        WorkbookBufferPool pool = new WorkbookBufferPool(settings, new SimpleMeterRegistry());
+        PooledBuffer workbook = pool.newBuffer();
+        workbook.write(new byte[10]);
+        ExcelGeneratorService service = mock(ExcelGeneratorService.class);
+        when(service.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v1", PLAN));
+        when(service.generateBuffered("MORTGAGE", PLAN)).thenReturn(workbook);
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.downloadTemplate("MORTGAGE", null);
+        CoyoteOutputStream outputStream = mock(CoyoteOutputStream.class);
+        response.getBody().writeTo(outputStream);
+
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(10);
+        verify(outputStream, times(3)).write(any(ByteBuffer.class));
+        assertThat(pool.borrowedChunks()).isZero();
+    }
+
+    @Test
+    void downloadTemplate_ReleasesBufferWhenBodyNeverRuns() throws IOException {
+        WorkbookBufferPool pool = new WorkbookBufferPool(new ExcelGeneratorProperties.Buffers(), new SimpleMeterRegistry());
+        PooledBuffer workbook = pool.newBuffer();
+        workbook.write(new byte[10]);
+        ExcelGeneratorService service = mock(ExcelGeneratorService.class);
+        when(service.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v1", PLAN));
+        when(service.generateBuffered("MORTGAGE", PLAN)).thenReturn(workbook);
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            ResponseEntity<StreamingResponseBody> response = controller.downloadTemplate("MORTGAGE", null);
+            assertThat(pool.borrowedChunks()).isEqualTo(1);
+
+            attributes.requestCompleted();
+
+            assertThat(pool.borrowedChunks()).isZero();
+            assertThatThrownBy(() -> response.getBody().writeTo(new ByteArrayOutputStream()))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void streamTemplate_ReloadBeforeBodyRuns_WritesAnnouncedVersion() throws IOException {
+        ExcelTemplateProperties templates = DefaultExcelTemplates.properties();
+        ExcelGeneratorService service = TestGeneratorServices.builder().templates(templates).build();
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+        int sheets = templates.resolvedInstrumentTemplates().get("MORTGAGE").getSheets().size();
+
+        ResponseEntity<StreamingResponseBody> streamed = controller.streamTemplate("MORTGAGE", null);
+        ResponseEntity<StreamingResponseBody> downloaded = controller.downloadTemplate("MORTGAGE", null);
+        TemplateSettings reduced = new TemplateSettings();
+        reduced.setSheets(List.of("INSTRUMENT_DETAILS"));
+        templates.reload(ExcelTemplateProperties.builder()
+                .templateSheets(templates.resolvedInstrumentTemplates().get("MORTGAGE").getSheets())
+                .instrumentTemplates(Map.of("MORTGAGE", reduced))
+                .build());
+
+        assertThat(service.templateVersion("MORTGAGE")).isNotEqualTo(version(streamed));
+        assertThat(version(downloaded)).isEqualTo(version(streamed));
+        for (ResponseEntity<StreamingResponseBody> response : List.of(streamed, downloaded)) {
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(body(response)))) {
+                assertThat(workbook.getNumberOfSheets()).isEqualTo(sheets);
+            }
+        }
+    }
+
+    @Test
+    void downloadTemplate_SetsVersionValidators() {
+        String version = excelTemplateController.downloadTemplate("MORTGAGE", null).getHeaders().getETag();
+        ResponseEntity<StreamingResponseBody> response = excelTemplateController.downloadTemplate("MORTGAGE", null);
+
+        assertThat(response.getHeaders().getETag()).isEqualTo(version).startsWith("W/\"");
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION))
+                .startsWith("/excel/template/MORTGAGE/");
+    }
+
+    @Test
+    void downloadTemplate_MatchingIfNoneMatch_Returns304WithoutGenerating() throws IOException {
+        ExcelGeneratorService service = mock(ExcelGeneratorService.class);
+        when(service.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v1", PLAN));
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.downloadTemplate("MORTGAGE", "\"v0\", W/\"v1\"");
+        ResponseEntity<StreamingResponseBody> streamed = controller.streamTemplate("MORTGAGE", "W/\"v1\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"v1\"");
+        assertThat(streamed.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(service, never()).generateBuffered(anyString(), any(RenderPlan.class));
+        verify(service, never()).generateTemplate(anyString(), any(RenderPlan.class), any(OutputStream.class));
+    }
+
+    @Test
+    void downloadTemplateVersion_ServesCurrentVersionAsImmutable() throws IOException {
+        String location = excelTemplateController.downloadTemplate("MORTGAGE", null)
+                .getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION);
+        String version = location.substring(location.lastIndexOf('/') + 1);
+
+        ResponseEntity<StreamingResponseBody> response = excelTemplateController.downloadTemplateVersion("MORTGAGE", version, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isNotEmpty();
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable", "public", "max-age=31536000");
+        assertThatThrownBy(() -> excelTemplateController.downloadTemplateVersion("MORTGAGE", "stale", null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void downloadTemplateVersion_ServesRetainedEarlierVersion() throws IOException {
+        ExcelGeneratorService service = mock(ExcelGeneratorService.class);
+        when(service.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v2", new RenderPlan(List.of(), "h2")));
+        when(service.findPlan("MORTGAGE", "v1")).thenReturn(Optional.of(new RenderPlan(List.of(), "h1")));
+        when(service.generateBuffered("MORTGAGE", "v1")).thenReturn(PooledBuffer.wrap(new byte[]{1, 2}));
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.downloadTemplateVersion("MORTGAGE", "v1", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"v1\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_LOCATION)).isEqualTo("/excel/template/MORTGAGE/v1");
+        assertThat(body(response)).containsExactly(1, 2);
+        verify(service, never()).generateBuffered("MORTGAGE");
+    }
+
+    @Test
+    void downloadTemplateVersion_CurrentVersion_RendersPinnedPlan() throws IOException {
+        ExcelGeneratorService service = mock(ExcelGeneratorService.class);
+        when(service.currentPlan("MORTGAGE")).thenReturn(new VersionedPlan("v1", PLAN));
+        when(service.findPlan("MORTGAGE", "v1")).thenReturn(Optional.of(PLAN));
+        when(service.generateBuffered("MORTGAGE", "v1")).thenReturn(PooledBuffer.wrap(new byte[]{1}));
+        when(service.generateBuffered("MORTGAGE", PLAN)).thenReturn(PooledBuffer.wrap(new byte[]{9}));
+        when(service.findPlan("MORTGAGE", "v0")).thenReturn(Optional.of(new RenderPlan(List.of(), "h0")));
+        when(service.generateBuffered("MORTGAGE", "v0")).thenThrow(new IllegalArgumentException("not retained"));
+        ExcelTemplateController controller = new ExcelTemplateController(service, mock(TemplateBatchService.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.downloadTemplateVersion("MORTGAGE", "v1", null);
+
+        assertThat(body(response)).containsExactly(1);
+        verify(service, never()).generateBuffered("MORTGAGE", PLAN);
+        assertThatThrownBy(() -> controller.downloadTemplateVersion("MORTGAGE", "v0", null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void downloadTemplates_All_StreamsZipOfWorkbooks() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = excelTemplateController.downloadTemplates(List.of("all"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        String currentDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .contains("templates_bulk_upload_" + currentDate + ".zip");
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(zip.getNextEntry().getName()).isEqualTo("mortgage_bulk_upload_" + currentDate + ".xlsx");
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(zip.readAllBytes()))) {
+                assertThat(workbook.getNumberOfSheets()).isEqualTo(6);
+            }
+            assertThat(zip.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    void downloadTemplates_UnknownInstrument_RejectedBeforeStreaming() {
+        assertThatThrownBy(() -> excelTemplateController.downloadTemplates(List.of("MORTGAGE", "UNKNOWN")))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        assertThat(response.getBody()).isNotNull();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static String version(ResponseEntity<?> response) {
+        return response.getHeaders().getETag();
+    }
+}
@@ -0,0 +1,117 @@
+package com.db.dbcover.web;
+
+import com.db.dbcover.service.job.GenerationJobService;
+import com.db.dbcover.service.job.JobArtifact;
+import com.db.dbcover.service.job.JobDownload;
+import com.db.dbcover.service.job.JobState;
+import com.db.dbcover.service.job.JobStatus;
+import com.db.dbcover.service.job.JobType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GenerationJobControllerTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger openDownloads = new AtomicInteger();
+    private GenerationJobService jobService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jobService = mock(GenerationJobService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new GenerationJobController(jobService)).build();
+
+        Path file = Files.write(directory.resolve("job-1.xlsx"), CONTENT);
+        when(jobService.status("1")).thenReturn(Optional.of(jobStatus("1", JobState.SUCCEEDED)));
+        JobArtifact artifact = new JobArtifact(file, "mortgage_bulk_upload_20240601.xlsx", "application/octet-stream",
+                CONTENT.length);
+        when(jobService.openDownload("1")).thenAnswer(invocation -> {
+            openDownloads.incrementAndGet();
+            return Optional.of(new JobDownload(artifact, openDownloads::decrementAndGet));
+        });
+        when(jobService.status("2")).thenReturn(Optional.of(jobStatus("2", JobState.RUNNING)));
+        when(jobService.openDownload("2")).thenReturn(Optional.empty());
+        when(jobService.status("missing")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void submit_ReturnsAcceptedWithLocation() throws Exception {
+        when(jobService.submit(JobType.TEMPLATE, List.of("MORTGAGE"))).thenReturn(jobStatus("3", JobState.QUEUED));
+
+        mockMvc.perform(post("/excel/jobs")
+                        .contentType("application/json")
+                        .content("{\"type\":\"TEMPLATE\",\"instrumentTypes\":[\"MORTGAGE\"]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/excel/jobs/3"))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+    }
+
+    @Test
+    void download_ServesRangesOfFinishedArtifact() throws Exception {
+        mockMvc.perform(get("/excel/jobs/1/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"mortgage_bulk_upload_20240601.xlsx\""))
+                .andExpect(content().bytes(CONTENT));
+
+        mockMvc.perform(get("/excel/jobs/1/download").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().bytes("2345".getBytes()));
+        assertThat(openDownloads).hasValue(0);
+    }
+
+    @Test
+    void download_HandsFullTransferToSendfileWhenSupported() throws Exception {
+        MvcResult result = mockMvc.perform(get("/excel/jobs/1/download")
+                        .requestAttr(GenerationJobController.SENDFILE_SUPPORTED, Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(result.getRequest().getAttribute(GenerationJobController.SENDFILE_FILENAME))
+                .isEqualTo(directory.resolve("job-1.xlsx").toAbsolutePath().toString());
+        assertThat(result.getRequest().getAttribute(GenerationJobController.SENDFILE_END)).isEqualTo((long) CONTENT.length);
+        assertThat(openDownloads).hasValue(0);
+    }
+
+    @Test
+    void download_UnfinishedOrUnknownJob() throws Exception {
+        mockMvc.perform(get("/excel/jobs/2/download")).andExpect(status().isConflict());
+        mockMvc.perform(get("/excel/jobs/missing")).andExpect(status().isNotFound());
+    }
+
+    private static JobStatus jobStatus(String id, JobState state) {
+        return new JobStatus(id, JobType.TEMPLATE, List.of("MORTGAGE"), state, Instant.parse("2024-06-01T10:00:00Z"),
+                null, null, null);
+    }
+}